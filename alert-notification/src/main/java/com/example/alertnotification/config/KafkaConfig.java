@@ -1,6 +1,7 @@
 package com.example.alertnotification.config;
 
 import com.example.alertnotification.model.WeatherAlert;
+import com.example.alertnotification.serialization.WeatherAlertDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -12,7 +13,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -40,15 +40,13 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.example.*");
-        
-        ObjectMapper mapper = objectMapper();
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, WeatherAlertDeserializer.class);
         
+        // Accepts both JSON and binary records; JSON is read with a streaming codec instead of databind
         return new DefaultKafkaConsumerFactory<>(
                 props,
                 new StringDeserializer(),
-                new JsonDeserializer<>(WeatherAlert.class, mapper, false)
+                new WeatherAlertDeserializer()
         );
     }
 
@@ -0,0 +1,31 @@
+package com.example.alertnotification.model;
+
+/**
+ * Stage of an alert's lifecycle. All messages about one weather event share its alert ID.
+ */
+public enum AlertStatus {
+    // Conditions crossed a threshold
+    OPEN,
+    // Conditions became more severe
+    ESCALATED,
+    // Conditions changed without getting more severe, or a reminder after the re-notify interval
+    UPDATED,
+    // Conditions are back below every threshold of the alert
+    RESOLVED;
+    
+    /**
+     * Status of a received alert: alerts from before the lifecycle carry none and were always new,
+     * and a status added by a newer sender is still news about an alert that has not ended
+     */
+    public static AlertStatus parse(String name) {
+        if (name == null) {
+            return OPEN;
+        }
+        for (AlertStatus status : values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        return UPDATED;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.alertnotification.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -25,4 +27,13 @@ public class WeatherAlert {
     private double alertValue;
     private String severity; // HIGH, MEDIUM, LOW
     private LocalDateTime timestamp;
+    
+    // Every message of a lifecycle has the same alert ID, so the row holds the latest state
+    @Enumerated(EnumType.STRING)
+    private AlertStatus status = AlertStatus.OPEN;
+    
+    public WeatherAlert(String alertId, String locationId, String locationName, String alertType, String alertMessage,
+                        double alertValue, String severity, LocalDateTime timestamp) {
+        this(alertId, locationId, locationName, alertType, alertMessage, alertValue, severity, timestamp, AlertStatus.OPEN);
+    }
 }
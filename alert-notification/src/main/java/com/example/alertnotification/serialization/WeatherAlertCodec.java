@@ -0,0 +1,44 @@
+package com.example.alertnotification.serialization;
+
+import com.example.alertnotification.model.AlertStatus;
+import com.example.alertnotification.model.WeatherAlert;
+
+/**
+ * Binary encoding of {@link WeatherAlert}, see {@link BinaryEncoding} for the layout
+ */
+public final class WeatherAlertCodec {
+
+    private WeatherAlertCodec() {
+    }
+    
+    public static byte[] encode(WeatherAlert alert) {
+        BinaryEncoding.Writer writer = new BinaryEncoding.Writer(192, BinaryEncoding.TYPE_WEATHER_ALERT);
+        writer.writeString(alert.getAlertId());
+        writer.writeString(alert.getLocationId());
+        writer.writeString(alert.getLocationName());
+        writer.writeString(alert.getAlertType());
+        writer.writeString(alert.getAlertMessage());
+        writer.writeDouble(alert.getAlertValue());
+        writer.writeString(alert.getSeverity());
+        writer.writeTimestamp(alert.getTimestamp());
+        writer.writeString(alert.getStatus() != null ? alert.getStatus().name() : null);
+        return writer.toByteArray();
+    }
+    
+    public static WeatherAlert decode(byte[] bytes) {
+        BinaryEncoding.Reader reader = new BinaryEncoding.Reader(bytes, BinaryEncoding.TYPE_WEATHER_ALERT);
+        WeatherAlert alert = new WeatherAlert();
+        alert.setAlertId(reader.readString());
+        alert.setLocationId(reader.readString());
+        alert.setLocationName(reader.readString());
+        alert.setAlertType(reader.readString());
+        alert.setAlertMessage(reader.readString());
+        alert.setAlertValue(reader.readDouble());
+        alert.setSeverity(reader.readString());
+        alert.setTimestamp(reader.readTimestamp());
+        if (reader.version() >= 2) {
+            alert.setStatus(AlertStatus.parse(reader.readString()));
+        }
+        return alert;
+    }
+}
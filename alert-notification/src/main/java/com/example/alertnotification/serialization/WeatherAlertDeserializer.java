@@ -0,0 +1,28 @@
+package com.example.alertnotification.serialization;
+
+import com.example.alertnotification.model.WeatherAlert;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link WeatherAlert} in either wire format, deciding per record from the first byte
+ */
+public class WeatherAlertDeserializer implements Deserializer<WeatherAlert> {
+
+    @Override
+    public WeatherAlert deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (BinaryEncoding.isBinary(data)) {
+            return WeatherAlertCodec.decode(data);
+        }
+        try {
+            return WeatherAlertJsonCodec.decode(data);
+        } catch (IOException e) {
+            throw new SerializationException("Error deserializing weather alert from " + topic, e);
+        }
+    }
+}
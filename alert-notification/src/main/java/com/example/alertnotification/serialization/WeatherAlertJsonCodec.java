@@ -0,0 +1,61 @@
+package com.example.alertnotification.serialization;
+
+import com.example.alertnotification.model.AlertStatus;
+import com.example.alertnotification.model.WeatherAlert;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * JSON encoding of {@link WeatherAlert} on the Jackson streaming API, field for field compatible
+ * with the databind output it replaces
+ */
+public final class WeatherAlertJsonCodec {
+
+    private WeatherAlertJsonCodec() {
+    }
+    
+    public static byte[] encode(WeatherAlert alert) throws IOException {
+        return StreamingJson.write(alert, WeatherAlertJsonCodec::write);
+    }
+    
+    public static WeatherAlert decode(byte[] bytes) throws IOException {
+        try (JsonParser parser = StreamingJson.startObject(bytes)) {
+            WeatherAlert alert = new WeatherAlert();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                switch (field) {
+                    case "alertId" -> alert.setAlertId(StreamingJson.readString(parser));
+                    case "locationId" -> alert.setLocationId(StreamingJson.readString(parser));
+                    case "locationName" -> alert.setLocationName(StreamingJson.readString(parser));
+                    case "alertType" -> alert.setAlertType(StreamingJson.readString(parser));
+                    case "alertMessage" -> alert.setAlertMessage(StreamingJson.readString(parser));
+                    case "alertValue" -> alert.setAlertValue(StreamingJson.readDouble(parser));
+                    case "severity" -> alert.setSeverity(StreamingJson.readString(parser));
+                    case "timestamp" -> alert.setTimestamp(StreamingJson.readTimestamp(parser));
+                    case "status" -> alert.setStatus(AlertStatus.parse(StreamingJson.readString(parser)));
+                    // Unknown fields are ignored, as with the previous deserializer
+                    default -> parser.skipChildren();
+                }
+            }
+            return alert;
+        }
+    }
+    
+    private static void write(JsonGenerator generator, WeatherAlert alert) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("alertId", alert.getAlertId());
+        generator.writeStringField("locationId", alert.getLocationId());
+        generator.writeStringField("locationName", alert.getLocationName());
+        generator.writeStringField("alertType", alert.getAlertType());
+        generator.writeStringField("alertMessage", alert.getAlertMessage());
+        generator.writeNumberField("alertValue", alert.getAlertValue());
+        generator.writeStringField("severity", alert.getSeverity());
+        generator.writeFieldName("timestamp");
+        StreamingJson.writeTimestamp(generator, alert.getTimestamp());
+        generator.writeStringField("status", alert.getStatus() != null ? alert.getStatus().name() : null);
+        generator.writeEndObject();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.alertnotification.service;
 
+import com.example.alertnotification.model.AlertStatus;
 import com.example.alertnotification.model.WeatherAlert;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +22,12 @@ public class AlertConsumer {
         // Add to alert history
         alertHistoryService.addAlert(alert);
         
+        // An ended alert is worth knowing about, but not urgent
+        if (alert.getStatus() == AlertStatus.RESOLVED) {
+            notificationService.sendPushNotification(alert);
+            return;
+        }
+        
         // Send notifications based on severity
         if ("HIGH".equals(alert.getSeverity())) {
             // For high severity alerts, send all notification types
@@ -17,7 +17,7 @@ public class AlertHistoryService {
     private final WeatherAlertRepository alertRepository;
     
     public void addAlert(WeatherAlert alert) {
-        // Save the alert to the database
+        // Save the alert to the database; later messages about the same alert replace its row
         alertRepository.save(alert);
     }
     
@@ -32,6 +32,10 @@ public class NotificationService {
         
         // Composite conditions
         ALERT_DESCRIPTIONS.put("TROPICAL_STORM_CONDITIONS", "Combination of strong winds and heavy rain may cause flooding, power outages, and property damage.");
+        
+        // Anomalies: conditions unusual for the location, though within the fixed thresholds
+        ALERT_DESCRIPTIONS.put("UNUSUAL_TEMPERATURE", "Temperatures far from what is normal for this location may catch people and infrastructure unprepared.");
+        ALERT_DESCRIPTIONS.put("UNUSUAL_WIND", "Winds stronger than almost any recorded at this location may bring down branches and damage exposed structures.");
     }
 
     public void sendEmailNotification(WeatherAlert alert) {
@@ -44,13 +48,14 @@ public class NotificationService {
         );
         
         String emailContent = String.format(
-            "WEATHER ALERT - %s - %s\n\n" +
+            "WEATHER ALERT %s - %s - %s\n\n" +
             "Location: %s\n" +
             "Alert Type: %s\n" +
             "Message: %s\n" +
             "Severity: %s\n\n" +
             "Description: %s\n\n" +
             "Please take appropriate precautions.",
+            alert.getStatus(),
             alert.getSeverity(),
             alert.getAlertType(),
             alert.getLocationName(),
@@ -73,8 +78,9 @@ public class NotificationService {
         log.info("Sending SMS notification for alert: {}", alert);
         
         String smsContent = String.format(
-            "URGENT %s ALERT: %s - %s",
+            "URGENT %s ALERT %s: %s - %s",
             alert.getAlertType(),
+            alert.getStatus(),
             alert.getLocationName(),
             alert.getAlertMessage()
         );
@@ -92,7 +98,8 @@ public class NotificationService {
         log.info("Sending push notification for alert: {}", alert);
         
         String pushContent = String.format(
-            "%s - %s - %s",
+            "%s %s - %s - %s",
+            alert.getStatus(),
             alert.getSeverity(),
             alert.getAlertType(),
             alert.getAlertMessage()
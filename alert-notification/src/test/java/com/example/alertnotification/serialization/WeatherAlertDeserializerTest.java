@@ -0,0 +1,93 @@
+package com.example.alertnotification.serialization;
+
+import com.example.alertnotification.model.AlertStatus;
+import com.example.alertnotification.model.WeatherAlert;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WeatherAlertDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    
+    private final WeatherAlertDeserializer deserializer = new WeatherAlertDeserializer();
+    
+    @Test
+    void testJsonAlert() {
+        String json = "{\"alertId\":\"alert-1\",\"locationId\":\"location-1\",\"locationName\":\"London, GB\","
+                + "\"alertType\":\"HIGH_WIND\",\"alertMessage\":\"High wind\",\"alertValue\":22.5,"
+                + "\"severity\":\"HIGH\",\"timestamp\":\"2025-03-14T09:26:53.589\"}";
+        
+        WeatherAlert alert = deserializer.deserialize("weather-alerts", json.getBytes(StandardCharsets.UTF_8));
+        
+        assertEquals(weatherAlert(), alert);
+    }
+    
+    @Test
+    void testBinaryAlert() {
+        WeatherAlert alert = deserializer.deserialize("weather-alerts", WeatherAlertCodec.encode(weatherAlert()));
+        
+        assertEquals(weatherAlert(), alert);
+    }
+    
+    @Test
+    void testDatabindJsonAlert() throws Exception {
+        // Whatever the analyzer's databind serializer wrote before the streaming codec must still be readable
+        byte[] json = objectMapper.writeValueAsBytes(weatherAlert());
+        
+        assertEquals(weatherAlert(), deserializer.deserialize("weather-alerts", json));
+    }
+    
+    @Test
+    void testStatusIsCarriedByBothFormats() {
+        WeatherAlert escalated = weatherAlert();
+        escalated.setStatus(AlertStatus.ESCALATED);
+        String json = "{\"alertId\":\"alert-1\",\"severity\":\"HIGH\",\"status\":\"RESOLVED\"}";
+        
+        assertEquals(escalated, deserializer.deserialize("weather-alerts", WeatherAlertCodec.encode(escalated)));
+        assertEquals(AlertStatus.RESOLVED,
+                deserializer.deserialize("weather-alerts", json.getBytes(StandardCharsets.UTF_8)).getStatus());
+    }
+    
+    @Test
+    void testVersionOneBinaryAlertIsOpen() {
+        WeatherAlert alert = weatherAlert();
+        alert.setStatus(null);
+        // Without a status the record ends with an empty string; version 1 records stop before it
+        byte[] binary = WeatherAlertCodec.encode(alert);
+        byte[] versionOne = Arrays.copyOf(binary, binary.length - 1);
+        versionOne[1] = 1;
+        
+        assertEquals(weatherAlert(), deserializer.deserialize("weather-alerts", versionOne));
+    }
+    
+    @Test
+    void testEmptyRecordIsNull() {
+        assertNull(deserializer.deserialize("weather-alerts", new byte[0]));
+    }
+    
+    @Test
+    void testTruncatedBinaryIsRejected() {
+        byte[] binary = WeatherAlertCodec.encode(weatherAlert());
+        byte[] truncated = Arrays.copyOf(binary, binary.length - 4);
+        
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("weather-alerts", truncated));
+    }
+    
+    private WeatherAlert weatherAlert() {
+        return new WeatherAlert("alert-1", "location-1", "London, GB", "HIGH_WIND", "High wind", 22.5, "HIGH",
+                LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.alertnotification.service;
 
+import com.example.alertnotification.model.AlertStatus;
 import com.example.alertnotification.model.WeatherAlert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -109,4 +110,18 @@ public class AlertConsumerTest {
         verify(notificationService, times(0)).sendSmsNotification(lowSeverityAlert);
         verify(notificationService, times(0)).sendPushNotification(lowSeverityAlert);
     }
+
+    @Test
+    void testResolvedAlertOnlySendsPush() {
+        highSeverityAlert.setStatus(AlertStatus.RESOLVED);
+
+        alertConsumer.consumeAlert(highSeverityAlert);
+
+        // The ended alert still replaces the alert's history entry
+        verify(alertHistoryService, times(1)).addAlert(highSeverityAlert);
+
+        verify(notificationService, times(0)).sendEmailNotification(highSeverityAlert);
+        verify(notificationService, times(0)).sendSmsNotification(highSeverityAlert);
+        verify(notificationService, times(1)).sendPushNotification(highSeverityAlert);
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.weatheranalyzer.config;
+
+import com.example.weatheranalyzer.rules.BatchRuleEvaluator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class AnalyzerConfig {
+
+    // Evaluate alert rules with the Vector API when the JVM runs with --add-modules jdk.incubator.vector
+    @Value("${weather.analyzer.vector.enabled:true}")
+    private boolean vectorEnabled;
+    
+    @Bean
+    public BatchRuleEvaluator batchRuleEvaluator() {
+        BatchRuleEvaluator evaluator = BatchRuleEvaluator.create(vectorEnabled);
+        log.info("Evaluating alert rules with the {} evaluator", evaluator);
+        return evaluator;
+    }
+}
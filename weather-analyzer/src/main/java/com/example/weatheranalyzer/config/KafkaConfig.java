@@ -2,11 +2,16 @@ package com.example.weatheranalyzer.config;
 
 import com.example.weatheranalyzer.model.WeatherAlert;
 import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.serialization.WeatherAlertSerializer;
+import com.example.weatheranalyzer.serialization.WeatherDataDeserializer;
+import com.example.weatheranalyzer.serialization.WireFormat;
+import com.example.weatheranalyzer.service.PartitionedTrendStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -15,8 +20,6 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -30,6 +33,18 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
     
+    // Encoding of outgoing alerts: "json" or "binary"; incoming weather data may use either
+    @Value("${weather.kafka.wire-format:json}")
+    private String wireFormat;
+
+    // Listener threads; each owns the trend state of its partitions, so at most the partition count is useful
+    @Value("${weather.analyzer.listener.concurrency:1}")
+    private int listenerConcurrency;
+    
+    // Largest batch handed to the weather-data listener at once
+    @Value("${weather.analyzer.listener.max-poll-records:500}")
+    private int maxPollRecords;
+    
     // Create a properly configured ObjectMapper as a bean
     @Bean
     public ObjectMapper objectMapper() {
@@ -46,25 +61,31 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.example.*");
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, WeatherDataDeserializer.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // Only partitions that change owner are revoked, so the others keep their trend state
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
         
-        // Create a custom ObjectMapper with JSR310 module
-        ObjectMapper mapper = objectMapper();
-        
-        // Pass the ObjectMapper and other configurations to the JsonDeserializer constructor
+        // Accepts both JSON and binary records, so producers can switch formats independently.
+        // JSON is read with a streaming codec instead of databind, which allocated heavily per record
         return new DefaultKafkaConsumerFactory<>(
                 props,
                 new StringDeserializer(),
-                new JsonDeserializer<>(WeatherData.class, mapper, false)
+                new WeatherDataDeserializer()
         );
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, WeatherData> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, WeatherData> kafkaListenerContainerFactory(
+            PartitionedTrendStore trendStore) {
         ConcurrentKafkaListenerContainerFactory<String, WeatherData> factory = 
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(listenerConcurrency);
+        // The listener gets each poll as a whole; offsets are committed after it returns
+        factory.setBatchListener(true);
+        // Creates and drops per-partition trend state as partitions move between listener threads
+        factory.getContainerProperties().setConsumerRebalanceListener(trendStore);
         return factory;
     }
 
@@ -74,15 +95,12 @@ public class KafkaConfig {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        
-        // Use the same ObjectMapper for the producer
-        ObjectMapper mapper = objectMapper();
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, WeatherAlertSerializer.class);
         
         return new DefaultKafkaProducerFactory<>(
                 configProps,
                 new StringSerializer(),
-                new JsonSerializer<>(mapper)
+                new WeatherAlertSerializer(WireFormat.from(wireFormat))
         );
     }
 
@@ -0,0 +1,21 @@
+package com.example.weatheranalyzer.model;
+
+import lombok.Data;
+
+/**
+ * An alert that is open for a location, with what was last published about it
+ */
+@Data
+public class ActiveAlert {
+    private final String alertId;
+    private String alertType;
+    private String severity;
+    private String alertMessage;
+    private double alertValue;
+    
+    // Reading time, in epoch milliseconds, of the last published message
+    private long lastPublishedAt;
+    
+    // Number of the location's last reading that fired the alert
+    private long lastReading;
+}
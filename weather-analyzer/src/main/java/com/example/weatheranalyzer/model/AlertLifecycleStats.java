@@ -0,0 +1,19 @@
+package com.example.weatheranalyzer.model;
+
+import lombok.Value;
+
+/**
+ * Alert messages published and suppressed by the lifecycle since start-up
+ */
+@Value
+public class AlertLifecycleStats {
+    long opened;
+    long escalated;
+    long updated;
+    long resolved;
+    long suppressed;
+    
+    public long getPublished() {
+        return opened + escalated + updated + resolved;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.weatheranalyzer.model;
+
+import lombok.Value;
+
+/**
+ * Readings outside the allowed lateness since start-up
+ */
+@Value
+public class EventTimeStats {
+    long dropped;
+    long adjusted;
+}
@@ -0,0 +1,75 @@
+package com.example.weatheranalyzer.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Everything the analyzer keeps about one location. Owned by the thread that consumes the
+ * location's partition, so nothing here is synchronized.
+ */
+public class LocationState {
+
+    private final WeatherTrend trend;
+    
+    // Open alerts by lifecycle key: the rule group, or the alert type of rules without one
+    private final Map<String, ActiveAlert> activeAlerts = new HashMap<>(4);
+    
+    // What is normal for the location, for anomaly scores
+    private final LocationStatistics statistics = new LocationStatistics();
+    
+    private long readings;
+    
+    // Wall-clock time the analyzer last looked the location up, for idle eviction
+    private long lastAccess;
+    
+    public LocationState(String locationName) {
+        this(locationName, 0);
+    }
+    
+    /**
+     * State restored from a checkpoint, continuing the reading count
+     */
+    public LocationState(String locationName, long readings) {
+        this(new WeatherTrend(locationName), readings);
+    }
+    
+    public LocationState(WeatherTrend trend, long readings) {
+        this.trend = trend;
+        this.readings = readings;
+    }
+    
+    public WeatherTrend getTrend() {
+        return trend;
+    }
+    
+    public Map<String, ActiveAlert> getActiveAlerts() {
+        return activeAlerts;
+    }
+    
+    public LocationStatistics getStatistics() {
+        return statistics;
+    }
+    
+    public boolean hasActiveAlerts() {
+        return !activeAlerts.isEmpty();
+    }
+    
+    public long getLastAccess() {
+        return lastAccess;
+    }
+    
+    public void setLastAccess(long lastAccess) {
+        this.lastAccess = lastAccess;
+    }
+    
+    public long getReadings() {
+        return readings;
+    }
+    
+    /**
+     * Count one more reading and return its number
+     */
+    public long nextReading() {
+        return ++readings;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.weatheranalyzer.model;
+
+/**
+ * What is normal for one location, in fixed memory however long it reports: an exponentially weighted moving
+ * average and variance of each metric, and quantile sketches of temperature and wind speed. Each reading
+ * updates them in constant time, and no readings are kept.
+ */
+public class LocationStatistics {
+
+    private static final int METRICS = WeatherTrend.Metric.values().length;
+    
+    private final double[] means = new double[METRICS];
+    private final double[] variances = new double[METRICS];
+    private long count;
+    
+    private final QuantileSketch temperature = new QuantileSketch();
+    private final QuantileSketch windSpeed = new QuantileSketch();
+    
+    /**
+     * Readings the averages include
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    public double getMean(WeatherTrend.Metric metric) {
+        return means[metric.ordinal()];
+    }
+    
+    public double getVariance(WeatherTrend.Metric metric) {
+        return variances[metric.ordinal()];
+    }
+    
+    public QuantileSketch getTemperature() {
+        return temperature;
+    }
+    
+    public QuantileSketch getWindSpeed() {
+        return windSpeed;
+    }
+    
+    /**
+     * Standard deviations a value lies from the metric's average, against a standard deviation of at least
+     * {@code minStdDev} so a location whose readings barely vary does not score small changes as extreme
+     */
+    public double zScore(WeatherTrend.Metric metric, double value, double minStdDev) {
+        int m = metric.ordinal();
+        return (value - means[m]) / Math.max(Math.sqrt(variances[m]), minStdDev);
+    }
+    
+    /**
+     * Add a reading; {@code alpha} is the weight of the new value in the averages
+     */
+    public void update(double alpha, double temperature, double humidity, double windSpeed, double precipitation) {
+        update(alpha, WeatherTrend.Metric.TEMPERATURE.ordinal(), temperature);
+        update(alpha, WeatherTrend.Metric.HUMIDITY.ordinal(), humidity);
+        update(alpha, WeatherTrend.Metric.WIND_SPEED.ordinal(), windSpeed);
+        update(alpha, WeatherTrend.Metric.PRECIPITATION.ordinal(), precipitation);
+        count++;
+        this.temperature.add(temperature);
+        this.windSpeed.add(windSpeed);
+    }
+    
+    /**
+     * Restore the averages of a metric as written to a checkpoint
+     */
+    public void restore(long count, WeatherTrend.Metric metric, double mean, double variance) {
+        this.count = count;
+        means[metric.ordinal()] = mean;
+        variances[metric.ordinal()] = variance;
+    }
+    
+    private void update(double alpha, int m, double value) {
+        if (count == 0) {
+            means[m] = value;
+            variances[m] = 0;
+            return;
+        }
+        // Incremental form of the weighted mean and variance (West, 1979)
+        double difference = value - means[m];
+        double increment = alpha * difference;
+        means[m] += increment;
+        variances[m] = (1 - alpha) * (variances[m] + difference * increment);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.weatheranalyzer.model;
+
+/**
+ * Event-time progress of one weather-data partition: the newest reading time seen so far.
+ * Readings too far behind it are late. It only depends on the partition's records in offset
+ * order, so live consumption and reprocessing reach the same decisions. Owned by the partition's
+ * listener thread.
+ */
+public class PartitionWatermark {
+
+    private long maxEventTime = Long.MIN_VALUE;
+    
+    public boolean hasEvents() {
+        return maxEventTime != Long.MIN_VALUE;
+    }
+    
+    /**
+     * Newest reading time, in epoch milliseconds, or {@code Long.MIN_VALUE} before the first reading
+     */
+    public long getMaxEventTime() {
+        return maxEventTime;
+    }
+    
+    public void observe(long eventTime) {
+        maxEventTime = Math.max(maxEventTime, eventTime);
+    }
+}
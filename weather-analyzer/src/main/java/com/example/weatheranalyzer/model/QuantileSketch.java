@@ -0,0 +1,151 @@
+package com.example.weatheranalyzer.model;
+
+import java.util.Arrays;
+
+/**
+ * Estimate of a metric's distribution in constant memory, with the P² algorithm (Jain and Chlamtac) extended
+ * to several quantiles: markers track the minimum, the {@link #PROBABILITIES} and the maximum, and each value
+ * moves them toward their ideal positions with a piecewise-parabolic fit, without keeping the values.
+ */
+public final class QuantileSketch {
+
+    // Quantiles held by the markers; the first and last are the minimum and maximum
+    public static final double[] PROBABILITIES = {0, 0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99, 1};
+    
+    public static final int MARKERS = PROBABILITIES.length;
+    
+    // Until there are as many values as markers, heights holds the values themselves
+    private final double[] heights = new double[MARKERS];
+    // One-based positions of the markers among the values seen
+    private final int[] positions = new int[MARKERS];
+    private long count;
+    
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Add a value, in constant time
+     */
+    public void add(double value) {
+        if (count < MARKERS) {
+            heights[(int) count++] = value;
+            if (count == MARKERS) {
+                Arrays.sort(heights);
+                for (int i = 0; i < MARKERS; i++) {
+                    positions[i] = i + 1;
+                }
+            }
+            return;
+        }
+        
+        // Cell holding the value; the extreme markers follow new extremes
+        int cell;
+        if (value < heights[0]) {
+            heights[0] = value;
+            cell = 0;
+        } else if (value >= heights[MARKERS - 1]) {
+            heights[MARKERS - 1] = value;
+            cell = MARKERS - 2;
+        } else {
+            cell = 0;
+            while (value >= heights[cell + 1]) {
+                cell++;
+            }
+        }
+        for (int i = cell + 1; i < MARKERS; i++) {
+            positions[i]++;
+        }
+        count++;
+        
+        for (int i = 1; i < MARKERS - 1; i++) {
+            double offset = 1 + (count - 1) * PROBABILITIES[i] - positions[i];
+            if ((offset >= 1 && positions[i + 1] - positions[i] > 1) || (offset <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int step = offset > 0 ? 1 : -1;
+                double height = parabolic(i, step);
+                if (height <= heights[i - 1] || height >= heights[i + 1]) {
+                    height = heights[i] + step * (heights[i + step] - heights[i]) / (positions[i + step] - positions[i]);
+                }
+                heights[i] = height;
+                positions[i] += step;
+            }
+        }
+    }
+    
+    /**
+     * Estimated fraction of the values seen that are at most the given value, between 0 and 1
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return 0.5;
+        }
+        if (count < MARKERS) {
+            int atMost = 0;
+            for (int i = 0; i < count; i++) {
+                atMost += heights[i] <= value ? 1 : 0;
+            }
+            return (double) atMost / count;
+        }
+        if (value < heights[0]) {
+            return 0;
+        }
+        if (value >= heights[MARKERS - 1]) {
+            return 1;
+        }
+        int cell = 0;
+        while (value >= heights[cell + 1]) {
+            cell++;
+        }
+        double position = positions[cell] + (value - heights[cell]) / (heights[cell + 1] - heights[cell])
+            * (positions[cell + 1] - positions[cell]);
+        return position / count;
+    }
+    
+    /**
+     * Estimated value at a quantile, interpolated between the markers
+     */
+    public double quantile(double probability) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (count < MARKERS) {
+            double[] values = Arrays.copyOf(heights, (int) count);
+            Arrays.sort(values);
+            return values[(int) Math.min(count - 1, Math.round(probability * (count - 1)))];
+        }
+        double position = 1 + (count - 1) * probability;
+        int cell = 0;
+        while (cell < MARKERS - 2 && positions[cell + 1] < position) {
+            cell++;
+        }
+        return heights[cell] + (position - positions[cell]) / (positions[cell + 1] - positions[cell])
+            * (heights[cell + 1] - heights[cell]);
+    }
+    
+    // Access for checkpoints
+    
+    public double getHeight(int marker) {
+        return heights[marker];
+    }
+    
+    public int getPosition(int marker) {
+        return positions[marker];
+    }
+    
+    /**
+     * Restore a sketch as written from its count, heights and positions
+     */
+    public void restore(long count, double[] heights, int[] positions) {
+        this.count = count;
+        System.arraycopy(heights, 0, this.heights, 0, MARKERS);
+        System.arraycopy(positions, 0, this.positions, 0, MARKERS);
+    }
+    
+    private double parabolic(int i, int step) {
+        double left = positions[i] - positions[i - 1];
+        double right = positions[i + 1] - positions[i];
+        return heights[i] + step / (double) (positions[i + 1] - positions[i - 1])
+            * ((left + step) * (heights[i + 1] - heights[i]) / right
+            + (right - step) * (heights[i] - heights[i - 1]) / left);
+    }
+}
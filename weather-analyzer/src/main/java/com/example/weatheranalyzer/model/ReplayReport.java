@@ -0,0 +1,24 @@
+package com.example.weatheranalyzer.model;
+
+import lombok.Value;
+
+/**
+ * Outcome of replaying a range of weather-data
+ */
+@Value
+public class ReplayReport {
+    // Records read from the topic, including those without a value
+    long records;
+    // Readings analyzed, late ones included
+    long readings;
+    long alerts;
+    long elapsedNanos;
+    
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+    
+    public double getRecordsPerSecond() {
+        return elapsedNanos > 0 ? records / getElapsedSeconds() : 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.weatheranalyzer.model;
+
+/**
+ * Primitive memory a {@link WeatherTrend} keeps its ring buffers in, addressed in longs.
+ * Doubles are stored as their raw bits.
+ */
+public interface TrendMemory {
+
+    long get(int index);
+    
+    void set(int index, long value);
+    
+    default double getDouble(int index) {
+        return Double.longBitsToDouble(get(index));
+    }
+    
+    default void setDouble(int index, double value) {
+        set(index, Double.doubleToRawLongBits(value));
+    }
+    
+    /**
+     * Bytes of reading data held
+     */
+    long bytes();
+    
+    /**
+     * Hand the memory back once its trend is discarded
+     */
+    default void release() {
+    }
+    
+    static TrendMemory onHeap(int longs) {
+        return new HeapTrendMemory(new long[longs]);
+    }
+    
+    /**
+     * Memory backed by a plain array
+     */
+    final class HeapTrendMemory implements TrendMemory {
+        private final long[] longs;
+        
+        private HeapTrendMemory(long[] longs) {
+            this.longs = longs;
+        }
+        
+        @Override
+        public long get(int index) {
+            return longs[index];
+        }
+        
+        @Override
+        public void set(int index, long value) {
+            longs[index] = value;
+        }
+        
+        @Override
+        public long bytes() {
+            return (long) longs.length * Long.BYTES;
+        }
+    }
+}
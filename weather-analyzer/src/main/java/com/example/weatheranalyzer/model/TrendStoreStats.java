@@ -0,0 +1,18 @@
+package com.example.weatheranalyzer.model;
+
+import lombok.Value;
+
+/**
+ * Size of the analyzer's per-location state and evictions since start-up
+ */
+@Value
+public class TrendStoreStats {
+    int locations;
+    int maxLocations;
+    // Reading buffers of the held trends, on or off the heap
+    long bufferBytes;
+    // Direct memory reserved for off-heap buffers, 0 when they are on the heap
+    long offHeapReservedBytes;
+    long evictedLeastRecentlyUsed;
+    long evictedIdle;
+}
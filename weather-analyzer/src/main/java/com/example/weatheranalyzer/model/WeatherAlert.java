@@ -18,4 +18,11 @@ public class WeatherAlert {
     private double alertValue;
     private String severity; // HIGH, MEDIUM, LOW
     private LocalDateTime timestamp;
+    // Alerts from before the lifecycle was introduced were all new
+    private AlertStatus status = AlertStatus.OPEN;
+    
+    public WeatherAlert(String alertId, String locationId, String locationName, String alertType, String alertMessage,
+                        double alertValue, String severity, LocalDateTime timestamp) {
+        this(alertId, locationId, locationName, alertType, alertMessage, alertValue, severity, timestamp, AlertStatus.OPEN);
+    }
 }
@@ -1,27 +1,77 @@
 package com.example.weatheranalyzer.model;
 
-import lombok.Getter;
-
 import java.time.LocalDateTime;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Tracks weather trends for a specific location over time
+ * Tracks weather trends for a specific location over time.
+ * The most recent readings are kept in a fixed-size ring of primitive arrays, one per metric,
+ * and monotonic deques give the minimum and maximum of each metric within the trend window in
+ * amortized O(1). Updates allocate nothing. The window is measured in reading time: it covers
+ * the readings less than 30 minutes older than the newest one.
+ * The rings and deques live in one {@link TrendMemory} block, on the heap unless another is given.
  */
-@Getter
 public class WeatherTrend {
+
+    /**
+     * Values tracked per reading
+     */
+    public enum Metric {
+        TEMPERATURE, HUMIDITY, WIND_SPEED, PRECIPITATION
+    }
+    
+    // Maximum readings to store for trend analysis
+    public static final int DEFAULT_CAPACITY = 16;
+    
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final Metric[] METRICS = Metric.values();
+    
     private final String locationName;
+    private final int capacity;
     
-    // Tracking the last few temperature readings
-    private final Queue<WeatherReading> recentReadings = new LinkedList<>();
-    private double temperatureChange = 0.0;
+    // Ring buffers, one after the other: timestamps, then each metric; reading number n lives in slot n % capacity
+    private final TrendMemory memory;
     
-    // Maximum readings to store for trend analysis
-    private static final int MAX_READINGS = 10;
+    // Readings added so far, and number of the oldest reading inside the window
+    private long count;
+    private long windowStart;
+    
+    private final MonotonicDeque[] minima;
+    private final MonotonicDeque[] maxima;
+    
+    private double temperatureChange = 0.0;
     
     public WeatherTrend(String locationName) {
+        this(locationName, DEFAULT_CAPACITY);
+    }
+    
+    public WeatherTrend(String locationName, int capacity) {
+        this(locationName, capacity, TrendMemory.onHeap(memoryLongs(capacity)));
+    }
+    
+    /**
+     * Trend kept in the given memory, which must hold at least {@link #memoryLongs(int)} longs
+     */
+    public WeatherTrend(String locationName, int capacity, TrendMemory memory) {
         this.locationName = locationName;
+        this.capacity = capacity;
+        this.memory = memory;
+        this.minima = new MonotonicDeque[METRICS.length];
+        this.maxima = new MonotonicDeque[METRICS.length];
+        // The deques' reading numbers follow the rings
+        int deques = (1 + METRICS.length) * capacity;
+        for (int i = 0; i < METRICS.length; i++) {
+            minima[i] = new MonotonicDeque(deques + 2 * i * capacity, valueBase(i), true);
+            maxima[i] = new MonotonicDeque(deques + (2 * i + 1) * capacity, valueBase(i), false);
+        }
+    }
+    
+    /**
+     * Longs of memory a trend of the given capacity needs: the timestamp and metric rings and two deques per metric
+     */
+    public static int memoryLongs(int capacity) {
+        return (1 + 3 * METRICS.length) * capacity;
     }
     
     /**
@@ -29,73 +79,191 @@ public class WeatherTrend {
      * @return true if we have enough data to calculate a meaningful trend
      */
     public boolean updateData(WeatherData data) {
-        WeatherReading newReading = new WeatherReading(
-            data.getTemperature(),
-            data.getTimestamp()
-        );
+        return update(toEpochMillis(data.getTimestamp()), data.getTemperature(), data.getHumidity(),
+            data.getWindSpeed(), data.getPrecipitation());
+    }
+    
+    /**
+     * Add one reading taken at the given time
+     * @return true if we have at least two readings
+     */
+    public boolean update(long epochMillis, double temperature, double humidity, double windSpeed, double precipitation) {
+        // Readings for a location arrive in order; a late one counts as taken with the newest
+        if (count > 0) {
+            epochMillis = Math.max(epochMillis, memory.get(slot(count - 1)));
+        }
         
-        // Add the new reading
-        recentReadings.add(newReading);
+        long sequence = count++;
+        int slot = slot(sequence);
+        memory.set(slot, epochMillis);
+        memory.setDouble(valueBase(Metric.TEMPERATURE.ordinal()) + slot, temperature);
+        memory.setDouble(valueBase(Metric.HUMIDITY.ordinal()) + slot, humidity);
+        memory.setDouble(valueBase(Metric.WIND_SPEED.ordinal()) + slot, windSpeed);
+        memory.setDouble(valueBase(Metric.PRECIPITATION.ordinal()) + slot, precipitation);
         
-        // Maintain the maximum size of our tracking queue
-        if (recentReadings.size() > MAX_READINGS) {
-            recentReadings.poll(); // Remove the oldest reading
+        // Move the window start past readings that have been overwritten or are too old
+        windowStart = Math.max(windowStart, count - capacity);
+        while (memory.get(slot(windowStart)) <= epochMillis - WINDOW_MILLIS) {
+            windowStart++;
+        }
+        
+        for (int i = 0; i < METRICS.length; i++) {
+            minima[i].add(sequence, windowStart);
+            maxima[i].add(sequence, windowStart);
         }
         
         // Calculate temperature change in the last 30 minutes
-        calculateRecentTemperatureChange();
+        temperatureChange = getWindowDelta(Metric.TEMPERATURE);
         
-        // Return true if we have at least two readings
-        return recentReadings.size() >= 2;
+        return size() >= 2;
+    }
+    
+    public String getLocationName() {
+        return locationName;
+    }
+    
+    /**
+     * Temperature change between the oldest and newest readings in the last 30 minutes
+     */
+    public double getTemperatureChange() {
+        return temperatureChange;
+    }
+    
+    /**
+     * Readings held, at most the capacity
+     */
+    public int size() {
+        return (int) Math.min(count, capacity);
+    }
+    
+    /**
+     * Readings within the last 30 minutes
+     */
+    public int getWindowSize() {
+        return (int) (count - windowStart);
+    }
+    
+    /**
+     * Newest value of a metric, or 0 without readings
+     */
+    public double getLatest(Metric metric) {
+        return count == 0 ? 0.0 : value(metric.ordinal(), count - 1);
     }
     
-    private void calculateRecentTemperatureChange() {
-        if (recentReadings.size() < 2) {
-            temperatureChange = 0.0;
-            return;
+    /**
+     * Newest minus oldest value of a metric within the window
+     */
+    public double getWindowDelta(Metric metric) {
+        if (count == 0) {
+            return 0.0;
         }
-        
-        // Find the oldest reading within the last 30 minutes
-        LocalDateTime thirtyMinutesAgo = LocalDateTime.now().minusMinutes(30);
-        WeatherReading oldestRecentReading = null;
-        
-        for (WeatherReading reading : recentReadings) {
-            if (reading.timestamp.isAfter(thirtyMinutesAgo)) {
-                if (oldestRecentReading == null || reading.timestamp.isBefore(oldestRecentReading.timestamp)) {
-                    oldestRecentReading = reading;
-                }
-            }
+        return value(metric.ordinal(), count - 1) - value(metric.ordinal(), windowStart);
+    }
+    
+    /**
+     * Time of a held reading, in epoch milliseconds; index 0 is the oldest of {@link #size()}
+     */
+    public long getTimestamp(int index) {
+        return memory.get(slot(count - size() + index));
+    }
+    
+    /**
+     * Value of a metric in a held reading; index 0 is the oldest of {@link #size()}
+     */
+    public double getValue(Metric metric, int index) {
+        return value(metric.ordinal(), count - size() + index);
+    }
+    
+    /**
+     * Bytes of memory holding the readings
+     */
+    public long getMemoryBytes() {
+        return memory.bytes();
+    }
+    
+    /**
+     * Give back the trend's memory; the trend must not be used afterwards
+     */
+    public void release() {
+        memory.release();
+    }
+    
+    public double getWindowMin(Metric metric) {
+        return count == 0 ? 0.0 : minima[metric.ordinal()].head();
+    }
+    
+    public double getWindowMax(Metric metric) {
+        return count == 0 ? 0.0 : maxima[metric.ordinal()].head();
+    }
+    
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+    
+    private int valueBase(int metric) {
+        return (1 + metric) * capacity;
+    }
+    
+    private double value(int metric, long sequence) {
+        return memory.getDouble(valueBase(metric) + slot(sequence));
+    }
+    
+    /**
+     * Epoch milliseconds of a UTC date-time, without the intermediate objects of toInstant(); the current time if null
+     */
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return System.currentTimeMillis();
         }
+        return timestamp.toLocalDate().toEpochDay() * MILLIS_PER_DAY
+            + timestamp.toLocalTime().toNanoOfDay() / 1_000_000;
+    }
+    
+    /**
+     * Reading numbers whose values are strictly increasing (minima) or decreasing (maxima) from the head,
+     * so the head is always the extreme value of the window
+     */
+    private final class MonotonicDeque {
+        // Where the deque's reading numbers and its metric's ring start in the memory
+        private final int base;
+        private final int valueBase;
+        private final boolean minimum;
+        private int head;
+        private int size;
         
-        // If we don't have any readings in the last 30 minutes, use the oldest reading we have
-        if (oldestRecentReading == null) {
-            oldestRecentReading = recentReadings.peek();
+        MonotonicDeque(int base, int valueBase, boolean minimum) {
+            this.base = base;
+            this.valueBase = valueBase;
+            this.minimum = minimum;
         }
         
-        // Get the newest reading
-        WeatherReading newestReading = null;
-        for (WeatherReading reading : recentReadings) {
-            if (newestReading == null || reading.timestamp.isAfter(newestReading.timestamp)) {
-                newestReading = reading;
+        void add(long sequence, long windowStart) {
+            // Readings that left the window leave from the head
+            while (size > 0 && memory.get(base + head) < windowStart) {
+                head = (head + 1) % capacity;
+                size--;
             }
+            
+            // Readings that can no longer be the extreme leave from the tail
+            double value = valueOf(sequence);
+            while (size > 0) {
+                double tail = valueOf(memory.get(base + (head + size - 1) % capacity));
+                if (minimum ? tail < value : tail > value) {
+                    break;
+                }
+                size--;
+            }
+            
+            memory.set(base + (head + size) % capacity, sequence);
+            size++;
         }
         
-        // Calculate temperature change
-        if (oldestRecentReading != null && newestReading != null) {
-            temperatureChange = newestReading.temperature - oldestRecentReading.temperature;
+        double head() {
+            return valueOf(memory.get(base + head));
         }
-    }
-    
-    /**
-     * Inner class to store a weather reading with timestamp
-     */
-    private static class WeatherReading {
-        private final double temperature;
-        private final LocalDateTime timestamp;
         
-        public WeatherReading(double temperature, LocalDateTime timestamp) {
-            this.temperature = temperature;
-            this.timestamp = timestamp;
+        private double valueOf(long sequence) {
+            return memory.getDouble(valueBase + slot(sequence));
         }
     }
 }
@@ -0,0 +1,59 @@
+package com.example.weatheranalyzer.replay;
+
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.serialization.WeatherAlertJsonCodec;
+import com.example.weatheranalyzer.service.WeatherAlertProducer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Where a replay writes the alerts it raises, kept apart from the live weather-alerts topic
+ */
+public interface ReplayAlertSink extends Closeable {
+
+    void write(List<WeatherAlert> alerts) throws IOException;
+    
+    @Override
+    default void close() throws IOException {
+    }
+    
+    /**
+     * Alerts sent to a Kafka topic other than weather-alerts
+     */
+    static ReplayAlertSink topic(WeatherAlertProducer producer, String topic) {
+        if (WeatherAlertProducer.TOPIC.equals(topic)) {
+            throw new IllegalArgumentException("A replay must not write to the live " + topic + " topic");
+        }
+        return alerts -> producer.sendAlerts(topic, alerts);
+    }
+    
+    /**
+     * Alerts written to a file as newline-delimited JSON, replacing any previous content
+     */
+    static ReplayAlertSink file(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        return new ReplayAlertSink() {
+            @Override
+            public void write(List<WeatherAlert> alerts) throws IOException {
+                for (WeatherAlert alert : alerts) {
+                    out.write(WeatherAlertJsonCodec.encode(alert));
+                    out.write('\n');
+                }
+            }
+            
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.weatheranalyzer.replay;
+
+import com.example.weatheranalyzer.model.ReplayReport;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.service.EnhancedWeatherAnalyzer;
+import com.example.weatheranalyzer.service.PartitionedTrendStore;
+import com.example.weatheranalyzer.service.WeatherAlertProducer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-analyzes a range of weather-data as fast as it can be read, to back-test rule changes against history.
+ * The range is given per partition by record timestamps or offsets and ends at most at the end of the topic
+ * when the replay starts. Partitions are read with their own consumer, outside the analyzer's consumer group,
+ * and the alerts go to a separate topic or file. Since the analyzer works in event time, a replay raises
+ * the alerts live consumption of the same records would have.
+ */
+@Component
+@Profile("replay")
+@Slf4j
+@RequiredArgsConstructor
+public class ReplayRunner implements ApplicationRunner {
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    
+    private final EnhancedWeatherAnalyzer weatherAnalyzer;
+    private final WeatherAlertProducer alertProducer;
+    private final ConsumerFactory<String, WeatherData> consumerFactory;
+    private final ConfigurableApplicationContext context;
+    
+    // ISO-8601 instants, or date-times in UTC; the range starts at the first record at or after "from"
+    // and ends before the first record at or after "to"
+    @Value("${weather.replay.from-timestamp:}")
+    private String fromTimestamp;
+    
+    @Value("${weather.replay.to-timestamp:}")
+    private String toTimestamp;
+    
+    // Offsets applied to every partition when no timestamp is given; -1 for the start or end of the partition
+    @Value("${weather.replay.from-offset:-1}")
+    private long fromOffset;
+    
+    @Value("${weather.replay.to-offset:-1}")
+    private long toOffset;
+    
+    // "topic" or "file"
+    @Value("${weather.replay.output:topic}")
+    private String output;
+    
+    @Value("${weather.replay.topic:weather-alerts-replay}")
+    private String outputTopic;
+    
+    @Value("${weather.replay.file:replay-alerts.ndjson}")
+    private String outputFile;
+    
+    @Value("${weather.replay.max-poll-records:5000}")
+    private int maxPollRecords;
+    
+    // Stop the application once the replay is done
+    @Value("${weather.replay.exit-when-done:true}")
+    private boolean exitWhenDone;
+    
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        try (Consumer<String, WeatherData> consumer = createConsumer();
+             ReplayAlertSink sink = createSink()) {
+            replay(consumer, sink);
+        }
+        if (exitWhenDone) {
+            SpringApplication.exit(context);
+        }
+    }
+    
+    /**
+     * Read the configured range of every weather-data partition and write the alerts it raises
+     */
+    ReplayReport replay(Consumer<String, WeatherData> consumer, ReplayAlertSink sink) throws IOException {
+        List<TopicPartition> partitions = consumer.partitionsFor(PartitionedTrendStore.TOPIC).stream()
+            .map(info -> new TopicPartition(info.topic(), info.partition()))
+            .toList();
+        consumer.assign(partitions);
+        Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, Long> latest = consumer.endOffsets(partitions);
+        Map<TopicPartition, Long> starts = offsets(consumer, partitions, fromTimestamp, fromOffset, beginning, latest);
+        Map<TopicPartition, Long> ends = offsets(consumer, partitions, toTimestamp, toOffset, latest, latest);
+        
+        Set<TopicPartition> remaining = new HashSet<>();
+        for (TopicPartition partition : partitions) {
+            long start = Math.max(starts.get(partition), beginning.get(partition));
+            long end = Math.min(ends.get(partition), latest.get(partition));
+            consumer.seek(partition, start);
+            if (start < end) {
+                remaining.add(partition);
+            }
+            ends.put(partition, end);
+            log.info("Replaying {} from offset {} to {}", partition, start, end);
+        }
+        consumer.pause(partitions.stream().filter(partition -> !remaining.contains(partition)).toList());
+        
+        long records = 0;
+        long readings = 0;
+        long alerts = 0;
+        long start = System.nanoTime();
+        long lastProgress = start;
+        while (!remaining.isEmpty()) {
+            ConsumerRecords<String, WeatherData> polled = consumer.poll(Duration.ofSeconds(1));
+            for (TopicPartition partition : polled.partitions()) {
+                long end = ends.get(partition);
+                List<ConsumerRecord<String, WeatherData>> batch = new ArrayList<>();
+                for (ConsumerRecord<String, WeatherData> record : polled.records(partition)) {
+                    if (record.offset() >= end) {
+                        break;
+                    }
+                    records++;
+                    if (record.value() != null) {
+                        batch.add(record);
+                    }
+                }
+                List<WeatherAlert> raised = weatherAnalyzer.analyzeBatch(partition.partition(),
+                    batch.stream().map(ConsumerRecord::value).toList(),
+                    batch.stream().mapToLong(ConsumerRecord::timestamp).toArray());
+                sink.write(raised);
+                readings += batch.size();
+                alerts += raised.size();
+            }
+            
+            // Checked for every partition, since one whose range holds no records never returns any
+            List<TopicPartition> done = remaining.stream()
+                .filter(partition -> consumer.position(partition) >= ends.get(partition))
+                .toList();
+            done.forEach(remaining::remove);
+            consumer.pause(done);
+            
+            long now = System.nanoTime();
+            if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                lastProgress = now;
+                logProgress("Replay progress", new ReplayReport(records, readings, alerts, now - start), remaining.size());
+            }
+        }
+        
+        ReplayReport report = new ReplayReport(records, readings, alerts, System.nanoTime() - start);
+        logProgress("Replay finished", report, 0);
+        return report;
+    }
+    
+    private void logProgress(String message, ReplayReport report, int remainingPartitions) {
+        log.info("{}: {} records ({} readings) in {} s ({} records/sec), {} alerts, {} partitions remaining",
+            message, report.getRecords(), report.getReadings(), String.format("%.1f", report.getElapsedSeconds()),
+            String.format("%.0f", report.getRecordsPerSecond()), report.getAlerts(), remainingPartitions);
+    }
+    
+    /**
+     * Offsets of a range bound: the first record at or after a timestamp, or a fixed offset, or the given defaults
+     */
+    private static Map<TopicPartition, Long> offsets(Consumer<?, ?> consumer, Collection<TopicPartition> partitions,
+                                                     String timestamp, long offset, Map<TopicPartition, Long> defaults,
+                                                     Map<TopicPartition, Long> latest) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        if (timestamp != null && !timestamp.isBlank()) {
+            long millis = parseTimestamp(timestamp).toEpochMilli();
+            Map<TopicPartition, Long> query = new HashMap<>();
+            partitions.forEach(partition -> query.put(partition, millis));
+            Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+            // A partition without a record that late has none in range
+            partitions.forEach(partition -> offsets.put(partition,
+                found.get(partition) != null ? found.get(partition).offset() : latest.get(partition)));
+        } else {
+            partitions.forEach(partition -> offsets.put(partition, offset >= 0 ? offset : defaults.get(partition)));
+        }
+        return offsets;
+    }
+    
+    static Instant parseTimestamp(String timestamp) {
+        try {
+            return Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(timestamp).toInstant(ZoneOffset.UTC);
+        }
+    }
+    
+    private Consumer<String, WeatherData> createConsumer() {
+        Properties overrides = new Properties();
+        // Partitions are assigned directly and nothing is committed, so the analyzer's group is left untouched
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        overrides.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, String.valueOf(8 * 1024 * 1024));
+        return consumerFactory.createConsumer("weather-analyzer-replay", null, null, overrides);
+    }
+    
+    private ReplayAlertSink createSink() throws IOException {
+        return switch (output) {
+            case "topic" -> ReplayAlertSink.topic(alertProducer, outputTopic);
+            case "file" -> ReplayAlertSink.file(Path.of(outputFile));
+            default -> throw new IllegalArgumentException("Unknown replay output '" + output + "'");
+        };
+    }
+}
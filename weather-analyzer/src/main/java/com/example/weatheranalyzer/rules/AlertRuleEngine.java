@@ -0,0 +1,84 @@
+package com.example.weatheranalyzer.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Holds the alert rules loaded from {@code weather.rules.location}. The file is checked for changes
+ * every {@code weather.rules.reload-interval-ms}; a changed file is compiled off the listener threads
+ * and swapped in at once, so analysis never waits for a reload. A file that fails to load leaves
+ * the current rules in place.
+ */
+@Component
+@Slf4j
+public class AlertRuleEngine {
+
+    private final Resource location;
+    private final ObjectMapper objectMapper;
+    
+    private volatile CompiledRuleSet rules;
+    
+    // Modification time of the file the current rules came from, or of the last file that failed
+    private volatile long loadedModified;
+    
+    public AlertRuleEngine(@Value("${weather.rules.location:classpath:alert-rules.json}") Resource location,
+                           ObjectMapper objectMapper) throws IOException {
+        this.location = location;
+        this.objectMapper = objectMapper;
+        // Without valid rules at start-up there is nothing to analyze with
+        this.loadedModified = lastModified();
+        this.rules = load();
+    }
+    
+    /**
+     * Rules that apply to a location under the current rule set
+     */
+    public RuleTable rulesFor(String locationId, String locationName) {
+        return rules.tableFor(locationId, locationName);
+    }
+    
+    public CompiledRuleSet getRules() {
+        return rules;
+    }
+    
+    @Scheduled(initialDelayString = "${weather.rules.reload-interval-ms:10000}",
+               fixedDelayString = "${weather.rules.reload-interval-ms:10000}")
+    public void reloadIfChanged() {
+        long modified = lastModified();
+        if (modified == loadedModified) {
+            return;
+        }
+        loadedModified = modified;
+        try {
+            rules = load();
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Keeping the current alert rules, {} could not be loaded: {}", location, e.getMessage());
+        }
+    }
+    
+    private CompiledRuleSet load() throws IOException {
+        RuleSetDefinition definition;
+        try (InputStream in = location.getInputStream()) {
+            definition = objectMapper.readValue(in, RuleSetDefinition.class);
+        }
+        CompiledRuleSet compiled = new CompiledRuleSet(definition);
+        log.info("Loaded {} alert rules from {}", compiled.size(), location);
+        return compiled;
+    }
+    
+    private long lastModified() {
+        try {
+            return location.lastModified();
+        } catch (IOException e) {
+            // Resources inside a jar may not report a modification time; they do not change anyway
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.weatheranalyzer.rules;
+
+/**
+ * Evaluates a {@link RuleTable} over a columnar batch of readings
+ */
+public interface BatchRuleEvaluator {
+
+    /**
+     * Write every firing (row, rule) pair, ordered by row and then by rule
+     * @param matchRows,matchRules at least {@code columns.rows() * rules.size()} long
+     * @return number of pairs written
+     */
+    int evaluate(RuleTable rules, RuleColumns columns, int[] matchRows, int[] matchRules);
+    
+    /**
+     * The SIMD evaluator when the {@code jdk.incubator.vector} module is present and wanted,
+     * otherwise the scalar one
+     */
+    static BatchRuleEvaluator create(boolean vectorEnabled) {
+        if (vectorEnabled && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorBatchEvaluator();
+            } catch (LinkageError e) {
+                // Fall through to the scalar evaluator
+            }
+        }
+        return new ScalarBatchEvaluator();
+    }
+}
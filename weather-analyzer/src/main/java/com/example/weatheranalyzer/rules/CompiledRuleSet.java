@@ -0,0 +1,174 @@
+package com.example.weatheranalyzer.rules;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A validated rule set. Locations without overrides share one table, and so do the locations of a region
+ * whose only overrides are those of the region; a location named in an override gets its own table. Tables
+ * are compiled the first time they are needed and kept for the life of the rule set, so there are at most
+ * as many as the overridden regions and locations, whatever locations report.
+ */
+public final class CompiledRuleSet {
+
+    private final List<RuleSetDefinition.Rule> rules;
+    private final RuleTable defaultTable;
+    
+    // Location IDs, location names and region codes that appear in some override
+    private final Set<String> locationKeys = new HashSet<>();
+    private final Set<String> regionKeys = new HashSet<>();
+    
+    // Tables of locations named in an override, by location ID (or name), and of overridden regions
+    private final Map<String, RuleTable> tablesByLocation = new ConcurrentHashMap<>();
+    private final Map<String, RuleTable> tablesByRegion = new ConcurrentHashMap<>();
+    
+    public CompiledRuleSet(RuleSetDefinition definition) {
+        this.rules = List.copyOf(definition.getRules());
+        for (RuleSetDefinition.Rule rule : rules) {
+            validate(rule);
+            for (RuleSetDefinition.LocationOverride override : rule.getOverrides()) {
+                locationKeys.addAll(override.getLocations());
+                override.getRegions().forEach(region -> regionKeys.add(region.toUpperCase(Locale.ROOT)));
+            }
+        }
+        this.defaultTable = new RuleTable(rules);
+    }
+    
+    /**
+     * Rules that apply to a location
+     */
+    public RuleTable tableFor(String locationId, String locationName) {
+        if (locationKeys.isEmpty() && regionKeys.isEmpty()) {
+            return defaultTable;
+        }
+        if (locationKeys.contains(locationId) || locationKeys.contains(locationName)) {
+            String key = locationId != null ? locationId : locationName;
+            RuleTable table = tablesByLocation.get(key);
+            return table != null ? table
+                : tablesByLocation.computeIfAbsent(key, k -> compile(locationId, locationName, regionOf(locationName)));
+        }
+        String region = regionOf(locationName);
+        if (region == null || !regionKeys.contains(region)) {
+            return defaultTable;
+        }
+        RuleTable table = tablesByRegion.get(region);
+        return table != null ? table : tablesByRegion.computeIfAbsent(region, r -> compile(null, null, r));
+    }
+    
+    public int size() {
+        return rules.size();
+    }
+    
+    int cachedTables() {
+        return tablesByLocation.size() + tablesByRegion.size();
+    }
+    
+    /**
+     * Region of a location: the country code after the last comma of its name, e.g. "EG" in "Cairo, EG"
+     */
+    static String regionOf(String locationName) {
+        if (locationName == null) {
+            return null;
+        }
+        int comma = locationName.lastIndexOf(',');
+        return comma < 0 ? null : locationName.substring(comma + 1).trim().toUpperCase(Locale.ROOT);
+    }
+    
+    private RuleTable compile(String locationId, String locationName, String region) {
+        List<RuleSetDefinition.Rule> effective = new ArrayList<>(rules.size());
+        for (RuleSetDefinition.Rule rule : rules) {
+            RuleSetDefinition.Rule applied = applyOverrides(rule, locationId, locationName, region);
+            if (applied != null) {
+                effective.add(applied);
+            }
+        }
+        return new RuleTable(effective);
+    }
+    
+    /**
+     * A copy of the rule with its matching overrides applied, region ones first, or null if they disable it
+     */
+    private static RuleSetDefinition.Rule applyOverrides(RuleSetDefinition.Rule rule, String locationId,
+                                                         String locationName, String region) {
+        List<RuleSetDefinition.LocationOverride> matching = new ArrayList<>();
+        for (RuleSetDefinition.LocationOverride override : rule.getOverrides()) {
+            if (region != null && override.getRegions().stream().anyMatch(region::equalsIgnoreCase)) {
+                matching.add(override);
+            }
+        }
+        for (RuleSetDefinition.LocationOverride override : rule.getOverrides()) {
+            if (override.getLocations().contains(locationId) || override.getLocations().contains(locationName)) {
+                matching.add(override);
+            }
+        }
+        if (matching.isEmpty()) {
+            return rule;
+        }
+        
+        RuleSetDefinition.Rule applied = new RuleSetDefinition.Rule();
+        applied.setAlertType(rule.getAlertType());
+        applied.setGroup(rule.getGroup());
+        applied.setSeverity(rule.getSeverity());
+        applied.setMessage(rule.getMessage());
+        for (RuleSetDefinition.Condition condition : rule.getConditions()) {
+            RuleSetDefinition.Condition copy = new RuleSetDefinition.Condition();
+            copy.setMetric(condition.getMetric());
+            copy.setComparator(condition.getComparator());
+            copy.setThreshold(condition.getThreshold());
+            copy.setAbsolute(condition.isAbsolute());
+            applied.getConditions().add(copy);
+        }
+        
+        boolean enabled = true;
+        for (RuleSetDefinition.LocationOverride override : matching) {
+            if (override.getEnabled() != null) {
+                enabled = override.getEnabled();
+            }
+            if (override.getSeverity() != null) {
+                applied.setSeverity(override.getSeverity());
+            }
+            for (RuleSetDefinition.Condition condition : applied.getConditions()) {
+                Double threshold = override.getThresholds().get(condition.getMetric());
+                if (threshold != null) {
+                    condition.setThreshold(threshold);
+                }
+            }
+        }
+        return enabled ? applied : null;
+    }
+    
+    private static void validate(RuleSetDefinition.Rule rule) {
+        if (rule.getAlertType() == null || rule.getAlertType().isBlank()) {
+            throw new IllegalArgumentException("Rule without alertType");
+        }
+        String name = "Rule " + rule.getAlertType();
+        if (rule.getSeverity() == null || rule.getSeverity().isBlank()) {
+            throw new IllegalArgumentException(name + " has no severity");
+        }
+        if (rule.getConditions().isEmpty()) {
+            throw new IllegalArgumentException(name + " has no conditions");
+        }
+        Set<RuleMetric> metrics = new HashSet<>();
+        for (RuleSetDefinition.Condition condition : rule.getConditions()) {
+            if (condition.getMetric() == null) {
+                throw new IllegalArgumentException(name + " has a condition without metric");
+            }
+            metrics.add(condition.getMetric());
+        }
+        for (RuleSetDefinition.LocationOverride override : rule.getOverrides()) {
+            if (override.getLocations().isEmpty() && override.getRegions().isEmpty()) {
+                throw new IllegalArgumentException(name + " has an override without locations or regions");
+            }
+            for (RuleMetric metric : override.getThresholds().keySet()) {
+                if (!metrics.contains(metric)) {
+                    throw new IllegalArgumentException(name + " overrides a threshold for " + metric + ", which it does not test");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.weatheranalyzer.rules;
+
+import java.util.ArrayList;
+import java.util.IllegalFormatException;
+import java.util.List;
+
+/**
+ * Alert message with placeholders, split into parts once when the rules are compiled.
+ * Numbers are printed like string concatenation does unless a format such as {@code %.1f} is given.
+ */
+final class MessageTemplate {
+
+    private static final int LOCATION = -1;
+    private static final int VALUE = -2;
+    
+    private final String[] literals;
+    // Slot, LOCATION or VALUE for each placeholder; placeholder i follows literal i
+    private final int[] placeholders;
+    private final String[] formats;
+    
+    private MessageTemplate(String[] literals, int[] placeholders, String[] formats) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.formats = formats;
+    }
+    
+    static MessageTemplate compile(String template) {
+        if (template == null) {
+            throw new IllegalArgumentException("Rule message is missing");
+        }
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        List<String> formats = new ArrayList<>();
+        
+        int position = 0;
+        int open;
+        while ((open = template.indexOf('{', position)) >= 0) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in message '" + template + "'");
+            }
+            literals.add(template.substring(position, open));
+            
+            String placeholder = template.substring(open + 1, close);
+            int colon = placeholder.indexOf(':');
+            String name = colon < 0 ? placeholder : placeholder.substring(0, colon);
+            String format = colon < 0 ? null : placeholder.substring(colon + 1);
+            if (format != null) {
+                try {
+                    String.format(format, 0.0);
+                } catch (IllegalFormatException e) {
+                    throw new IllegalArgumentException("Invalid format '" + format + "' in message '" + template + "'");
+                }
+            }
+            formats.add(format);
+            placeholders.add(switch (name) {
+                case "location" -> LOCATION;
+                case "value" -> VALUE;
+                default -> metricSlot(name, template);
+            });
+            position = close + 1;
+        }
+        literals.add(template.substring(position));
+        
+        return new MessageTemplate(literals.toArray(String[]::new),
+            placeholders.stream().mapToInt(Integer::intValue).toArray(), formats.toArray(String[]::new));
+    }
+    
+    String render(double[] values, double value, String locationName) {
+        StringBuilder message = new StringBuilder(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            if (placeholders[i] == LOCATION) {
+                message.append(locationName);
+            } else {
+                double number = placeholders[i] == VALUE ? value : values[placeholders[i]];
+                if (formats[i] == null) {
+                    message.append(number);
+                } else {
+                    message.append(String.format(formats[i], number));
+                }
+            }
+            message.append(literals[i + 1]);
+        }
+        return message.toString();
+    }
+    
+    private static int metricSlot(String name, String template) {
+        try {
+            return RuleMetric.valueOf(name).slot(false);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown placeholder {" + name + "} in message '" + template + "'");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.weatheranalyzer.rules;
+
+import com.example.weatheranalyzer.model.WeatherData;
+
+import java.util.Arrays;
+
+/**
+ * Metric values of many readings transposed into one primitive column per slot, the input of a
+ * {@link BatchRuleEvaluator}. Columns are padded to a multiple of 64 rows so vector loads never
+ * run past their end; the padding rows hold no readings and never produce matches.
+ */
+public final class RuleColumns {
+
+    private static final int PADDING = Long.SIZE;
+    
+    private double[][] columns;
+    private int rows;
+    
+    public RuleColumns(int expectedRows) {
+        this.columns = new double[RuleMetric.SLOTS][padded(Math.max(1, expectedRows))];
+    }
+    
+    /**
+     * Append a reading of a location without statistics and return its row
+     */
+    public int add(WeatherData data, double temperatureChange) {
+        return add(data, temperatureChange, null);
+    }
+    
+    /**
+     * Append a reading and return its row
+     * @param scores the reading's anomaly scores as laid out by {@link RuleMetric#extract}, or null for none
+     */
+    public int add(WeatherData data, double temperatureChange, double[] scores) {
+        if (rows == columns[0].length) {
+            int capacity = padded(rows * 2);
+            for (int slot = 0; slot < columns.length; slot++) {
+                columns[slot] = Arrays.copyOf(columns[slot], capacity);
+            }
+        }
+        if (scores == null) {
+            RuleMetric.extract(data, temperatureChange, columns, rows);
+        } else {
+            RuleMetric.extract(data, temperatureChange, scores, columns, rows);
+        }
+        return rows++;
+    }
+    
+    public int rows() {
+        return rows;
+    }
+    
+    /**
+     * Copy one row into a value array as laid out by {@link RuleMetric#extract(WeatherData, double, double[])}
+     */
+    public void copyRow(int row, double[] values) {
+        for (int slot = 0; slot < columns.length; slot++) {
+            values[slot] = columns[slot][row];
+        }
+    }
+    
+    double[] column(int slot) {
+        return columns[slot];
+    }
+    
+    private static int padded(int rows) {
+        return (rows + PADDING - 1) / PADDING * PADDING;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.weatheranalyzer.rules;
+
+import com.example.weatheranalyzer.model.WeatherData;
+
+/**
+ * Values a rule can test. Each reading is turned into a flat array holding every metric
+ * followed by its absolute value, so conditions address a value by a fixed slot.
+ */
+public enum RuleMetric {
+    TEMPERATURE,
+    HUMIDITY,
+    WIND_SPEED,
+    PRECIPITATION,
+    // Temperature change over the last 30 minutes, 0 until a location has two readings
+    TEMPERATURE_CHANGE,
+    // Standard deviations from the location's moving average, 0 while it is warming up
+    TEMPERATURE_ZSCORE,
+    HUMIDITY_ZSCORE,
+    WIND_SPEED_ZSCORE,
+    PRECIPITATION_ZSCORE,
+    // Percentage of the location's readings at or below this one, 50 while it is warming up
+    TEMPERATURE_PERCENTILE,
+    WIND_SPEED_PERCENTILE;
+    
+    private static final RuleMetric[] METRICS = values();
+    
+    // Length of the value array: signed values first, absolute values after them
+    public static final int SLOTS = METRICS.length * 2;
+    
+    // Scores of a reading against its location's statistics, in declaration order from TEMPERATURE_ZSCORE
+    public static final int SCORES = METRICS.length - TEMPERATURE_ZSCORE.ordinal();
+    
+    private static final double[] NEUTRAL_SCORES = {0, 0, 0, 0, 50, 50};
+    
+    /**
+     * Slot of this metric's signed or absolute value
+     */
+    public int slot(boolean absolute) {
+        return absolute ? METRICS.length + ordinal() : ordinal();
+    }
+    
+    /**
+     * Fill the value array for one reading, with the scores of a location without statistics
+     */
+    public static void extract(WeatherData data, double temperatureChange, double[] values) {
+        extract(data, temperatureChange, NEUTRAL_SCORES, values);
+    }
+    
+    /**
+     * Fill the value array for one reading
+     * @param scores {@link #SCORES} values, from {@link #TEMPERATURE_ZSCORE} on
+     */
+    public static void extract(WeatherData data, double temperatureChange, double[] scores, double[] values) {
+        values[TEMPERATURE.ordinal()] = data.getTemperature();
+        values[HUMIDITY.ordinal()] = data.getHumidity();
+        values[WIND_SPEED.ordinal()] = data.getWindSpeed();
+        values[PRECIPITATION.ordinal()] = data.getPrecipitation();
+        values[TEMPERATURE_CHANGE.ordinal()] = temperatureChange;
+        System.arraycopy(scores, 0, values, TEMPERATURE_ZSCORE.ordinal(), SCORES);
+        for (int i = 0; i < METRICS.length; i++) {
+            values[METRICS.length + i] = Math.abs(values[i]);
+        }
+    }
+    
+    /**
+     * Fill one row of a columnar batch, one column per slot, with the scores of a location without statistics
+     */
+    public static void extract(WeatherData data, double temperatureChange, double[][] columns, int row) {
+        extract(data, temperatureChange, NEUTRAL_SCORES, columns, row);
+    }
+    
+    /**
+     * Fill one row of a columnar batch, one column per slot
+     */
+    public static void extract(WeatherData data, double temperatureChange, double[] scores, double[][] columns, int row) {
+        columns[TEMPERATURE.ordinal()][row] = data.getTemperature();
+        columns[HUMIDITY.ordinal()][row] = data.getHumidity();
+        columns[WIND_SPEED.ordinal()][row] = data.getWindSpeed();
+        columns[PRECIPITATION.ordinal()][row] = data.getPrecipitation();
+        columns[TEMPERATURE_CHANGE.ordinal()][row] = temperatureChange;
+        for (int i = 0; i < SCORES; i++) {
+            columns[TEMPERATURE_ZSCORE.ordinal() + i][row] = scores[i];
+        }
+        for (int i = 0; i < METRICS.length; i++) {
+            columns[METRICS.length + i][row] = Math.abs(columns[i][row]);
+        }
+    }
+}
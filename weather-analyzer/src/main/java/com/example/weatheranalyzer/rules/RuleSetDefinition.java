@@ -0,0 +1,64 @@
+package com.example.weatheranalyzer.rules;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alert rules as written in the rules file, before compilation
+ */
+@Data
+@NoArgsConstructor
+public class RuleSetDefinition {
+
+    private List<Rule> rules = new ArrayList<>();
+    
+    /**
+     * One alert type. The rule fires when all of its conditions hold; of the rules sharing a group,
+     * only the first one that fires, in file order, raises an alert.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Rule {
+        private String alertType;
+        private String group;
+        private String severity;
+        // Placeholders: {location}, {value}, {METRIC} and {METRIC:format}, e.g. {TEMPERATURE_CHANGE:%.1f}
+        private String message;
+        private List<Condition> conditions = new ArrayList<>();
+        private List<LocationOverride> overrides = new ArrayList<>();
+    }
+    
+    /**
+     * Compares a metric with a threshold; the first condition's value is the alert value
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Condition {
+        private RuleMetric metric;
+        // One of >, >=, <, <=
+        private String comparator;
+        private double threshold;
+        // Compare the absolute value of the metric
+        private boolean absolute;
+    }
+    
+    /**
+     * Different thresholds, severity or enablement for some locations or regions.
+     * Locations match a location ID or name, regions the country code at the end of the name.
+     * Location overrides win over region overrides.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class LocationOverride {
+        private List<String> locations = new ArrayList<>();
+        private List<String> regions = new ArrayList<>();
+        private Map<RuleMetric, Double> thresholds = new EnumMap<>(RuleMetric.class);
+        private String severity;
+        private Boolean enabled;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.weatheranalyzer.rules;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alert rules compiled into flat arrays. Every condition is reduced to {@code sign * value > bound},
+ * so evaluating a reading is one pass over primitive arrays without allocation, and the
+ * group checks are bit operations rather than branches. Immutable and safe to share between threads.
+ */
+public final class RuleTable {
+
+    // Groups are tracked as bits of a long while evaluating
+    static final int MAX_GROUPS = Long.SIZE;
+    
+    // Per rule
+    private final String[] alertTypes;
+    private final String[] lifecycleKeys;
+    private final String[] severities;
+    private final MessageTemplate[] messages;
+    private final long[] groupBits;
+    private final int[] groupIndexes;
+    private final int[] conditionEnds;
+    private final int[] valueSlots;
+    
+    // Per condition, rules' conditions stored one after the other
+    private final int[] slots;
+    private final double[] signs;
+    private final double[] bounds;
+    
+    private final int groupCount;
+    
+    RuleTable(List<RuleSetDefinition.Rule> rules) {
+        int ruleCount = rules.size();
+        int conditionCount = rules.stream().mapToInt(rule -> rule.getConditions().size()).sum();
+        alertTypes = new String[ruleCount];
+        lifecycleKeys = new String[ruleCount];
+        severities = new String[ruleCount];
+        messages = new MessageTemplate[ruleCount];
+        groupBits = new long[ruleCount];
+        groupIndexes = new int[ruleCount];
+        conditionEnds = new int[ruleCount];
+        valueSlots = new int[ruleCount];
+        slots = new int[conditionCount];
+        signs = new double[conditionCount];
+        bounds = new double[conditionCount];
+        
+        Map<String, Integer> groups = new HashMap<>();
+        int c = 0;
+        for (int r = 0; r < ruleCount; r++) {
+            RuleSetDefinition.Rule rule = rules.get(r);
+            alertTypes[r] = rule.getAlertType();
+            lifecycleKeys[r] = rule.getGroup() != null ? rule.getGroup() : rule.getAlertType();
+            severities[r] = rule.getSeverity();
+            messages[r] = MessageTemplate.compile(rule.getMessage());
+            groupIndexes[r] = -1;
+            if (rule.getGroup() != null) {
+                int group = groups.computeIfAbsent(rule.getGroup(), name -> groups.size());
+                if (group >= MAX_GROUPS) {
+                    throw new IllegalArgumentException("At most " + MAX_GROUPS + " rule groups are supported");
+                }
+                groupBits[r] = 1L << group;
+                groupIndexes[r] = group;
+            }
+            
+            for (RuleSetDefinition.Condition condition : rule.getConditions()) {
+                slots[c] = condition.getMetric().slot(condition.isAbsolute());
+                setBound(c, condition.getComparator(), condition.getThreshold());
+                c++;
+            }
+            conditionEnds[r] = c;
+            valueSlots[r] = slots[conditionEnds[r] - rule.getConditions().size()];
+        }
+        groupCount = groups.size();
+    }
+    
+    /**
+     * Write the indexes of the rules that fire for a reading into {@code matches}, in rule order
+     * @param values metric values filled by {@link RuleMetric#extract}
+     * @param matches at least {@link #size()} long
+     * @return number of rules that fired
+     */
+    public int evaluate(double[] values, int[] matches) {
+        long firedGroups = 0;
+        int count = 0;
+        int c = 0;
+        for (int r = 0; r < alertTypes.length; r++) {
+            boolean fires = true;
+            for (int end = conditionEnds[r]; c < end; c++) {
+                fires &= signs[c] * values[slots[c]] > bounds[c];
+            }
+            // A rule without a group has no bit and is never blocked
+            fires &= (firedGroups & groupBits[r]) == 0;
+            firedGroups |= fires ? groupBits[r] : 0;
+            matches[count] = r;
+            count += fires ? 1 : 0;
+        }
+        return count;
+    }
+    
+    public int size() {
+        return alertTypes.length;
+    }
+    
+    public String alertType(int rule) {
+        return alertTypes[rule];
+    }
+    
+    /**
+     * Identifies the alert a rule raises across readings: its group, so that moving to a more severe
+     * rule of the group escalates the same alert, or otherwise its alert type
+     */
+    public String lifecycleKey(int rule) {
+        return lifecycleKeys[rule];
+    }
+    
+    public String severity(int rule) {
+        return severities[rule];
+    }
+    
+    // Table access for the batch evaluators
+    
+    int groupCount() {
+        return groupCount;
+    }
+    
+    /**
+     * Group of a rule, or -1 if it has none
+     */
+    int groupIndex(int rule) {
+        return groupIndexes[rule];
+    }
+    
+    /**
+     * End, exclusive, of a rule's conditions; they start where the previous rule's end
+     */
+    int conditionEnd(int rule) {
+        return conditionEnds[rule];
+    }
+    
+    int slot(int condition) {
+        return slots[condition];
+    }
+    
+    double sign(int condition) {
+        return signs[condition];
+    }
+    
+    double bound(int condition) {
+        return bounds[condition];
+    }
+    
+    /**
+     * Alert value of a rule: the value tested by its first condition
+     */
+    public double value(int rule, double[] values) {
+        return values[valueSlots[rule]];
+    }
+    
+    public String message(int rule, double[] values, String locationName) {
+        return messages[rule].render(values, value(rule, values), locationName);
+    }
+    
+    /**
+     * Turn a comparison into {@code sign * value > bound}; inclusive comparisons move the bound by one ulp
+     */
+    private void setBound(int c, String comparator, double threshold) {
+        switch (comparator == null ? "" : comparator) {
+            case ">" -> {
+                signs[c] = 1;
+                bounds[c] = threshold;
+            }
+            case ">=" -> {
+                signs[c] = 1;
+                bounds[c] = Math.nextDown(threshold);
+            }
+            case "<" -> {
+                signs[c] = -1;
+                bounds[c] = -threshold;
+            }
+            case "<=" -> {
+                signs[c] = -1;
+                bounds[c] = -Math.nextUp(threshold);
+            }
+            default -> throw new IllegalArgumentException("Unknown comparator '" + comparator + "'");
+        }
+    }
+}
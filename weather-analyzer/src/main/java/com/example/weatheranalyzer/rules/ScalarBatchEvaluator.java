@@ -0,0 +1,29 @@
+package com.example.weatheranalyzer.rules;
+
+/**
+ * Evaluates a batch one row at a time through {@link RuleTable#evaluate}
+ */
+final class ScalarBatchEvaluator implements BatchRuleEvaluator {
+
+    @Override
+    public int evaluate(RuleTable rules, RuleColumns columns, int[] matchRows, int[] matchRules) {
+        double[] values = new double[RuleMetric.SLOTS];
+        int[] matches = new int[rules.size()];
+        int count = 0;
+        for (int row = 0; row < columns.rows(); row++) {
+            columns.copyRow(row, values);
+            int fired = rules.evaluate(values, matches);
+            for (int i = 0; i < fired; i++) {
+                matchRows[count] = row;
+                matchRules[count] = matches[i];
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
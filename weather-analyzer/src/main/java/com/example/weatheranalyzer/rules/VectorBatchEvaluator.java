@@ -0,0 +1,72 @@
+package com.example.weatheranalyzer.rules;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates a batch as many rows at a time as the CPU's vectors hold, using the incubating Vector API.
+ * Each condition is one masked compare over a column chunk; the lanes that fire are kept as bits of a
+ * long, so group exclusion and alert emission only touch the rows that matched.
+ * Only loaded when {@code jdk.incubator.vector} is in the boot layer, see {@link BatchRuleEvaluator#create}.
+ */
+final class VectorBatchEvaluator implements BatchRuleEvaluator {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    
+    @Override
+    public int evaluate(RuleTable rules, RuleColumns columns, int[] matchRows, int[] matchRules) {
+        int ruleCount = rules.size();
+        int rows = columns.rows();
+        int lanes = SPECIES.length();
+        long[] firedLanes = new long[ruleCount];
+        long[] groupLanes = new long[rules.groupCount()];
+        
+        int count = 0;
+        for (int offset = 0; offset < rows; offset += lanes) {
+            // Lanes past the last row read column padding
+            long validLanes = rows - offset >= lanes ? -1L >>> (Long.SIZE - lanes) : (1L << (rows - offset)) - 1;
+            Arrays.fill(groupLanes, 0);
+            long anyLanes = 0;
+            
+            int c = 0;
+            for (int r = 0; r < ruleCount; r++) {
+                VectorMask<Double> mask = SPECIES.maskAll(true);
+                for (int end = rules.conditionEnd(r); c < end; c++) {
+                    DoubleVector values = DoubleVector.fromArray(SPECIES, columns.column(rules.slot(c)), offset);
+                    mask = mask.and(values.mul(rules.sign(c)).compare(VectorOperators.GT, rules.bound(c)));
+                }
+                long fired = mask.toLong() & validLanes;
+                int group = rules.groupIndex(r);
+                if (group >= 0) {
+                    fired &= ~groupLanes[group];
+                    groupLanes[group] |= fired;
+                }
+                firedLanes[r] = fired;
+                anyLanes |= fired;
+            }
+            
+            // Emit in row order, visiting only the rows where something fired
+            while (anyLanes != 0) {
+                int lane = Long.numberOfTrailingZeros(anyLanes);
+                anyLanes &= anyLanes - 1;
+                for (int r = 0; r < ruleCount; r++) {
+                    if ((firedLanes[r] >>> lane & 1) != 0) {
+                        matchRows[count] = offset + lane;
+                        matchRules[count] = r;
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public String toString() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.weatheranalyzer.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact binary record layout shared by the weather services.
+ * <p>
+ * Every record starts with a three byte header: {@link #MAGIC}, the layout version and the record type.
+ * JSON records always start with whitespace, '{' or '[', so the first byte tells the two formats apart.
+ * Fields follow in declaration order: strings as a varint length (0 for null, otherwise length + 1)
+ * and UTF-8 bytes, doubles as 8 big-endian bytes, and timestamps as a presence byte followed by
+ * zigzag-varint UTC epoch seconds and varint nanoseconds.
+ * <p>
+ * Version 2 appends the alert status to weather alerts; a version 1 alert is read as a newly opened one.
+ * Readers accept every version up to their own, so consumers must be upgraded before producers.
+ */
+public final class BinaryEncoding {
+
+    public static final byte MAGIC = (byte) 0xC7;
+    public static final byte VERSION = 2;
+    
+    public static final byte TYPE_WEATHER_DATA = 1;
+    public static final byte TYPE_WEATHER_ALERT = 2;
+    
+    private BinaryEncoding() {
+    }
+    
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+    
+    /**
+     * Growable output buffer for one record
+     */
+    static final class Writer {
+        private byte[] buffer;
+        private int position;
+        
+        Writer(int initialCapacity, byte type) {
+            buffer = new byte[initialCapacity];
+            writeByte(MAGIC);
+            writeByte(VERSION);
+            writeByte(type);
+        }
+        
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+        
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+        
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            // Zigzag so small negative values stay short
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[position++] = (byte) zigzag;
+        }
+        
+        void writeDouble(double value) {
+            ensureCapacity(8);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (bits >>> shift);
+            }
+        }
+        
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+        
+        void writeTimestamp(LocalDateTime value) {
+            if (value == null) {
+                writeByte(0);
+                return;
+            }
+            writeByte(1);
+            writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarInt(value.getNano());
+        }
+        
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+        
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+    
+    /**
+     * Reads the fields of one record after checking its header
+     */
+    static final class Reader {
+        private final byte[] data;
+        private int position;
+        private final int version;
+        
+        Reader(byte[] data, byte expectedType) {
+            this.data = data;
+            if (data.length < 3 || data[0] != MAGIC) {
+                throw new SerializationException("Not a binary weather record");
+            }
+            version = data[1];
+            if (version < 1 || version > VERSION) {
+                throw new SerializationException("Unsupported binary wire format version " + version);
+            }
+            if (data[2] != expectedType) {
+                throw new SerializationException("Unexpected binary record type " + data[2]);
+            }
+            position = 3;
+        }
+        
+        int version() {
+            return version;
+        }
+        
+        int readByte() {
+            checkAvailable(1);
+            return data[position++];
+        }
+        
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint");
+        }
+        
+        long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new SerializationException("Malformed varlong");
+        }
+        
+        double readDouble() {
+            checkAvailable(8);
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (data[position++] & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+        
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            checkAvailable(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        
+        LocalDateTime readTimestamp() {
+            if (readByte() == 0) {
+                return null;
+            }
+            long epochSecond = readVarLong();
+            int nano = readVarInt();
+            return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        }
+        
+        private void checkAvailable(int bytes) {
+            if (bytes < 0 || position + bytes > data.length) {
+                throw new SerializationException("Truncated binary weather record");
+            }
+        }
+    }
+}
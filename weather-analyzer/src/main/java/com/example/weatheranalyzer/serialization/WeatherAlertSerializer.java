@@ -0,0 +1,34 @@
+package com.example.weatheranalyzer.serialization;
+
+import com.example.weatheranalyzer.model.WeatherAlert;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link WeatherAlert} as JSON or in the compact binary format
+ */
+public class WeatherAlertSerializer implements Serializer<WeatherAlert> {
+
+    private final WireFormat wireFormat;
+    
+    public WeatherAlertSerializer(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+    
+    @Override
+    public byte[] serialize(String topic, WeatherAlert alert) {
+        if (alert == null) {
+            return null;
+        }
+        if (wireFormat == WireFormat.BINARY) {
+            return WeatherAlertCodec.encode(alert);
+        }
+        try {
+            return WeatherAlertJsonCodec.encode(alert);
+        } catch (IOException e) {
+            throw new SerializationException("Error serializing weather alert " + alert.getAlertId(), e);
+        }
+    }
+}
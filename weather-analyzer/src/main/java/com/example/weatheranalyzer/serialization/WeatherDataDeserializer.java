@@ -0,0 +1,28 @@
+package com.example.weatheranalyzer.serialization;
+
+import com.example.weatheranalyzer.model.WeatherData;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link WeatherData} in either wire format, deciding per record from the first byte
+ */
+public class WeatherDataDeserializer implements Deserializer<WeatherData> {
+
+    @Override
+    public WeatherData deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (BinaryEncoding.isBinary(data)) {
+            return WeatherDataCodec.decode(data);
+        }
+        try {
+            return WeatherDataJsonCodec.decode(data);
+        } catch (IOException e) {
+            throw new SerializationException("Error deserializing weather data from " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.weatheranalyzer.serialization;
+
+/**
+ * Encoding used when writing records. Readers accept both, so producers can switch once
+ * every consumer understands the binary format.
+ */
+public enum WireFormat {
+    JSON,
+    BINARY;
+    
+    public static WireFormat from(String value) {
+        return value == null || value.isBlank() ? JSON : valueOf(value.trim().toUpperCase());
+    }
+}
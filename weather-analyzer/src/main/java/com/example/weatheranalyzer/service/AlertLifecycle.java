@@ -0,0 +1,145 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.ActiveAlert;
+import com.example.weatheranalyzer.model.AlertLifecycleStats;
+import com.example.weatheranalyzer.model.AlertStatus;
+import com.example.weatheranalyzer.model.LocationState;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.rules.RuleTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns the rules a location's readings fire into alert lifecycle messages. An alert is published when
+ * it opens, escalates to a higher severity, changes type or severity otherwise, or resolves; while it
+ * stays the same it is only published again once the re-notify interval has passed since the last
+ * message. Time is measured in reading time, so replayed data behaves like live data.
+ */
+@Component
+@Slf4j
+public class AlertLifecycle {
+
+    private final long renotifyMillis;
+    
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder escalated = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder resolved = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    
+    public AlertLifecycle(@Value("${weather.alerts.renotify-interval-minutes:60}") long renotifyMinutes) {
+        this.renotifyMillis = TimeUnit.MINUTES.toMillis(renotifyMinutes);
+    }
+    
+    /**
+     * Apply one reading to a location's open alerts and add the messages to publish
+     * @param eventTime when the reading was taken, in epoch milliseconds
+     * @param matchRules rules the reading fired, in {@code [from, to)}
+     * @param values the reading's metric values, as laid out by {@code RuleMetric.extract}
+     */
+    public void apply(LocationState state, WeatherData data, long eventTime, RuleTable rules, int[] matchRules,
+                      int from, int to, double[] values, List<WeatherAlert> alerts) {
+        long reading = state.nextReading();
+        
+        for (int i = from; i < to; i++) {
+            int rule = matchRules[i];
+            String alertType = rules.alertType(rule);
+            String severity = rules.severity(rule);
+            
+            ActiveAlert active = state.getActiveAlerts().get(rules.lifecycleKey(rule));
+            AlertStatus status;
+            if (active == null) {
+                active = new ActiveAlert(UUID.randomUUID().toString());
+                state.getActiveAlerts().put(rules.lifecycleKey(rule), active);
+                status = AlertStatus.OPEN;
+            } else if (rank(severity) > rank(active.getSeverity())) {
+                status = AlertStatus.ESCALATED;
+            } else if (!alertType.equals(active.getAlertType()) || !severity.equals(active.getSeverity())
+                    || eventTime - active.getLastPublishedAt() >= renotifyMillis) {
+                status = AlertStatus.UPDATED;
+            } else {
+                status = null;
+            }
+            
+            active.setAlertType(alertType);
+            active.setSeverity(severity);
+            active.setLastReading(reading);
+            if (status == null) {
+                suppressed.increment();
+                continue;
+            }
+            active.setAlertMessage(rules.message(rule, values, data.getLocationName()));
+            active.setAlertValue(rules.value(rule, values));
+            active.setLastPublishedAt(eventTime);
+            alerts.add(publish(active, data, status, eventTime));
+        }
+        
+        // Alerts this reading did not fire are over
+        Iterator<ActiveAlert> iterator = state.getActiveAlerts().values().iterator();
+        while (iterator.hasNext()) {
+            ActiveAlert active = iterator.next();
+            if (active.getLastReading() != reading) {
+                iterator.remove();
+                active.setAlertMessage(active.getAlertType() + " at " + data.getLocationName() + " has ended");
+                alerts.add(publish(active, data, AlertStatus.RESOLVED, eventTime));
+            }
+        }
+    }
+    
+    public AlertLifecycleStats getStats() {
+        return new AlertLifecycleStats(opened.sum(), escalated.sum(), updated.sum(), resolved.sum(), suppressed.sum());
+    }
+    
+    @Scheduled(fixedRate = 60000)
+    public void logStats() {
+        AlertLifecycleStats stats = getStats();
+        if (stats.getPublished() > 0 || stats.getSuppressed() > 0) {
+            log.info("Alert lifecycle: {} opened, {} escalated, {} updated, {} resolved, {} repeats suppressed",
+                stats.getOpened(), stats.getEscalated(), stats.getUpdated(), stats.getResolved(), stats.getSuppressed());
+        }
+    }
+    
+    private WeatherAlert publish(ActiveAlert active, WeatherData data, AlertStatus status, long eventTime) {
+        switch (status) {
+            case OPEN -> opened.increment();
+            case ESCALATED -> escalated.increment();
+            case UPDATED -> updated.increment();
+            case RESOLVED -> resolved.increment();
+        }
+        WeatherAlert alert = new WeatherAlert(
+            active.getAlertId(),
+            data.getLocationId(),
+            data.getLocationName(),
+            active.getAlertType(),
+            active.getAlertMessage(),
+            active.getAlertValue(),
+            active.getSeverity(),
+            // Stamped with the reading's time, so reprocessing produces the same alerts
+            LocalDateTime.ofInstant(Instant.ofEpochMilli(eventTime), ZoneOffset.UTC),
+            status
+        );
+        log.debug("Generating weather alert: {}", alert);
+        return alert;
+    }
+    
+    private static int rank(String severity) {
+        return switch (severity == null ? "" : severity) {
+            case "HIGH" -> 3;
+            case "MEDIUM" -> 2;
+            case "LOW" -> 1;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.LocationStatistics;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import com.example.weatheranalyzer.rules.RuleMetric;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scores readings against what is normal for their location, for rules on the z-score and percentile
+ * metrics. A reading is scored against the statistics of the readings before it, then added to them.
+ * Until a location has the warm-up number of readings its scores stay neutral.
+ */
+@Component
+public class AnomalyDetector {
+
+    private final double alpha;
+    private final long warmUpReadings;
+    private final double minStdDev;
+    
+    public AnomalyDetector(@Value("${weather.analyzer.anomaly.ewma-alpha:0.005}") double alpha,
+                           @Value("${weather.analyzer.anomaly.warm-up-readings:200}") long warmUpReadings,
+                           @Value("${weather.analyzer.anomaly.min-std-dev:1.0}") double minStdDev) {
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("The EWMA weight must be between 0 and 1, was " + alpha);
+        }
+        this.alpha = alpha;
+        this.warmUpReadings = warmUpReadings;
+        this.minStdDev = minStdDev;
+    }
+    
+    /**
+     * Fill the reading's {@link RuleMetric#SCORES} scores, in the order of the metrics from
+     * {@link RuleMetric#TEMPERATURE_ZSCORE}, and add it to the location's statistics
+     */
+    public void score(LocationStatistics statistics, WeatherData data, double[] scores) {
+        if (statistics.getCount() < warmUpReadings) {
+            scores[0] = 0;
+            scores[1] = 0;
+            scores[2] = 0;
+            scores[3] = 0;
+            scores[4] = 50;
+            scores[5] = 50;
+        } else {
+            scores[0] = statistics.zScore(WeatherTrend.Metric.TEMPERATURE, data.getTemperature(), minStdDev);
+            scores[1] = statistics.zScore(WeatherTrend.Metric.HUMIDITY, data.getHumidity(), minStdDev);
+            scores[2] = statistics.zScore(WeatherTrend.Metric.WIND_SPEED, data.getWindSpeed(), minStdDev);
+            scores[3] = statistics.zScore(WeatherTrend.Metric.PRECIPITATION, data.getPrecipitation(), minStdDev);
+            scores[4] = 100 * statistics.getTemperature().rank(data.getTemperature());
+            scores[5] = 100 * statistics.getWindSpeed().rank(data.getWindSpeed());
+        }
+        statistics.update(alpha, data.getTemperature(), data.getHumidity(), data.getWindSpeed(), data.getPrecipitation());
+    }
+}
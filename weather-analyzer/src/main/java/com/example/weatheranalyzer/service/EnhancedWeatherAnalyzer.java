@@ -1,188 +1,148 @@
 package com.example.weatheranalyzer.service;
 
+import com.example.weatheranalyzer.model.LocationState;
+import com.example.weatheranalyzer.model.PartitionWatermark;
 import com.example.weatheranalyzer.model.WeatherAlert;
 import com.example.weatheranalyzer.model.WeatherData;
-import com.example.weatheranalyzer.model.WeatherTrend;
+import com.example.weatheranalyzer.rules.AlertRuleEngine;
+import com.example.weatheranalyzer.rules.BatchRuleEvaluator;
+import com.example.weatheranalyzer.rules.RuleColumns;
+import com.example.weatheranalyzer.rules.RuleMetric;
+import com.example.weatheranalyzer.rules.RuleTable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class EnhancedWeatherAnalyzer {
 
-    private final WeatherAlertProducer alertProducer;
+    // Weather trends by location, owned by the thread consuming the location's partition
+    private final PartitionedTrendStore trendStore;
     
-    // Cache for tracking weather trends by location
-    private final Map<String, WeatherTrend> weatherTrends = new ConcurrentHashMap<>();
+    // Alert rules loaded from the rules file
+    private final AlertRuleEngine ruleEngine;
     
-    // Alert thresholds
-    private static final double HIGH_TEMP_THRESHOLD = 32.0; // in Celsius
-    private static final double EXTREME_TEMP_THRESHOLD = 38.0; // in Celsius
-    private static final double LOW_TEMP_THRESHOLD = 0.0; // in Celsius
-    private static final double EXTREME_LOW_TEMP_THRESHOLD = -10.0; // in Celsius
+    // SIMD evaluation when the Vector API is available, scalar otherwise
+    private final BatchRuleEvaluator ruleEvaluator;
     
-    private static final double HIGH_WIND_THRESHOLD = 15.0; // in m/s (≈ 54 km/h)
-    private static final double EXTREME_WIND_THRESHOLD = 25.0; // in m/s (≈ 90 km/h)
+    // Decides which fired rules are published and which alerts have ended
+    private final AlertLifecycle alertLifecycle;
     
-    private static final double HEAVY_RAIN_THRESHOLD = 5.0; // in mm/hour
-    private static final double EXTREME_RAIN_THRESHOLD = 15.0; // in mm/hour
+    // Event times and late readings
+    private final EventTimePolicy eventTimePolicy;
     
-    private static final double RAPID_TEMP_CHANGE_THRESHOLD = 5.0; // Celsius within 30 minutes
+    // Scores readings against what is normal for their location
+    private final AnomalyDetector anomalyDetector;
     
     /**
-     * Analyze incoming weather data for potential alert conditions
+     * Analyze the readings polled from one partition and return the alert messages to publish.
+     * Readings are given event times in partition order, against the partition's watermark, and late ones
+     * are dropped or adjusted. Trends are then updated location by location, in the order given; the
+     * readings are evaluated column-wise, in one block per distinct rule table. Each reading is scored
+     * against its location's statistics before it is added to them.
      */
-    public void analyzeWeatherData(WeatherData data) {
-        // Get or create trend data for this location
-        WeatherTrend trend = weatherTrends.computeIfAbsent(
-            data.getLocationId(),
-            id -> new WeatherTrend(data.getLocationName())
-        );
-        
-        // Update the trend with latest data
-        boolean hasTrendData = trend.updateData(data);
-        
-        // Analyze for different alert conditions
-        analyzeTemperature(data, trend, hasTrendData);
-        analyzeWindSpeed(data);
-        analyzeRainfall(data);
-        
-        // Advanced: Analyze combinations of weather factors
-        analyzeTropicalStormConditions(data);
+    public List<WeatherAlert> analyzeBatch(int partition, List<WeatherData> readings) {
+        return analyzeBatch(partition, readings, null);
     }
     
-    private void analyzeTemperature(WeatherData data, WeatherTrend trend, boolean hasTrendData) {
-        // Check for extreme high temperature
-        if (data.getTemperature() > EXTREME_TEMP_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "EXTREME_HIGH_TEMPERATURE",
-                "Extreme heat alert: " + data.getTemperature() + "°C at " + data.getLocationName(),
-                data.getTemperature(),
-                "HIGH"
-            );
-        }
-        // Check for high temperature
-        else if (data.getTemperature() > HIGH_TEMP_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "HIGH_TEMPERATURE",
-                "High temperature alert: " + data.getTemperature() + "°C at " + data.getLocationName(),
-                data.getTemperature(),
-                "MEDIUM"
-            );
-        }
-        // Check for extreme low temperature
-        else if (data.getTemperature() < EXTREME_LOW_TEMP_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "EXTREME_LOW_TEMPERATURE",
-                "Extreme cold alert: " + data.getTemperature() + "°C at " + data.getLocationName(),
-                data.getTemperature(),
-                "HIGH"
-            );
-        }
-        // Check for low temperature
-        else if (data.getTemperature() < LOW_TEMP_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "LOW_TEMPERATURE",
-                "Low temperature alert: " + data.getTemperature() + "°C at " + data.getLocationName(),
-                data.getTemperature(),
-                "MEDIUM"
-            );
+    /**
+     * Analyze the readings polled from one partition, with the timestamps of their Kafka records,
+     * which bound how far ahead of its record a reading may be stamped
+     */
+    public List<WeatherAlert> analyzeBatch(int partition, List<WeatherData> readings, long[] recordTimestamps) {
+        PartitionWatermark watermark = trendStore.watermarkFor(partition);
+        long[] eventTimes = new long[readings.size()];
+        Map<String, List<Integer>> byLocation = new LinkedHashMap<>();
+        for (int i = 0; i < readings.size(); i++) {
+            WeatherData data = readings.get(i);
+            long recordTimestamp = recordTimestamps != null ? recordTimestamps[i] : ConsumerRecord.NO_TIMESTAMP;
+            eventTimes[i] = eventTimePolicy.eventTime(watermark, data, recordTimestamp);
+            if (eventTimes[i] != EventTimePolicy.DROPPED) {
+                byLocation.computeIfAbsent(data.getLocationId(), id -> new ArrayList<>()).add(i);
+            }
         }
         
-        // Check for rapid temperature change if we have trend data
-        if (hasTrendData && Math.abs(trend.getTemperatureChange()) > RAPID_TEMP_CHANGE_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "RAPID_TEMPERATURE_CHANGE",
-                String.format("Rapid temperature change of %.1f°C in the last 30 minutes at %s", 
-                    trend.getTemperatureChange(), data.getLocationName()),
-                Math.abs(trend.getTemperatureChange()),
-                "MEDIUM"
-            );
-        }
-    }
-    
-    private void analyzeWindSpeed(WeatherData data) {
-        if (data.getWindSpeed() > EXTREME_WIND_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "EXTREME_WIND",
-                "Dangerous wind speeds of " + data.getWindSpeed() + " m/s detected at " + data.getLocationName(),
-                data.getWindSpeed(),
-                "HIGH"
-            );
-        }
-        else if (data.getWindSpeed() > HIGH_WIND_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "HIGH_WIND",
-                "High wind speed of " + data.getWindSpeed() + " m/s detected at " + data.getLocationName(),
-                data.getWindSpeed(),
-                "MEDIUM"
-            );
+        // Locations without overrides share a table, so usually there is a single block
+        Map<RuleTable, RuleBlock> blocks = new IdentityHashMap<>();
+        double[] scores = new double[RuleMetric.SCORES];
+        for (List<Integer> locationReadings : byLocation.values()) {
+            WeatherData first = readings.get(locationReadings.get(0));
+            LocationState state = trendStore.stateFor(partition, first.getLocationId(), first.getLocationName());
+            RuleTable rules = ruleEngine.rulesFor(first.getLocationId(), first.getLocationName());
+            RuleBlock block = blocks.computeIfAbsent(rules, table -> new RuleBlock(readings.size()));
+            
+            for (int i : locationReadings) {
+                WeatherData data = readings.get(i);
+                // Update the trend with latest data
+                boolean hasTrendData = state.getTrend().update(eventTimes[i], data.getTemperature(), data.getHumidity(),
+                    data.getWindSpeed(), data.getPrecipitation());
+                anomalyDetector.score(state.getStatistics(), data, scores);
+                block.columns.add(data, hasTrendData ? state.getTrend().getTemperatureChange() : 0.0, scores);
+                block.add(data, state, eventTimes[i]);
+            }
         }
+        
+        List<WeatherAlert> alerts = new ArrayList<>();
+        blocks.forEach((rules, block) -> evaluate(rules, block, alerts));
+        // Only now that the blocks are evaluated may their states be evicted
+        trendStore.evictOverCapacity(partition);
+        return alerts;
     }
     
-    private void analyzeRainfall(WeatherData data) {
-        if (data.getPrecipitation() > EXTREME_RAIN_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "EXTREME_RAINFALL",
-                "Extreme rainfall of " + data.getPrecipitation() + " mm/h detected at " + data.getLocationName(),
-                data.getPrecipitation(),
-                "HIGH"
-            );
-        }
-        else if (data.getPrecipitation() > HEAVY_RAIN_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "HEAVY_RAINFALL",
-                "Heavy rainfall of " + data.getPrecipitation() + " mm/h detected at " + data.getLocationName(),
-                data.getPrecipitation(),
-                "MEDIUM"
-            );
+    private void evaluate(RuleTable rules, RuleBlock block, List<WeatherAlert> alerts) {
+        int capacity = block.columns.rows() * rules.size();
+        int[] matchRows = new int[capacity];
+        int[] matchRules = new int[capacity];
+        int matches = ruleEvaluator.evaluate(rules, block.columns, matchRows, matchRules);
+        
+        // Matches are ordered by row, so each row's rules are a contiguous run
+        double[] values = new double[RuleMetric.SLOTS];
+        int from = 0;
+        for (int row = 0; row < block.columns.rows(); row++) {
+            int to = from;
+            while (to < matches && matchRows[to] == row) {
+                to++;
+            }
+            LocationState state = block.states.get(row);
+            // A quiet reading only matters if it ends an open alert
+            if (to > from || state.hasActiveAlerts()) {
+                block.columns.copyRow(row, values);
+                alertLifecycle.apply(state, block.readings.get(row), block.eventTimes[row], rules, matchRules, from, to,
+                    values, alerts);
+            }
+            from = to;
         }
     }
     
-    private void analyzeTropicalStormConditions(WeatherData data) {
-        // Combination of high wind and heavy rain indicates possible tropical storm
-        if (data.getWindSpeed() > HIGH_WIND_THRESHOLD && data.getPrecipitation() > HEAVY_RAIN_THRESHOLD) {
-            createAndSendAlert(
-                data,
-                "TROPICAL_STORM_CONDITIONS",
-                "Potential storm conditions detected at " + data.getLocationName() + 
-                    ": Wind " + data.getWindSpeed() + " m/s, Rain " + data.getPrecipitation() + " mm/h",
-                data.getWindSpeed(), // Use wind speed as primary value
-                "HIGH"
-            );
+    /**
+     * Readings that share a rule table, with their metric values in columns
+     */
+    private static class RuleBlock {
+        private final RuleColumns columns;
+        private final List<WeatherData> readings;
+        private final List<LocationState> states;
+        private final long[] eventTimes;
+        
+        RuleBlock(int maxRows) {
+            this.columns = new RuleColumns(maxRows);
+            this.readings = new ArrayList<>(maxRows);
+            this.states = new ArrayList<>(maxRows);
+            this.eventTimes = new long[maxRows];
         }
-    }
-    
-    private void createAndSendAlert(WeatherData data, String alertType, String message, 
-                                  double alertValue, String severity) {
-        WeatherAlert alert = new WeatherAlert(
-            UUID.randomUUID().toString(),
-            data.getLocationId(),
-            data.getLocationName(),
-            alertType,
-            message,
-            alertValue,
-            severity,
-            LocalDateTime.now()
-        );
         
-        log.info("Generating weather alert: {}", alert);
-        alertProducer.sendAlert(alert);
+        void add(WeatherData data, LocationState state, long eventTime) {
+            eventTimes[readings.size()] = eventTime;
+            readings.add(data);
+            states.add(state);
+        }
     }
 }
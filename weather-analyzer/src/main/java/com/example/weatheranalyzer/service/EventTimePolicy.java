@@ -0,0 +1,104 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.EventTimeStats;
+import com.example.weatheranalyzer.model.PartitionWatermark;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Assigns readings their event time, the time they were taken, and applies the allowed-lateness policy
+ * against their partition's watermark. A reading taken more than the allowed lateness before the
+ * partition's newest reading is late, and so is one stamped more than the allowed lateness ahead of the
+ * timestamp of its Kafka record, so that one bad clock cannot make every other reading late. Both bounds
+ * come from the records, so reprocessing them judges each reading as live consumption did. Late readings
+ * are dropped, or with the {@code adjust} policy moved into the allowed range.
+ */
+@Component
+@Slf4j
+public class EventTimePolicy {
+
+    /**
+     * Event time of a reading that is dropped
+     */
+    public static final long DROPPED = Long.MIN_VALUE;
+    
+    private final long allowedLatenessMillis;
+    private final boolean dropLate;
+    private final LongSupplier clock;
+    
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder adjusted = new LongAdder();
+    
+    @Autowired
+    public EventTimePolicy(@Value("${weather.analyzer.event-time.allowed-lateness-minutes:60}") long allowedLatenessMinutes,
+                           @Value("${weather.analyzer.event-time.late-readings:drop}") String lateReadings) {
+        this(TimeUnit.MINUTES.toMillis(allowedLatenessMinutes), lateReadings, System::currentTimeMillis);
+    }
+    
+    EventTimePolicy(long allowedLatenessMillis, String lateReadings, LongSupplier clock) {
+        this.allowedLatenessMillis = allowedLatenessMillis;
+        this.dropLate = switch (lateReadings.toLowerCase(Locale.ROOT)) {
+            case "drop" -> true;
+            case "adjust" -> false;
+            default -> throw new IllegalArgumentException("Unknown late reading policy '" + lateReadings
+                + "', expected drop or adjust");
+        };
+        this.clock = clock;
+    }
+    
+    /**
+     * Event time of the next reading of a partition, advancing the partition's watermark.
+     * A reading without a timestamp is taken to be as new as the partition's newest reading, or as its
+     * record if the partition has none; only without either is the wall clock used.
+     * @param recordTimestamp timestamp of the reading's Kafka record, or {@link ConsumerRecord#NO_TIMESTAMP},
+     *                        in which case readings are not checked for being ahead
+     * @return epoch milliseconds, or {@link #DROPPED}
+     */
+    public long eventTime(PartitionWatermark watermark, WeatherData data, long recordTimestamp) {
+        boolean hasRecordTimestamp = recordTimestamp != ConsumerRecord.NO_TIMESTAMP;
+        if (data.getTimestamp() == null) {
+            long eventTime = watermark.hasEvents() ? watermark.getMaxEventTime()
+                : hasRecordTimestamp ? recordTimestamp : clock.getAsLong();
+            watermark.observe(eventTime);
+            return eventTime;
+        }
+        
+        long eventTime = WeatherTrend.toEpochMillis(data.getTimestamp());
+        long earliest = watermark.hasEvents() ? watermark.getMaxEventTime() - allowedLatenessMillis : Long.MIN_VALUE;
+        boolean ahead = hasRecordTimestamp && eventTime > recordTimestamp + allowedLatenessMillis;
+        if (eventTime < earliest || ahead) {
+            if (dropLate) {
+                dropped.increment();
+                log.debug("Dropping late reading for {} taken at {}", data.getLocationId(), data.getTimestamp());
+                return DROPPED;
+            }
+            adjusted.increment();
+            eventTime = Math.max(earliest, ahead ? recordTimestamp : eventTime);
+        }
+        watermark.observe(eventTime);
+        return eventTime;
+    }
+    
+    public EventTimeStats getStats() {
+        return new EventTimeStats(dropped.sum(), adjusted.sum());
+    }
+    
+    @Scheduled(fixedRate = 60000)
+    public void logStats() {
+        EventTimeStats stats = getStats();
+        if (stats.getDropped() > 0 || stats.getAdjusted() > 0) {
+            log.info("Late readings: {} dropped, {} adjusted", stats.getDropped(), stats.getAdjusted());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.TrendMemory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Trend memory outside the heap. Direct buffers are allocated in slabs and cut into fixed-size slots,
+ * one per trend; released slots are reused and slabs are never freed, so the reserved size is the
+ * high-water mark of live trends. Allocation is synchronized since listener threads share the pool;
+ * a slot itself is only used by the thread owning its trend.
+ */
+final class OffHeapTrendMemoryPool {
+
+    private final int slotLongs;
+    private final int slotsPerSlab;
+    
+    private final Deque<Slot> free = new ArrayDeque<>();
+    private ByteBuffer slab;
+    private int nextInSlab;
+    private long reservedBytes;
+    private int used;
+    
+    OffHeapTrendMemoryPool(int slotLongs, int slotsPerSlab) {
+        this.slotLongs = slotLongs;
+        this.slotsPerSlab = slotsPerSlab;
+        this.nextInSlab = slotsPerSlab;
+    }
+    
+    synchronized TrendMemory allocate() {
+        Slot slot = free.poll();
+        if (slot == null) {
+            if (nextInSlab == slotsPerSlab) {
+                slab = ByteBuffer.allocateDirect(slotLongs * Long.BYTES * slotsPerSlab);
+                reservedBytes += slab.capacity();
+                nextInSlab = 0;
+            }
+            // slice() resets the byte order, so it is set on the slot's own view
+            ByteBuffer buffer = slab.slice(nextInSlab++ * slotLongs * Long.BYTES, slotLongs * Long.BYTES)
+                .order(ByteOrder.nativeOrder());
+            slot = new Slot(buffer);
+        }
+        slot.released = false;
+        used++;
+        return slot;
+    }
+    
+    /**
+     * Bytes of direct memory allocated so far
+     */
+    synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+    
+    /**
+     * Bytes in slots currently held by trends
+     */
+    synchronized long getUsedBytes() {
+        return (long) used * slotLongs * Long.BYTES;
+    }
+    
+    private synchronized void release(Slot slot) {
+        free.push(slot);
+        used--;
+    }
+    
+    private final class Slot implements TrendMemory {
+        private final ByteBuffer buffer;
+        private boolean released;
+        
+        Slot(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public long get(int index) {
+            return buffer.getLong(index << 3);
+        }
+        
+        @Override
+        public void set(int index, long value) {
+            buffer.putLong(index << 3, value);
+        }
+        
+        @Override
+        public long bytes() {
+            return buffer.capacity();
+        }
+        
+        @Override
+        public void release() {
+            if (!released) {
+                released = true;
+                OffHeapTrendMemoryPool.this.release(this);
+            }
+        }
+    }
+}
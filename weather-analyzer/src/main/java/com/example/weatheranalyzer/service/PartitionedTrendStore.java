@@ -0,0 +1,399 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.LocationState;
+import com.example.weatheranalyzer.model.PartitionWatermark;
+import com.example.weatheranalyzer.model.TrendStoreStats;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-location analyzer state, trends and open alerts, split by {@code weather-data} partition.
+ * Records are keyed by location, so every location lives in one partition, and Kafka hands each
+ * partition to one listener thread at a time.
+ * That thread is the only writer of the partition's state, which therefore needs no locking.
+ * State is restored from the partition's checkpoint when it is assigned, checkpointed by the listener
+ * thread as it consumes, checkpointed and dropped when the partition is revoked, and dropped when it is lost.
+ * Alerts raised by analyzed records are held with the partition until they are sent, so a poll that is
+ * delivered again after a failed send is not applied to the state twice and its alerts are not lost.
+ * <p>
+ * The store is bounded: once it holds {@code max-locations} locations, adding one evicts the least
+ * recently used location of the same partition, and locations not looked up for the idle timeout are
+ * evicted as their partition is consumed. Each thread only ever evicts from its own partitions.
+ */
+@Component
+@Slf4j
+public class PartitionedTrendStore implements ConsumerAwareRebalanceListener {
+
+    public static final String TOPIC = "weather-data";
+    
+    // Trends per direct buffer when reading buffers are kept off the heap
+    private static final int SLOTS_PER_SLAB = 1024;
+    
+    private final TrendCheckpoints checkpoints;
+    private final int maxLocations;
+    private final long idleTimeoutMillis;
+    private final LongSupplier clock;
+    
+    // Null when trends are kept on the heap
+    private final OffHeapTrendMemoryPool offHeapPool;
+    
+    // Only the map of partitions is shared between listener threads
+    private final Map<Integer, PartitionState> partitions = new ConcurrentHashMap<>();
+    
+    private final AtomicInteger locationCount = new AtomicInteger();
+    private final AtomicLong bufferBytes = new AtomicLong();
+    private final LongAdder evictedLeastRecentlyUsed = new LongAdder();
+    private final LongAdder evictedIdle = new LongAdder();
+    
+    @Autowired
+    public PartitionedTrendStore(TrendCheckpoints checkpoints,
+                                 @Value("${weather.analyzer.store.max-locations:200000}") int maxLocations,
+                                 @Value("${weather.analyzer.store.idle-timeout-minutes:360}") long idleTimeoutMinutes,
+                                 @Value("${weather.analyzer.store.off-heap:false}") boolean offHeap) {
+        this(checkpoints, maxLocations, TimeUnit.MINUTES.toMillis(idleTimeoutMinutes), offHeap, System::currentTimeMillis);
+    }
+    
+    PartitionedTrendStore(TrendCheckpoints checkpoints, int maxLocations, long idleTimeoutMillis, boolean offHeap,
+                          LongSupplier clock) {
+        this.checkpoints = checkpoints;
+        this.maxLocations = maxLocations;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.clock = clock;
+        this.offHeapPool = offHeap
+            ? new OffHeapTrendMemoryPool(WeatherTrend.memoryLongs(WeatherTrend.DEFAULT_CAPACITY), SLOTS_PER_SLAB)
+            : null;
+    }
+    
+    PartitionedTrendStore() {
+        this(TrendCheckpoints.disabled(), 0, 0, false, System::currentTimeMillis);
+    }
+    
+    /**
+     * State of a location in a partition, created on first use. A new location may take the store past
+     * its capacity, so states looked up for a batch stay valid until {@link #evictOverCapacity} runs.
+     * Must only be called from the thread that consumes the partition.
+     */
+    public LocationState stateFor(int partition, String locationId, String locationName) {
+        PartitionState state = partitionState(partition);
+        
+        // Looking the location up makes it the most recently used
+        LocationState location = state.locations.get(locationId);
+        if (location == null) {
+            location = new LocationState(newTrend(locationName), 0);
+            state.locations.put(locationId, location);
+            added(location);
+        }
+        location.setLastAccess(clock.getAsLong());
+        return location;
+    }
+    
+    /**
+     * Evict a partition's least recently used locations while the store is over capacity, once the
+     * states of a batch are no longer in use.
+     * Must only be called from the thread that consumes the partition.
+     */
+    public void evictOverCapacity(int partition) {
+        PartitionState state = partitions.get(partition);
+        if (state != null) {
+            evictLeastRecentlyUsed(state);
+        }
+    }
+    
+    /**
+     * Event-time watermark of a partition.
+     * Must only be called from the thread that consumes the partition.
+     */
+    public PartitionWatermark watermarkFor(int partition) {
+        return partitionState(partition).watermark;
+    }
+    
+    /**
+     * Trend of a location in a partition, created on first use
+     */
+    public WeatherTrend trendFor(int partition, String locationId, String locationName) {
+        return stateFor(partition, locationId, locationName).getTrend();
+    }
+    
+    /**
+     * Whether the state of a partition already includes a record, because an earlier delivery of it was
+     * analyzed but its alerts could not be sent
+     */
+    public boolean isAnalyzed(int partition, long offset) {
+        PartitionState state = partitions.get(partition);
+        return state != null && offset < state.analyzedOffset;
+    }
+    
+    /**
+     * Record that the state of a partition includes every record before {@code nextOffset}, and hold the
+     * alerts they raised until {@link #markProcessed} confirms they were sent.
+     * Must only be called from the thread that consumes the partition.
+     * @return every alert of the partition still to be sent, in the order raised
+     */
+    public List<WeatherAlert> markAnalyzed(int partition, long nextOffset, List<WeatherAlert> alerts) {
+        PartitionState state = partitionState(partition);
+        state.analyzedOffset = Math.max(state.analyzedOffset, nextOffset);
+        state.unsentAlerts.addAll(alerts);
+        return List.copyOf(state.unsentAlerts);
+    }
+    
+    /**
+     * Record that the state of a partition includes every record before {@code nextOffset} and that
+     * their alerts have been sent, evict its idle locations, and checkpoint it if the checkpoint
+     * interval has passed.
+     * Must only be called from the thread that consumes the partition.
+     */
+    public void markProcessed(int partition, long nextOffset) {
+        PartitionState state = partitions.get(partition);
+        if (state == null) {
+            return;
+        }
+        state.nextOffset = nextOffset;
+        state.analyzedOffset = Math.max(state.analyzedOffset, nextOffset);
+        state.unsentAlerts.clear();
+        evictIdle(state);
+        if (checkpoints.isEnabled()
+                && clock.getAsLong() - state.checkpointedAt >= checkpoints.getIntervalMillis()) {
+            checkpoint(partition, state);
+        }
+    }
+    
+    public TrendStoreStats getStats() {
+        return new TrendStoreStats(locationCount.get(), maxLocations, bufferBytes.get(),
+            offHeapPool == null ? 0 : offHeapPool.getReservedBytes(),
+            evictedLeastRecentlyUsed.sum(), evictedIdle.sum());
+    }
+    
+    @Scheduled(fixedRate = 60000)
+    public void logStats() {
+        TrendStoreStats stats = getStats();
+        if (stats.getLocations() > 0) {
+            log.info("Trend store: {} locations, {} KiB of reading buffers ({} KiB reserved off-heap), "
+                    + "{} evicted as least recently used, {} as idle",
+                stats.getLocations(), stats.getBufferBytes() / 1024, stats.getOffHeapReservedBytes() / 1024,
+                stats.getEvictedLeastRecentlyUsed(), stats.getEvictedIdle());
+        }
+    }
+    
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+        for (TopicPartition topicPartition : assigned) {
+            // Restoring reads the file and the committed position, so it stays outside computeIfAbsent
+            if (TOPIC.equals(topicPartition.topic()) && !partitions.containsKey(topicPartition.partition())) {
+                partitions.put(topicPartition.partition(), restore(consumer, topicPartition));
+            }
+        }
+        log.info("Analyzer partitions assigned: {}, now holding {}", assigned, getPartitions());
+    }
+    
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> assigned) {
+        // Without the consumer a checkpoint cannot be matched to the position, so partitions start empty
+        onPartitionsAssigned(null, assigned);
+    }
+    
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+        // Also called when the consumer closes on shutdown, so the last checkpoint is taken here
+        drop(revoked, true);
+    }
+    
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> lost) {
+        // Another consumer may already own the partition, so the state is not checkpointed
+        drop(lost, false);
+    }
+    
+    /**
+     * Partitions whose state this instance holds
+     */
+    public Set<Integer> getPartitions() {
+        return new TreeSet<>(partitions.keySet());
+    }
+    
+    /**
+     * Locations tracked in a partition, or 0 if it is not held
+     */
+    public int locationCount(int partition) {
+        PartitionState state = partitions.get(partition);
+        return state == null ? 0 : state.locations.size();
+    }
+    
+    /**
+     * Restore a newly assigned partition from its checkpoint. If the checkpoint is ahead of the committed
+     * position, its records' alerts were sent before the offsets were committed, so the consumer skips
+     * ahead to it. If it is behind, the readings in between are missing from the trends, which the
+     * 30 minute window soon makes irrelevant.
+     */
+    private PartitionState restore(Consumer<?, ?> consumer, TopicPartition topicPartition) {
+        TrendCheckpoints.Checkpoint checkpoint = consumer == null ? null
+            : checkpoints.read(topicPartition.partition(), this::newTrend);
+        if (checkpoint == null) {
+            return new PartitionState(-1);
+        }
+        
+        long position = consumer.position(topicPartition);
+        if (checkpoint.nextOffset() > position) {
+            consumer.seek(topicPartition, checkpoint.nextOffset());
+            log.info("Partition {} restored from checkpoint, skipping to offset {} from {}",
+                topicPartition.partition(), checkpoint.nextOffset(), position);
+        } else if (checkpoint.nextOffset() < position) {
+            log.info("Partition {} restored from checkpoint at offset {}, {} records behind the committed position",
+                topicPartition.partition(), checkpoint.nextOffset(), position - checkpoint.nextOffset());
+        } else {
+            log.info("Partition {} restored from checkpoint at offset {}", topicPartition.partition(), position);
+        }
+        
+        PartitionState state = new PartitionState(Math.max(position, checkpoint.nextOffset()));
+        state.checkpointedAt = checkpoint.writtenAt();
+        // Locations with the newest readings become the most recently used
+        long now = clock.getAsLong();
+        checkpoint.locations().entrySet().stream()
+            .sorted(Comparator.comparingLong(entry -> newestReading(entry.getValue().getTrend())))
+            .forEach(entry -> {
+                entry.getValue().setLastAccess(now);
+                // The watermark resumes from the newest restored reading
+                if (entry.getValue().getTrend().size() > 0) {
+                    state.watermark.observe(newestReading(entry.getValue().getTrend()));
+                }
+                state.locations.put(entry.getKey(), entry.getValue());
+                added(entry.getValue());
+            });
+        evictLeastRecentlyUsed(state);
+        return state;
+    }
+    
+    private void checkpoint(int partition, PartitionState state) {
+        if (state.nextOffset >= 0 && checkpoints.write(partition, state.nextOffset, state.locations)) {
+            state.checkpointedAt = clock.getAsLong();
+        }
+    }
+    
+    private PartitionState partitionState(int partition) {
+        PartitionState state = partitions.get(partition);
+        if (state == null) {
+            // Records normally arrive after the assignment callback; this covers manual assignment
+            state = partitions.computeIfAbsent(partition, p -> new PartitionState(-1));
+        }
+        return state;
+    }
+    
+    private WeatherTrend newTrend(String locationName) {
+        if (offHeapPool == null) {
+            return new WeatherTrend(locationName);
+        }
+        return new WeatherTrend(locationName, WeatherTrend.DEFAULT_CAPACITY, offHeapPool.allocate());
+    }
+    
+    private void added(LocationState location) {
+        locationCount.incrementAndGet();
+        bufferBytes.addAndGet(location.getTrend().getMemoryBytes());
+    }
+    
+    private void release(LocationState location) {
+        locationCount.decrementAndGet();
+        bufferBytes.addAndGet(-location.getTrend().getMemoryBytes());
+        location.getTrend().release();
+    }
+    
+    /**
+     * Evict the partition's least recently used locations while the store is over capacity,
+     * keeping the location just added
+     */
+    private void evictLeastRecentlyUsed(PartitionState state) {
+        if (maxLocations <= 0) {
+            return;
+        }
+        Iterator<LocationState> eldest = state.locations.values().iterator();
+        while (locationCount.get() > maxLocations && state.locations.size() > 1) {
+            release(eldest.next());
+            eldest.remove();
+            evictedLeastRecentlyUsed.increment();
+        }
+    }
+    
+    private void evictIdle(PartitionState state) {
+        if (idleTimeoutMillis <= 0) {
+            return;
+        }
+        long cutoff = clock.getAsLong() - idleTimeoutMillis;
+        Iterator<LocationState> eldest = state.locations.values().iterator();
+        while (eldest.hasNext()) {
+            LocationState location = eldest.next();
+            if (location.getLastAccess() > cutoff) {
+                break;
+            }
+            release(location);
+            eldest.remove();
+            evictedIdle.increment();
+        }
+    }
+    
+    private static long newestReading(WeatherTrend trend) {
+        return trend.size() == 0 ? Long.MIN_VALUE : trend.getTimestamp(trend.size() - 1);
+    }
+    
+    private void drop(Collection<TopicPartition> topicPartitions, boolean checkpoint) {
+        for (TopicPartition topicPartition : topicPartitions) {
+            if (TOPIC.equals(topicPartition.topic())) {
+                PartitionState state = partitions.remove(topicPartition.partition());
+                if (state != null) {
+                    // With unsent alerts the state is ahead of the committed offsets, and the next owner
+                    // analyzes those records again, so the previous checkpoint is kept
+                    if (checkpoint && state.unsentAlerts.isEmpty()) {
+                        checkpoint(topicPartition.partition(), state);
+                    } else if (!state.unsentAlerts.isEmpty()) {
+                        log.warn("Partition {} revoked with {} unsent alerts; its records will be analyzed again",
+                            topicPartition.partition(), state.unsentAlerts.size());
+                    }
+                    state.locations.values().forEach(this::release);
+                    log.info("Dropped state of {} locations in partition {}", state.locations.size(), topicPartition.partition());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Locations of one partition, least recently used first, and how far into the partition they are in offsets and event time
+     */
+    private static final class PartitionState {
+        private final Map<String, LocationState> locations = new LinkedHashMap<>(16, 0.75f, true);
+        private final PartitionWatermark watermark = new PartitionWatermark();
+        
+        // Offset of the first record not yet reflected with its alerts sent, -1 until known
+        private long nextOffset;
+        private long checkpointedAt;
+        
+        // Offset of the first record not yet analyzed, ahead of nextOffset while alerts are unsent
+        private long analyzedOffset;
+        private final List<WeatherAlert> unsentAlerts = new ArrayList<>();
+        
+        PartitionState(long nextOffset) {
+            this.nextOffset = nextOffset;
+            this.analyzedOffset = nextOffset;
+        }
+    }
+}
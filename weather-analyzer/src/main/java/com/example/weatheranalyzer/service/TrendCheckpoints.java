@@ -0,0 +1,329 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.ActiveAlert;
+import com.example.weatheranalyzer.model.LocationState;
+import com.example.weatheranalyzer.model.LocationStatistics;
+import com.example.weatheranalyzer.model.QuantileSketch;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoints of a weather-data partition's analyzer state in memory-mapped files, one per partition,
+ * so a restarted analyzer detects rapid changes straight away instead of after 30 minutes of new readings.
+ * <p>
+ * Layout, big-endian: a header of magic, version, partition, next offset to consume, write time,
+ * location count and a CRC-32 of the body, then one record per location: ID and name, reading count,
+ * the held readings as fixed 40 byte entries (epoch milliseconds and the four metrics), the open
+ * alerts, and from version 2 the location's statistics: reading count, mean and variance of each metric,
+ * and the temperature and wind speed sketches as count, marker heights and positions. Strings are an int length (-1 for null) and UTF-8 bytes. A checkpoint is written next to its
+ * final name and moved into place, so a crash while writing leaves the previous one intact.
+ */
+@Component
+@Slf4j
+public class TrendCheckpoints {
+
+    static final int MAGIC = 0x57544350;
+    static final short VERSION = 2;
+    
+    private static final int HEADER_BYTES = 34;
+    private static final int READING_BYTES = Long.BYTES + 4 * Double.BYTES;
+    private static final int ALERT_FIXED_BYTES = Double.BYTES + 2 * Long.BYTES;
+    private static final int SKETCH_BYTES = Long.BYTES + QuantileSketch.MARKERS * (Double.BYTES + Integer.BYTES);
+    private static final int STATISTICS_BYTES = Long.BYTES + WeatherTrend.Metric.values().length * 2 * Double.BYTES
+        + 2 * SKETCH_BYTES;
+    private static final WeatherTrend.Metric[] METRICS = WeatherTrend.Metric.values();
+    
+    private final boolean enabled;
+    private final Path directory;
+    private final long intervalMillis;
+    
+    public TrendCheckpoints(@Value("${weather.analyzer.checkpoint.enabled:true}") boolean enabled,
+                            @Value("${weather.analyzer.checkpoint.directory:${java.io.tmpdir}/weather-analyzer-checkpoints}") String directory,
+                            @Value("${weather.analyzer.checkpoint.interval-seconds:30}") long intervalSeconds) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+    }
+    
+    /**
+     * Checkpoints that are never written or read
+     */
+    static TrendCheckpoints disabled() {
+        return new TrendCheckpoints(false, ".", 0);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Minimum time between checkpoints of a partition while it is being consumed
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+    
+    /**
+     * Replace the checkpoint of a partition
+     * @param nextOffset offset of the first record the state does not include
+     * @return whether the checkpoint was written
+     */
+    public boolean write(int partition, long nextOffset, Map<String, LocationState> locations) {
+        if (!enabled) {
+            return false;
+        }
+        Path target = file(partition);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            int size = HEADER_BYTES;
+            for (Map.Entry<String, LocationState> location : locations.entrySet()) {
+                size += sizeOf(location.getKey(), location.getValue());
+            }
+            
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.position(HEADER_BYTES);
+                for (Map.Entry<String, LocationState> location : locations.entrySet()) {
+                    writeLocation(buffer, location.getKey(), location.getValue());
+                }
+                
+                buffer.putInt(0, MAGIC)
+                    .putShort(4, VERSION)
+                    .putInt(6, partition)
+                    .putLong(10, nextOffset)
+                    .putLong(18, System.currentTimeMillis())
+                    .putInt(26, locations.size())
+                    .putInt(30, checksum(buffer));
+                buffer.force();
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Checkpointed {} locations of partition {} at offset {}", locations.size(), partition, nextOffset);
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not checkpoint partition {}: {}", partition, e.toString());
+            return false;
+        }
+    }
+    
+    /**
+     * Read the checkpoint of a partition into trends on the heap
+     * @return the checkpoint, or null if there is none or it cannot be read
+     */
+    public Checkpoint read(int partition) {
+        return read(partition, WeatherTrend::new);
+    }
+    
+    /**
+     * Read the checkpoint of a partition
+     * @param trends creates an empty trend for a location name
+     * @return the checkpoint, or null if there is none or it cannot be read
+     */
+    public Checkpoint read(int partition, Function<String, WeatherTrend> trends) {
+        if (!enabled) {
+            return null;
+        }
+        Path file = file(partition);
+        Map<String, LocationState> locations = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("not a trend checkpoint");
+            }
+            short version = buffer.getShort(4);
+            if (version < 1 || version > VERSION) {
+                throw new IOException("unsupported checkpoint version " + version);
+            }
+            if (buffer.getInt(6) != partition) {
+                throw new IOException("checkpoint of partition " + buffer.getInt(6));
+            }
+            if (buffer.getInt(30) != checksum(buffer)) {
+                throw new IOException("checksum mismatch");
+            }
+            
+            int count = buffer.getInt(26);
+            buffer.position(HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                String locationId = readString(buffer);
+                locations.put(locationId, readLocation(buffer, version, trends));
+            }
+            return new Checkpoint(buffer.getLong(10), buffer.getLong(18), locations);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring checkpoint {}: {}", file, e.toString());
+            locations.values().forEach(state -> state.getTrend().release());
+            return null;
+        }
+    }
+    
+    Path file(int partition) {
+        return directory.resolve(PartitionedTrendStore.TOPIC + "-" + partition + ".checkpoint");
+    }
+    
+    private static int sizeOf(String locationId, LocationState state) {
+        WeatherTrend trend = state.getTrend();
+        int size = sizeOf(locationId) + sizeOf(trend.getLocationName()) + Long.BYTES
+            + Integer.BYTES + trend.size() * READING_BYTES + Integer.BYTES;
+        for (Map.Entry<String, ActiveAlert> entry : state.getActiveAlerts().entrySet()) {
+            ActiveAlert alert = entry.getValue();
+            size += sizeOf(alert.getAlertId()) + sizeOf(entry.getKey()) + sizeOf(alert.getAlertType())
+                + sizeOf(alert.getSeverity()) + sizeOf(alert.getAlertMessage()) + ALERT_FIXED_BYTES;
+        }
+        return size + STATISTICS_BYTES;
+    }
+    
+    private static void writeLocation(ByteBuffer buffer, String locationId, LocationState state) {
+        WeatherTrend trend = state.getTrend();
+        writeString(buffer, locationId);
+        writeString(buffer, trend.getLocationName());
+        buffer.putLong(state.getReadings());
+        
+        buffer.putInt(trend.size());
+        for (int i = 0; i < trend.size(); i++) {
+            buffer.putLong(trend.getTimestamp(i));
+            for (WeatherTrend.Metric metric : METRICS) {
+                buffer.putDouble(trend.getValue(metric, i));
+            }
+        }
+        
+        buffer.putInt(state.getActiveAlerts().size());
+        for (Map.Entry<String, ActiveAlert> entry : state.getActiveAlerts().entrySet()) {
+            ActiveAlert alert = entry.getValue();
+            writeString(buffer, alert.getAlertId());
+            writeString(buffer, entry.getKey());
+            writeString(buffer, alert.getAlertType());
+            writeString(buffer, alert.getSeverity());
+            writeString(buffer, alert.getAlertMessage());
+            buffer.putDouble(alert.getAlertValue());
+            buffer.putLong(alert.getLastPublishedAt());
+            buffer.putLong(alert.getLastReading());
+        }
+        
+        LocationStatistics statistics = state.getStatistics();
+        buffer.putLong(statistics.getCount());
+        for (WeatherTrend.Metric metric : METRICS) {
+            buffer.putDouble(statistics.getMean(metric));
+            buffer.putDouble(statistics.getVariance(metric));
+        }
+        writeSketch(buffer, statistics.getTemperature());
+        writeSketch(buffer, statistics.getWindSpeed());
+    }
+    
+    private static LocationState readLocation(ByteBuffer buffer, short version, Function<String, WeatherTrend> trends) {
+        String locationName = readString(buffer);
+        LocationState state = new LocationState(trends.apply(locationName), buffer.getLong());
+        
+        // Replaying the readings rebuilds the trend window exactly
+        int readings = buffer.getInt();
+        for (int i = 0; i < readings; i++) {
+            state.getTrend().update(buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble());
+        }
+        
+        int alerts = buffer.getInt();
+        for (int i = 0; i < alerts; i++) {
+            ActiveAlert alert = new ActiveAlert(readString(buffer));
+            String lifecycleKey = readString(buffer);
+            alert.setAlertType(readString(buffer));
+            alert.setSeverity(readString(buffer));
+            alert.setAlertMessage(readString(buffer));
+            alert.setAlertValue(buffer.getDouble());
+            alert.setLastPublishedAt(buffer.getLong());
+            alert.setLastReading(buffer.getLong());
+            state.getActiveAlerts().put(lifecycleKey, alert);
+        }
+        
+        // Version 1 had no statistics, so they start over
+        if (version >= 2) {
+            LocationStatistics statistics = state.getStatistics();
+            long count = buffer.getLong();
+            for (WeatherTrend.Metric metric : METRICS) {
+                statistics.restore(count, metric, buffer.getDouble(), buffer.getDouble());
+            }
+            readSketch(buffer, statistics.getTemperature());
+            readSketch(buffer, statistics.getWindSpeed());
+        }
+        return state;
+    }
+    
+    private static void writeSketch(ByteBuffer buffer, QuantileSketch sketch) {
+        buffer.putLong(sketch.getCount());
+        for (int i = 0; i < QuantileSketch.MARKERS; i++) {
+            buffer.putDouble(sketch.getHeight(i));
+            buffer.putInt(sketch.getPosition(i));
+        }
+    }
+    
+    private static void readSketch(ByteBuffer buffer, QuantileSketch sketch) {
+        long count = buffer.getLong();
+        double[] heights = new double[QuantileSketch.MARKERS];
+        int[] positions = new int[QuantileSketch.MARKERS];
+        for (int i = 0; i < QuantileSketch.MARKERS; i++) {
+            heights[i] = buffer.getDouble();
+            positions[i] = buffer.getInt();
+        }
+        sketch.restore(count, heights, positions);
+    }
+    
+    private static int sizeOf(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+    
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_BYTES, buffer.limit() - HEADER_BYTES));
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * State of a partition as of a checkpoint
+     * @param nextOffset offset of the first record the state does not include
+     * @param writtenAt epoch milliseconds when the checkpoint was written
+     */
+    public record Checkpoint(long nextOffset, long writtenAt, Map<String, LocationState> locations) {
+    }
+}
@@ -3,19 +3,60 @@ package com.example.weatheranalyzer.service;
 import com.example.weatheranalyzer.model.WeatherAlert;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class WeatherAlertProducer {
 
-    private static final String TOPIC = "weather-alerts";
+    public static final String TOPIC = "weather-alerts";
     private final KafkaTemplate<String, WeatherAlert> alertKafkaTemplate;
-
-    public void sendAlert(WeatherAlert alert) {
-        log.info("Sending weather alert to Kafka: {}", alert);
-        alertKafkaTemplate.send(TOPIC, alert.getLocationId(), alert);
+    
+    // How long to wait for the broker to acknowledge a batch of alerts
+    @Value("${weather.analyzer.alert-send-timeout-seconds:30}")
+    private long sendTimeoutSeconds;
+    
+    /**
+     * Send alerts together and wait until the broker has acknowledged all of them,
+     * so the offsets of the readings that raised them are only committed afterwards
+     */
+    public void sendAlerts(List<WeatherAlert> alerts) {
+        sendAlerts(TOPIC, alerts);
+    }
+    
+    /**
+     * Send alerts to another topic, such as the output of a replay, and wait for the acknowledgements
+     */
+    public void sendAlerts(String topic, List<WeatherAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[alerts.size()];
+        for (int i = 0; i < futures.length; i++) {
+            WeatherAlert alert = alerts.get(i);
+            log.debug("Sending weather alert to Kafka: {}", alert);
+            futures[i] = alertKafkaTemplate.send(topic, alert.getLocationId(), alert);
+        }
+        
+        try {
+            CompletableFuture.allOf(futures).get(sendTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while sending " + alerts.size() + " weather alerts", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Failed to send " + alerts.size() + " weather alerts", e);
+        }
+        log.info("Sent {} weather alerts to {}", alerts.size(), topic);
     }
 }
@@ -1,23 +1,59 @@
 package com.example.weatheranalyzer.service;
 
+import com.example.weatheranalyzer.model.WeatherAlert;
 import com.example.weatheranalyzer.model.WeatherData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class WeatherDataConsumer {
 
     private final EnhancedWeatherAnalyzer weatherAnalyzer;
+    private final WeatherAlertProducer alertProducer;
+    private final PartitionedTrendStore trendStore;
     
-    @KafkaListener(topics = "weather-data", groupId = "weather-analyzer-group")
-    public void consume(WeatherData weatherData) {
-        log.info("Received weather data: {}", weatherData);
+    /**
+     * Analyze everything one poll returned and publish the alerts before the offsets are committed.
+     * Not started in the replay profile, which reads the topic itself
+     */
+    @KafkaListener(topics = "weather-data", groupId = "weather-analyzer-group",
+        autoStartup = "${weather.analyzer.listener.auto-startup:true}")
+    public void consume(List<ConsumerRecord<String, WeatherData>> records) {
+        log.debug("Received {} weather data records", records.size());
+        
+        // Trend state is kept per partition, so readings are analyzed partition by partition
+        Map<Integer, List<ConsumerRecord<String, WeatherData>>> byPartition = new TreeMap<>();
+        Map<Integer, Long> nextOffsets = new TreeMap<>();
+        for (ConsumerRecord<String, WeatherData> record : records) {
+            nextOffsets.merge(record.partition(), record.offset() + 1, Math::max);
+            // A poll delivered again after its alerts failed to send is already in the state
+            if (record.value() != null && !trendStore.isAnalyzed(record.partition(), record.offset())) {
+                byPartition.computeIfAbsent(record.partition(), p -> new ArrayList<>()).add(record);
+            }
+        }
+        
+        // The store holds each partition's alerts until they are sent, including those of a failed send
+        List<WeatherAlert> alerts = new ArrayList<>();
+        nextOffsets.forEach((partition, nextOffset) -> {
+            List<ConsumerRecord<String, WeatherData>> polled = byPartition.getOrDefault(partition, List.of());
+            List<WeatherAlert> raised = polled.isEmpty() ? List.of() : weatherAnalyzer.analyzeBatch(partition,
+                polled.stream().map(ConsumerRecord::value).toList(),
+                polled.stream().mapToLong(ConsumerRecord::timestamp).toArray());
+            alerts.addAll(trendStore.markAnalyzed(partition, nextOffset, raised));
+        });
+        alertProducer.sendAlerts(alerts);
         
-        // Use the enhanced analyzer to process the weather data
-        weatherAnalyzer.analyzeWeatherData(weatherData);
+        // Only now does the state reflect records whose alerts are out, so it may be checkpointed
+        nextOffsets.forEach(trendStore::markProcessed);
     }
 }
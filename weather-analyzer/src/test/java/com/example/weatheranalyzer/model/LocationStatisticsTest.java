@@ -0,0 +1,66 @@
+package com.example.weatheranalyzer.model;
+
+import com.example.weatheranalyzer.model.WeatherTrend.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LocationStatisticsTest {
+
+    @Test
+    void testSketchQuantilesAreCloseToExactOnes() {
+        SplittableRandom random = new SplittableRandom(11);
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i++) {
+            // Skewed, like wind speeds
+            values[i] = -Math.log(1 - random.nextDouble()) * 4;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        
+        for (double probability : new double[] {0.05, 0.25, 0.5, 0.75, 0.95, 0.99}) {
+            double exact = values[(int) (probability * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(probability), 0.05 * exact, "quantile " + probability);
+            assertEquals(probability, sketch.rank(exact), 0.01, "rank at quantile " + probability);
+        }
+        assertEquals(values[0], sketch.quantile(0));
+        assertEquals(1.0, sketch.rank(values[values.length - 1] + 1));
+        assertEquals(values.length, sketch.getCount());
+    }
+    
+    @Test
+    void testSmallSketchRanksItsValuesExactly() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertEquals(0.5, sketch.rank(3.0));
+        for (double value : new double[] {5, 1, 3, 2}) {
+            sketch.add(value);
+        }
+        assertEquals(0.75, sketch.rank(3.0));
+        assertEquals(3.0, sketch.quantile(0.6));
+    }
+    
+    @Test
+    void testMovingAverageFollowsTheRecentReadings() {
+        LocationStatistics statistics = new LocationStatistics();
+        for (int i = 0; i < 500; i++) {
+            statistics.update(0.05, 10.0 + (i % 2 == 0 ? 1 : -1), 60.0, 3.0, 0.0);
+        }
+        assertEquals(10.0, statistics.getMean(Metric.TEMPERATURE), 0.1);
+        assertEquals(1.0, statistics.getVariance(Metric.TEMPERATURE), 0.1);
+        assertEquals(0.0, statistics.getVariance(Metric.HUMIDITY));
+        assertEquals(5.0, statistics.zScore(Metric.TEMPERATURE, 15.0, 0.5), 0.5);
+        // A metric that never varies is scored against the minimum standard deviation
+        assertEquals(4.0, statistics.zScore(Metric.HUMIDITY, 62.0, 0.5), 1e-9);
+        
+        // After a lasting shift the average moves to the new level
+        for (int i = 0; i < 500; i++) {
+            statistics.update(0.05, 20.0, 60.0, 3.0, 0.0);
+        }
+        assertEquals(20.0, statistics.getMean(Metric.TEMPERATURE), 0.01);
+        assertEquals(500 * 2, statistics.getCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.weatheranalyzer.model;
+
+import com.example.weatheranalyzer.model.WeatherTrend.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WeatherTrendTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    
+    @Test
+    void testTemperatureChangeCoversLastThirtyMinutes() {
+        WeatherTrend trend = new WeatherTrend("London, GB");
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        
+        assertFalse(trend.updateData(reading(10.0, start)));
+        assertTrue(trend.updateData(reading(12.0, start.plusMinutes(10))));
+        assertTrue(trend.updateData(reading(17.0, start.plusMinutes(25))));
+        assertEquals(7.0, trend.getTemperatureChange(), 0.0001);
+        
+        // The first reading is now more than 30 minutes older than the newest one
+        trend.updateData(reading(18.0, start.plusMinutes(35)));
+        assertEquals(6.0, trend.getTemperatureChange(), 0.0001);
+        assertEquals(3, trend.getWindowSize());
+    }
+    
+    @Test
+    void testWindowMinMaxMatchBruteForce() {
+        SplittableRandom random = new SplittableRandom(7);
+        WeatherTrend trend = new WeatherTrend("Test", 8);
+        List<Long> times = new ArrayList<>();
+        List<Double> winds = new ArrayList<>();
+        long time = 0;
+        
+        for (int i = 0; i < 2000; i++) {
+            // Irregular gaps so the window holds anywhere from one to all eight readings
+            time += random.nextLong(1, 15) * MINUTE;
+            double wind = random.nextDouble() * 30;
+            trend.update(time, 0, 0, wind, 0);
+            times.add(time);
+            winds.add(wind);
+            
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            int inWindow = 0;
+            for (int j = times.size() - 1; j >= Math.max(0, times.size() - 8); j--) {
+                if (times.get(j) <= time - 30 * MINUTE) {
+                    break;
+                }
+                min = Math.min(min, winds.get(j));
+                max = Math.max(max, winds.get(j));
+                inWindow++;
+            }
+            assertEquals(min, trend.getWindowMin(Metric.WIND_SPEED), 0.0);
+            assertEquals(max, trend.getWindowMax(Metric.WIND_SPEED), 0.0);
+            assertEquals(inWindow, trend.getWindowSize());
+        }
+    }
+    
+    @Test
+    void testCapacityBoundsTheWindow() {
+        WeatherTrend trend = new WeatherTrend("Test", 4);
+        for (int i = 0; i < 6; i++) {
+            trend.update(i * MINUTE, i, 0, 0, 0);
+        }
+        
+        // Only the last four readings are held, even though all six are within 30 minutes
+        assertEquals(4, trend.size());
+        assertEquals(4, trend.getWindowSize());
+        assertEquals(2.0, trend.getWindowMin(Metric.TEMPERATURE), 0.0);
+        assertEquals(3.0, trend.getWindowDelta(Metric.TEMPERATURE), 0.0);
+    }
+    
+    @Test
+    void testUpdatesDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        WeatherTrend trend = new WeatherTrend("Test");
+        WeatherData data = reading(10.0, LocalDateTime.of(2025, 1, 1, 12, 0));
+        
+        // Warm up so the measured loop runs compiled code
+        for (int i = 0; i < 20_000; i++) {
+            trend.updateData(data);
+        }
+        
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            trend.updateData(data);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        
+        // Allow for the measurement itself, but nothing per update
+        assertTrue(allocated < 10_000, allocated + " bytes allocated");
+    }
+    
+    private WeatherData reading(double temperature, LocalDateTime timestamp) {
+        return new WeatherData("location", "Location", temperature, 50.0, 3.0, "N", 0.0, timestamp);
+    }
+}
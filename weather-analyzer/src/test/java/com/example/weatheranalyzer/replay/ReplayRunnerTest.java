@@ -0,0 +1,121 @@
+package com.example.weatheranalyzer.replay;
+
+import com.example.weatheranalyzer.model.ReplayReport;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.rules.AlertRuleEngine;
+import com.example.weatheranalyzer.rules.BatchRuleEvaluator;
+import com.example.weatheranalyzer.serialization.WeatherAlertJsonCodec;
+import com.example.weatheranalyzer.service.AlertLifecycle;
+import com.example.weatheranalyzer.service.AnomalyDetector;
+import com.example.weatheranalyzer.service.EnhancedWeatherAnalyzer;
+import com.example.weatheranalyzer.service.EventTimePolicy;
+import com.example.weatheranalyzer.service.PartitionedTrendStore;
+import com.example.weatheranalyzer.service.TrendCheckpoints;
+import com.example.weatheranalyzer.service.WeatherAlertProducer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class ReplayRunnerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final String TOPIC = PartitionedTrendStore.TOPIC;
+    
+    @Test
+    void testOffsetRangeOfEveryPartitionIsReplayed() throws IOException {
+        MockConsumer<String, WeatherData> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        TopicPartition p0 = new TopicPartition(TOPIC, 0);
+        TopicPartition p1 = new TopicPartition(TOPIC, 1);
+        consumer.updatePartitions(TOPIC, List.of(partitionInfo(0), partitionInfo(1)));
+        consumer.updateBeginningOffsets(Map.of(p0, 0L, p1, 0L));
+        consumer.updateEndOffsets(Map.of(p0, 4L, p1, 3L));
+        consumer.schedulePollTask(() -> {
+            // Outside the range: an extreme reading before it and after it
+            addRecord(consumer, p0, 0, reading("loc-1", 45.0, START.minusMinutes(10)));
+            addRecord(consumer, p0, 1, reading("loc-1", 20.0, START));
+            addRecord(consumer, p0, 2, reading("loc-1", 33.0, START.plusMinutes(10)));
+            addRecord(consumer, p0, 3, reading("loc-1", 45.0, START.plusMinutes(20)));
+            addRecord(consumer, p1, 0, reading("loc-2", 45.0, START));
+            addRecord(consumer, p1, 1, null);
+            addRecord(consumer, p1, 2, reading("loc-2", 10.0, START.plusMinutes(10)));
+        });
+        
+        ReplayRunner runner = runner();
+        ReflectionTestUtils.setField(runner, "fromOffset", 1L);
+        ReflectionTestUtils.setField(runner, "toOffset", 3L);
+        List<WeatherAlert> alerts = new ArrayList<>();
+        ReplayReport report = runner.replay(consumer, alerts::addAll);
+        
+        assertEquals(4, report.getRecords());
+        assertEquals(3, report.getReadings());
+        assertEquals(2, report.getAlerts());
+        assertEquals(List.of("HIGH_TEMPERATURE", "RAPID_TEMPERATURE_CHANGE"),
+            alerts.stream().map(WeatherAlert::getAlertType).sorted().toList());
+        assertEquals(START.plusMinutes(10), alerts.get(0).getTimestamp());
+    }
+    
+    @Test
+    void testAlertsAreWrittenToAFileAsNdjson(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("out").resolve("alerts.ndjson");
+        WeatherAlert alert = new WeatherAlert("a-1", "loc-1", "London, GB", "HIGH_TEMPERATURE", "hot", 35.0,
+            "MEDIUM", START);
+        
+        try (ReplayAlertSink sink = ReplayAlertSink.file(file)) {
+            sink.write(List.of(alert, alert));
+            sink.write(List.of());
+        }
+        
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertEquals(alert, WeatherAlertJsonCodec.decode(lines.get(1).getBytes()));
+    }
+    
+    @Test
+    void testLiveAlertTopicIsRefused() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ReplayAlertSink.topic(mock(WeatherAlertProducer.class), WeatherAlertProducer.TOPIC));
+    }
+    
+    private static ReplayRunner runner() throws IOException {
+        PartitionedTrendStore trendStore = new PartitionedTrendStore(new TrendCheckpoints(false, ".", 0), 0, 0, false);
+        AlertRuleEngine ruleEngine = new AlertRuleEngine(new ClassPathResource("alert-rules.json"), new ObjectMapper());
+        EnhancedWeatherAnalyzer analyzer = new EnhancedWeatherAnalyzer(trendStore, ruleEngine,
+            BatchRuleEvaluator.create(true), new AlertLifecycle(60),
+            new EventTimePolicy(30, "drop"), new AnomalyDetector(0.005, 200, 1.0));
+        return new ReplayRunner(analyzer, mock(WeatherAlertProducer.class), null, null);
+    }
+    
+    private static void addRecord(MockConsumer<String, WeatherData> consumer, TopicPartition partition, long offset,
+                                  WeatherData data) {
+        consumer.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), offset,
+            data != null ? data.getLocationId() : null, data));
+    }
+    
+    private static PartitionInfo partitionInfo(int partition) {
+        return new PartitionInfo(TOPIC, partition, null, null, null);
+    }
+    
+    private static WeatherData reading(String locationId, double temperature, LocalDateTime timestamp) {
+        return new WeatherData(locationId, "Location " + locationId, temperature, 60.0, 3.0, "N", 0.0, timestamp);
+    }
+}
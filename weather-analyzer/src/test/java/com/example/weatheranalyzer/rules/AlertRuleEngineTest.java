@@ -0,0 +1,187 @@
+package com.example.weatheranalyzer.rules;
+
+import com.example.weatheranalyzer.model.WeatherData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AlertRuleEngineTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Test
+    void testDefaultRulesMatchTheBuiltInThresholds() throws IOException {
+        AlertRuleEngine engine = new AlertRuleEngine(new ClassPathResource("alert-rules.json"), objectMapper);
+        RuleTable rules = engine.rulesFor("loc-1", "London, GB");
+        
+        // Only the most severe rule of a group fires
+        assertEquals(List.of("EXTREME_HIGH_TEMPERATURE"), fired(rules, reading(40.0, 3.0, 0.0), 0.0));
+        assertEquals(List.of("LOW_TEMPERATURE"), fired(rules, reading(-5.0, 3.0, 0.0), 0.0));
+        assertEquals(List.of(), fired(rules, reading(32.0, 15.0, 5.0), 0.0));
+        assertEquals(List.of("HIGH_WIND", "HEAVY_RAINFALL", "TROPICAL_STORM_CONDITIONS"),
+            fired(rules, reading(20.0, 16.0, 6.0), 0.0));
+        assertEquals(List.of("RAPID_TEMPERATURE_CHANGE"), fired(rules, reading(20.0, 3.0, 0.0), -6.0));
+    }
+    
+    @Test
+    void testMessagesAndValues() throws IOException {
+        AlertRuleEngine engine = new AlertRuleEngine(new ClassPathResource("alert-rules.json"), objectMapper);
+        RuleTable rules = engine.rulesFor("loc-1", "London, GB");
+        double[] values = new double[RuleMetric.SLOTS];
+        int[] matches = new int[rules.size()];
+        
+        RuleMetric.extract(reading(35.0, 3.0, 0.0), -6.25, values);
+        assertEquals(2, rules.evaluate(values, matches));
+        assertEquals("High temperature alert: 35.0°C at London, GB", rules.message(matches[0], values, "London, GB"));
+        assertEquals(String.format("Rapid temperature change of %.1f°C in the last 30 minutes at London, GB", -6.25),
+            rules.message(matches[1], values, "London, GB"));
+        // The alert value of an absolute condition is the absolute value
+        assertEquals(6.25, rules.value(matches[1], values), 0.0001);
+    }
+    
+    @Test
+    void testRegionAndLocationOverrides() throws IOException {
+        String json = """
+            {"rules": [
+              {"alertType": "HIGH_TEMPERATURE", "severity": "MEDIUM", "message": "{TEMPERATURE} at {location}",
+               "conditions": [{"metric": "TEMPERATURE", "comparator": ">", "threshold": 32}],
+               "overrides": [
+                 {"regions": ["EG"], "thresholds": {"TEMPERATURE": 40}},
+                 {"locations": ["Aswan, EG"], "thresholds": {"TEMPERATURE": 44}, "severity": "LOW"}
+               ]},
+              {"alertType": "LOW_TEMPERATURE", "severity": "MEDIUM", "message": "{TEMPERATURE} at {location}",
+               "conditions": [{"metric": "TEMPERATURE", "comparator": "<", "threshold": 0}],
+               "overrides": [{"locations": ["loc-oslo"], "enabled": false}]}
+            ]}
+            """;
+        CompiledRuleSet rules = new CompiledRuleSet(objectMapper.readValue(json, RuleSetDefinition.class));
+        
+        assertEquals(List.of("HIGH_TEMPERATURE"), fired(rules.tableFor("loc-1", "London, GB"), reading(35.0, 0, 0), 0));
+        assertEquals(List.of(), fired(rules.tableFor("loc-2", "Cairo, EG"), reading(35.0, 0, 0), 0));
+        assertEquals(List.of("HIGH_TEMPERATURE"), fired(rules.tableFor("loc-2", "Cairo, EG"), reading(41.0, 0, 0), 0));
+        
+        // The location override wins over the region override
+        RuleTable aswan = rules.tableFor("loc-3", "Aswan, EG");
+        assertEquals(List.of(), fired(aswan, reading(43.0, 0, 0), 0));
+        assertEquals(List.of("HIGH_TEMPERATURE"), fired(aswan, reading(45.0, 0, 0), 0));
+        assertEquals("LOW", aswan.severity(0));
+        
+        assertEquals(List.of(), fired(rules.tableFor("loc-oslo", "Oslo, NO"), reading(-5.0, 0, 0), 0));
+        // Locations without overrides share the default table
+        assertSame(rules.tableFor("loc-1", "London, GB"), rules.tableFor("loc-4", "Paris, FR"));
+        // and are not cached
+        assertEquals(3, rules.cachedTables());
+        
+        // Locations of an overridden region share the region's table
+        assertSame(rules.tableFor("loc-2", "Cairo, EG"), rules.tableFor("loc-5", "Luxor, EG"));
+        for (int i = 0; i < 100; i++) {
+            rules.tableFor("loc-eg-" + i, "Town " + i + ", EG");
+        }
+        assertEquals(3, rules.cachedTables());
+    }
+    
+    @Test
+    void testInclusiveComparators() throws IOException {
+        String json = """
+            {"rules": [
+              {"alertType": "AT_LEAST", "severity": "LOW", "message": "{value}",
+               "conditions": [{"metric": "HUMIDITY", "comparator": ">=", "threshold": 90}]},
+              {"alertType": "AT_MOST", "severity": "LOW", "message": "{value}",
+               "conditions": [{"metric": "HUMIDITY", "comparator": "<=", "threshold": 10}]}
+            ]}
+            """;
+        RuleTable rules = new CompiledRuleSet(objectMapper.readValue(json, RuleSetDefinition.class)).tableFor("loc-1", "London, GB");
+        
+        assertEquals(List.of("AT_LEAST"), fired(rules, humidity(90.0), 0));
+        assertEquals(List.of(), fired(rules, humidity(89.99), 0));
+        assertEquals(List.of("AT_MOST"), fired(rules, humidity(10.0), 0));
+        assertEquals(List.of(), fired(rules, humidity(10.01), 0));
+    }
+    
+    @Test
+    void testInvalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+            {"rules": [{"alertType": "X", "severity": "LOW", "message": "m",
+              "conditions": [{"metric": "TEMPERATURE", "comparator": "=>", "threshold": 1}]}]}
+            """));
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+            {"rules": [{"alertType": "X", "severity": "LOW", "message": "m",
+              "conditions": [{"metric": "TEMPERATURE", "comparator": ">", "threshold": 1}],
+              "overrides": [{"regions": ["EG"], "thresholds": {"WIND_SPEED": 3}}]}]}
+            """));
+        assertThrows(IllegalArgumentException.class, () -> compile("""
+            {"rules": [{"alertType": "X", "severity": "LOW", "message": "{UNKNOWN}",
+              "conditions": [{"metric": "TEMPERATURE", "comparator": ">", "threshold": 1}]}]}
+            """));
+    }
+    
+    @Test
+    void testChangedFileIsSwappedInAndInvalidFileIgnored(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("rules.json");
+        writeRules(file, "30", 1000);
+        AlertRuleEngine engine = new AlertRuleEngine(new FileSystemResource(file), objectMapper);
+        RuleTable before = engine.rulesFor("loc-1", "London, GB");
+        assertEquals(List.of("HOT"), fired(before, reading(31.0, 0, 0), 0));
+        
+        // Unchanged file: nothing is reloaded
+        engine.reloadIfChanged();
+        assertSame(before, engine.rulesFor("loc-1", "London, GB"));
+        
+        writeRules(file, "35", 2000);
+        engine.reloadIfChanged();
+        assertEquals(List.of(), fired(engine.rulesFor("loc-1", "London, GB"), reading(31.0, 0, 0), 0));
+        // A table already handed out keeps evaluating with the rules it was compiled from
+        assertEquals(List.of("HOT"), fired(before, reading(31.0, 0, 0), 0));
+        
+        Files.writeString(file, "{\"rules\": [");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(3000));
+        engine.reloadIfChanged();
+        assertEquals(List.of("HOT"), fired(engine.rulesFor("loc-1", "London, GB"), reading(36.0, 0, 0), 0));
+    }
+    
+    private void compile(String json) throws IOException {
+        new CompiledRuleSet(objectMapper.readValue(json, RuleSetDefinition.class));
+    }
+    
+    private static void writeRules(Path file, String threshold, long modified) throws IOException {
+        Files.writeString(file, """
+            {"rules": [{"alertType": "HOT", "severity": "LOW", "message": "{TEMPERATURE}",
+              "conditions": [{"metric": "TEMPERATURE", "comparator": ">", "threshold": %s}]}]}
+            """.formatted(threshold));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+    }
+    
+    private static List<String> fired(RuleTable rules, WeatherData data, double temperatureChange) {
+        double[] values = new double[RuleMetric.SLOTS];
+        int[] matches = new int[rules.size()];
+        RuleMetric.extract(data, temperatureChange, values);
+        int count = rules.evaluate(values, matches);
+        
+        List<String> alertTypes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            alertTypes.add(rules.alertType(matches[i]));
+        }
+        return alertTypes;
+    }
+    
+    private static WeatherData reading(double temperature, double windSpeed, double precipitation) {
+        return new WeatherData("loc-1", "London, GB", temperature, 60.0, windSpeed, "N", precipitation, null);
+    }
+    
+    private static WeatherData humidity(double humidity) {
+        return new WeatherData("loc-1", "London, GB", 20.0, humidity, 3.0, "N", 0.0, null);
+    }
+}
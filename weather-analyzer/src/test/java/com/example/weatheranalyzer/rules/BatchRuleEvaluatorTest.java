@@ -0,0 +1,108 @@
+package com.example.weatheranalyzer.rules;
+
+import com.example.weatheranalyzer.model.WeatherData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchRuleEvaluatorTest {
+
+    private final RuleTable rules = new AlertRuleEngine(new ClassPathResource("alert-rules.json"), new ObjectMapper())
+        .rulesFor("loc-1", "London, GB");
+    
+    public BatchRuleEvaluatorTest() throws IOException {
+    }
+    
+    @Test
+    void testVectorEvaluatorIsUsedWhenTheModuleIsPresent() {
+        // The build adds jdk.incubator.vector to the test JVM
+        assertInstanceOf(VectorBatchEvaluator.class, BatchRuleEvaluator.create(true));
+        assertInstanceOf(ScalarBatchEvaluator.class, BatchRuleEvaluator.create(false));
+    }
+    
+    @Test
+    void testVectorAndScalarAgree() {
+        SplittableRandom random = new SplittableRandom(19);
+        for (int rows : new int[] {1, 3, 7, 8, 37, 64, 130}) {
+            RuleColumns columns = randomColumns(random, rows);
+            int[][] scalar = evaluate(new ScalarBatchEvaluator(), columns);
+            int[][] vector = evaluate(new VectorBatchEvaluator(), columns);
+            
+            assertArrayEquals(scalar[0], vector[0], "rows of batch with " + rows + " readings");
+            assertArrayEquals(scalar[1], vector[1], "rules of batch with " + rows + " readings");
+            assertTrue(rows < 37 || scalar[0].length > 0);
+        }
+    }
+    
+    @Test
+    void testOnlyTheFirstRuleOfAGroupFires() {
+        RuleColumns columns = new RuleColumns(2);
+        columns.add(reading(40.0, 30.0, 20.0), 0.0);
+        columns.add(reading(20.0, 3.0, 0.0), 0.0);
+        
+        int[][] matches = evaluate(new VectorBatchEvaluator(), columns);
+        
+        String[] alertTypes = Arrays.stream(matches[1]).mapToObj(rules::alertType).toArray(String[]::new);
+        assertArrayEquals(new String[] {"EXTREME_HIGH_TEMPERATURE", "EXTREME_WIND", "EXTREME_RAINFALL",
+            "TROPICAL_STORM_CONDITIONS"}, alertTypes);
+        assertArrayEquals(new int[] {0, 0, 0, 0}, matches[0]);
+    }
+    
+    /**
+     * Run with {@code mvn test -Dtest=BatchRuleEvaluatorTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compareThroughput() {
+        RuleColumns columns = randomColumns(new SplittableRandom(7), 512);
+        for (int round = 0; round < 3; round++) {
+            measure("scalar", new ScalarBatchEvaluator(), columns);
+            measure("vector", new VectorBatchEvaluator(), columns);
+        }
+    }
+    
+    private void measure(String name, BatchRuleEvaluator evaluator, RuleColumns columns) {
+        int[] matchRows = new int[columns.rows() * rules.size()];
+        int[] matchRules = new int[matchRows.length];
+        int iterations = 20_000;
+        long matches = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            matches += evaluator.evaluate(rules, columns, matchRows, matchRules);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("%-8s %,14.0f readings/sec (%d matches)%n", name,
+            (double) iterations * columns.rows() / seconds, matches / iterations);
+    }
+    
+    private int[][] evaluate(BatchRuleEvaluator evaluator, RuleColumns columns) {
+        int[] matchRows = new int[columns.rows() * rules.size()];
+        int[] matchRules = new int[matchRows.length];
+        int count = evaluator.evaluate(rules, columns, matchRows, matchRules);
+        return new int[][] {Arrays.copyOf(matchRows, count), Arrays.copyOf(matchRules, count)};
+    }
+    
+    private static RuleColumns randomColumns(SplittableRandom random, int rows) {
+        RuleColumns columns = new RuleColumns(4);
+        for (int i = 0; i < rows; i++) {
+            WeatherData data = reading(random.nextDouble(-20, 45), random.nextDouble(0, 30), random.nextDouble(0, 20));
+            columns.add(data, random.nextDouble(-8, 8));
+        }
+        assertEquals(rows, columns.rows());
+        return columns;
+    }
+    
+    private static WeatherData reading(double temperature, double windSpeed, double precipitation) {
+        return new WeatherData("loc-1", "London, GB", temperature, 60.0, windSpeed, "N", precipitation, null);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.weatheranalyzer.serialization;
+
+import com.example.weatheranalyzer.model.AlertStatus;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the streaming JSON codecs read and write the same documents as Jackson databind
+ */
+public class StreamingJsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    
+    @Test
+    void testReadsDatabindOutput() throws IOException {
+        for (int nano : new int[]{0, 500_000_000, 589_793_000, 589_793_238}) {
+            WeatherData data = weatherData(LocalDateTime.of(2025, 3, 14, 9, 26, 53, nano));
+            
+            assertEquals(data, WeatherDataJsonCodec.decode(objectMapper.writeValueAsBytes(data)));
+        }
+    }
+    
+    @Test
+    void testDatabindReadsCodecOutput() throws IOException {
+        WeatherData data = weatherData(LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000));
+        WeatherAlert alert = new WeatherAlert("alert-1", "location-1", "Zürich, CH", "HIGH_WIND",
+                "Wind \"gusts\" of 22.5 m/s", 22.5, "HIGH", LocalDateTime.of(2025, 1, 1, 0, 0));
+        
+        assertEquals(data, objectMapper.readValue(WeatherDataJsonCodec.encode(data), WeatherData.class));
+        assertEquals(alert, objectMapper.readValue(WeatherAlertJsonCodec.encode(alert), WeatherAlert.class));
+        assertEquals(alert, WeatherAlertJsonCodec.decode(WeatherAlertJsonCodec.encode(alert)));
+    }
+    
+    @Test
+    void testAlertStatus() throws IOException {
+        WeatherAlert resolved = new WeatherAlert("alert-1", "location-1", "Zürich, CH", "HIGH_WIND",
+                "HIGH_WIND at Zürich, CH has ended", 22.5, "HIGH", LocalDateTime.of(2025, 1, 1, 0, 0), AlertStatus.RESOLVED);
+        String withoutStatus = "{\"alertId\":\"alert-1\",\"alertType\":\"HIGH_WIND\"}";
+        
+        assertEquals(resolved, WeatherAlertJsonCodec.decode(WeatherAlertJsonCodec.encode(resolved)));
+        assertEquals(resolved, WeatherAlertCodec.decode(WeatherAlertCodec.encode(resolved)));
+        // Alerts from before the lifecycle are new ones
+        assertEquals(AlertStatus.OPEN, WeatherAlertJsonCodec.decode(withoutStatus.getBytes(StandardCharsets.UTF_8)).getStatus());
+    }
+    
+    @Test
+    void testTimestampVariants() throws IOException {
+        assertEquals(LocalDateTime.of(2025, 3, 14, 9, 26), timestampOf("\"2025-03-14T09:26\""));
+        assertEquals(LocalDateTime.of(2025, 3, 14, 9, 26, 53, 100_000_000), timestampOf("\"2025-03-14T09:26:53.1\""));
+        assertEquals(LocalDateTime.of(2025, 3, 14, 9, 26, 53), timestampOf("\"2025-03-14T09:26:53Z\""));
+        assertEquals(LocalDateTime.of(2025, 3, 14, 9, 26, 53, 7), timestampOf("[2025,3,14,9,26,53,7]"));
+        assertNull(timestampOf("null"));
+    }
+    
+    @Test
+    void testUnknownFieldsAndCoercionsMatchDatabind() throws IOException {
+        String json = "{\"locationId\":\"location-1\",\"extra\":{\"nested\":[1,2,3]},\"temperature\":\"21.5\","
+                + "\"humidity\":60,\"windSpeed\":null}";
+        
+        WeatherData data = WeatherDataJsonCodec.decode(json.getBytes(StandardCharsets.UTF_8));
+        
+        assertEquals("location-1", data.getLocationId());
+        assertEquals(21.5, data.getTemperature());
+        assertEquals(60.0, data.getHumidity());
+        assertEquals(0.0, data.getWindSpeed());
+    }
+    
+    @Test
+    void testInvalidDocumentsAreRejected() {
+        assertThrows(IOException.class, () -> WeatherDataJsonCodec.decode("[1,2]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> WeatherDataJsonCodec.decode(
+                "{\"temperature\":\"warm\"}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> WeatherDataJsonCodec.decode(
+                "{\"timestamp\":\"yesterday\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private LocalDateTime timestampOf(String json) throws IOException {
+        return WeatherDataJsonCodec.decode(("{\"timestamp\":" + json + "}").getBytes(StandardCharsets.UTF_8))
+                .getTimestamp();
+    }
+    
+    private WeatherData weatherData(LocalDateTime timestamp) {
+        return new WeatherData("0b5c1d6e-4f1a-3c8e-9d2b-7a6f5e4d3c2b", "London, GB", 12.34, 81.0, 5.66,
+                "SW", 0.25, timestamp);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.weatheranalyzer.serialization;
+
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that both wire formats round-trip and are told apart per record, and compares their size and speed
+ */
+public class WireFormatComparisonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    
+    private volatile Object blackhole;
+    
+    private final WeatherDataDeserializer dataDeserializer = new WeatherDataDeserializer();
+    private final WeatherAlertSerializer jsonAlertSerializer = new WeatherAlertSerializer(WireFormat.JSON);
+    private final WeatherAlertSerializer binaryAlertSerializer = new WeatherAlertSerializer(WireFormat.BINARY);
+    
+    @Test
+    void testDeserializerAcceptsBothFormats() throws Exception {
+        WeatherData data = weatherData();
+        
+        byte[] json = objectMapper.writeValueAsBytes(data);
+        byte[] binary = WeatherDataCodec.encode(data);
+        
+        assertEquals(data, dataDeserializer.deserialize("weather-data", json));
+        assertEquals(data, dataDeserializer.deserialize("weather-data", binary));
+    }
+    
+    @Test
+    void testAlertRoundTripsInBothFormats() throws Exception {
+        WeatherAlert alert = weatherAlert();
+        
+        WeatherAlert fromJson = objectMapper.readValue(jsonAlertSerializer.serialize("weather-alerts", alert), WeatherAlert.class);
+        WeatherAlert fromBinary = WeatherAlertCodec.decode(binaryAlertSerializer.serialize("weather-alerts", alert));
+        
+        assertEquals(alert, fromJson);
+        assertEquals(alert, fromBinary);
+    }
+    
+    @Test
+    void testNullFieldsSurviveBinaryEncoding() {
+        WeatherData data = new WeatherData("location-1", null, 1.0, 2.0, 3.0, null, 0.0, null);
+        
+        WeatherData decoded = WeatherDataCodec.decode(WeatherDataCodec.encode(data));
+        
+        assertEquals(data, decoded);
+        assertNull(decoded.getTimestamp());
+    }
+    
+    @Test
+    void testUnknownVersionIsRejected() {
+        byte[] binary = WeatherDataCodec.encode(weatherData());
+        binary[1] = (byte) (BinaryEncoding.VERSION + 1);
+        
+        assertThrows(SerializationException.class, () -> dataDeserializer.deserialize("weather-data", binary));
+    }
+    
+    @Test
+    void testWrongRecordTypeIsRejected() {
+        byte[] alert = WeatherAlertCodec.encode(weatherAlert());
+        
+        assertThrows(SerializationException.class, () -> dataDeserializer.deserialize("weather-data", alert));
+    }
+    
+    @Test
+    void testBinaryIsSmallerThanJson() throws Exception {
+        int dataJson = objectMapper.writeValueAsBytes(weatherData()).length;
+        int dataBinary = WeatherDataCodec.encode(weatherData()).length;
+        int alertJson = objectMapper.writeValueAsBytes(weatherAlert()).length;
+        int alertBinary = WeatherAlertCodec.encode(weatherAlert()).length;
+        
+        System.out.printf("WeatherData: %d bytes JSON, %d bytes binary; WeatherAlert: %d bytes JSON, %d bytes binary%n",
+                dataJson, dataBinary, alertJson, alertBinary);
+        assertTrue(dataBinary * 2 < dataJson);
+        assertTrue(alertBinary < alertJson);
+    }
+    
+    /**
+     * Run with {@code mvn test -Dtest=WireFormatComparisonTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compareThroughput() throws Exception {
+        WeatherData data = weatherData();
+        byte[] json = objectMapper.writeValueAsBytes(data);
+        byte[] binary = WeatherDataCodec.encode(data);
+        
+        for (int round = 0; round < 3; round++) {
+            measure("databind serialize", d -> {
+                try {
+                    return objectMapper.writeValueAsBytes(d);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, data);
+            measure("streaming serialize", d -> {
+                try {
+                    return WeatherDataJsonCodec.encode(d);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, data);
+            measure("binary serialize", WeatherDataCodec::encode, data);
+            measure("databind deserialize", bytes -> {
+                try {
+                    return objectMapper.readValue(bytes, WeatherData.class);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, json);
+            measure("streaming deserialize", bytes -> dataDeserializer.deserialize("weather-data", bytes), json);
+            measure("binary deserialize", bytes -> dataDeserializer.deserialize("weather-data", bytes), binary);
+        }
+    }
+    
+    private <T> void measure(String name, Function<T, Object> operation, T input) {
+        int iterations = 1_000_000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            // Keep the result reachable so the JIT cannot drop the work
+            blackhole = operation.apply(input);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-22s %,12.0f records/sec %,6d bytes allocated/record%n",
+                name, iterations / seconds, allocated / iterations);
+    }
+    
+    private WeatherData weatherData() {
+        return new WeatherData("0b5c1d6e-4f1a-3c8e-9d2b-7a6f5e4d3c2b", "London, GB", 12.34, 81.0, 5.66,
+                "SW", 0.25, LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000));
+    }
+    
+    private WeatherAlert weatherAlert() {
+        return new WeatherAlert("5f0e7c1a-9b2d-4e3f-8a6b-1c2d3e4f5a6b", "0b5c1d6e-4f1a-3c8e-9d2b-7a6f5e4d3c2b",
+                "London, GB", "HIGH_WIND", "High wind speed detected: 22.5 m/s", 22.5, "HIGH",
+                LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.AlertLifecycleStats;
+import com.example.weatheranalyzer.model.AlertStatus;
+import com.example.weatheranalyzer.model.LocationState;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import com.example.weatheranalyzer.rules.AlertRuleEngine;
+import com.example.weatheranalyzer.rules.RuleMetric;
+import com.example.weatheranalyzer.rules.RuleTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class AlertLifecycleTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+    
+    private final RuleTable rules = new AlertRuleEngine(new ClassPathResource("alert-rules.json"), new ObjectMapper())
+        .rulesFor("loc-1", "London, GB");
+    
+    private final AlertLifecycle lifecycle = new AlertLifecycle(60);
+    private final LocationState state = new LocationState("London, GB");
+    
+    public AlertLifecycleTest() throws IOException {
+    }
+    
+    @Test
+    void testRepeatsAreSuppressedUntilTheRenotifyInterval() {
+        WeatherAlert opened = single(apply(35.0, 0));
+        assertEquals(AlertStatus.OPEN, opened.getStatus());
+        assertEquals("HIGH_TEMPERATURE", opened.getAlertType());
+        
+        assertEquals(List.of(), apply(35.5, 20));
+        assertEquals(List.of(), apply(36.0, 59));
+        
+        WeatherAlert reminder = single(apply(36.0, 60));
+        assertEquals(AlertStatus.UPDATED, reminder.getStatus());
+        assertEquals(opened.getAlertId(), reminder.getAlertId());
+        assertEquals(36.0, reminder.getAlertValue(), 0.001);
+        assertEquals(START.plusMinutes(60), reminder.getTimestamp());
+        
+        AlertLifecycleStats stats = lifecycle.getStats();
+        assertEquals(2, stats.getPublished());
+        assertEquals(2, stats.getSuppressed());
+    }
+    
+    @Test
+    void testMoreSevereRuleOfTheGroupEscalatesTheSameAlert() {
+        WeatherAlert opened = single(apply(35.0, 0));
+        
+        WeatherAlert escalated = single(apply(41.0, 5));
+        assertEquals(AlertStatus.ESCALATED, escalated.getStatus());
+        assertEquals("EXTREME_HIGH_TEMPERATURE", escalated.getAlertType());
+        assertEquals("HIGH", escalated.getSeverity());
+        assertEquals(opened.getAlertId(), escalated.getAlertId());
+        
+        // Easing back to the lower rule is published as an update, not a new alert
+        WeatherAlert eased = single(apply(36.0, 10));
+        assertEquals(AlertStatus.UPDATED, eased.getStatus());
+        assertEquals("HIGH_TEMPERATURE", eased.getAlertType());
+        assertEquals(opened.getAlertId(), eased.getAlertId());
+    }
+    
+    @Test
+    void testQuietReadingResolvesAndTheNextAlertIsNew() {
+        WeatherAlert opened = single(apply(35.0, 0));
+        
+        WeatherAlert resolved = single(apply(25.0, 10));
+        assertEquals(AlertStatus.RESOLVED, resolved.getStatus());
+        assertEquals(opened.getAlertId(), resolved.getAlertId());
+        assertEquals("HIGH_TEMPERATURE", resolved.getAlertType());
+        assertEquals("HIGH_TEMPERATURE at London, GB has ended", resolved.getAlertMessage());
+        assertFalse(state.hasActiveAlerts());
+        
+        WeatherAlert reopened = single(apply(35.0, 20));
+        assertEquals(AlertStatus.OPEN, reopened.getStatus());
+        assertNotEquals(opened.getAlertId(), reopened.getAlertId());
+    }
+    
+    @Test
+    void testZeroIntervalPublishesEveryReading() {
+        AlertLifecycle everyReading = new AlertLifecycle(0);
+        List<WeatherAlert> alerts = new ArrayList<>();
+        apply(everyReading, 35.0, 0, alerts);
+        apply(everyReading, 35.0, 0, alerts);
+        
+        assertEquals(List.of(AlertStatus.OPEN, AlertStatus.UPDATED), alerts.stream().map(WeatherAlert::getStatus).toList());
+    }
+    
+    private List<WeatherAlert> apply(double temperature, int minutes) {
+        List<WeatherAlert> alerts = new ArrayList<>();
+        apply(lifecycle, temperature, minutes, alerts);
+        return alerts;
+    }
+    
+    private void apply(AlertLifecycle lifecycle, double temperature, int minutes, List<WeatherAlert> alerts) {
+        WeatherData data = new WeatherData("loc-1", "London, GB", temperature, 60.0, 3.0, "N", 0.0,
+            START.plusMinutes(minutes));
+        double[] values = new double[RuleMetric.SLOTS];
+        int[] matches = new int[rules.size()];
+        RuleMetric.extract(data, 0.0, values);
+        int count = rules.evaluate(values, matches);
+        lifecycle.apply(state, data, WeatherTrend.toEpochMillis(data.getTimestamp()), rules, matches, 0, count, values, alerts);
+    }
+    
+    private static WeatherAlert single(List<WeatherAlert> alerts) {
+        assertEquals(1, alerts.size(), () -> "alerts: " + alerts);
+        return alerts.get(0);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.AlertStatus;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import com.example.weatheranalyzer.rules.AlertRuleEngine;
+import com.example.weatheranalyzer.rules.BatchRuleEvaluator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EnhancedWeatherAnalyzerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+    // Wall clock of the analyzer, long after the readings, as when reprocessing
+    private static final long NOW = WeatherTrend.toEpochMillis(START.plusDays(30));
+    
+    private PartitionedTrendStore trendStore;
+    private EnhancedWeatherAnalyzer analyzer;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        setUpFresh();
+    }
+    
+    private void setUpFresh() throws IOException {
+        setUpWith(new PartitionedTrendStore());
+    }
+    
+    private void setUpWith(PartitionedTrendStore store) throws IOException {
+        trendStore = store;
+        AlertRuleEngine ruleEngine = new AlertRuleEngine(new ClassPathResource("alert-rules.json"), new ObjectMapper());
+        analyzer = new EnhancedWeatherAnalyzer(trendStore, ruleEngine, BatchRuleEvaluator.create(true),
+            new AlertLifecycle(60), new EventTimePolicy(TimeUnit.MINUTES.toMillis(30), "drop", () -> NOW),
+            new AnomalyDetector(0.05, 20, 1.0));
+    }
+    
+    @Test
+    void testHighTemperatureAlert() {
+        List<WeatherAlert> alerts = analyzer.analyzeBatch(0, List.of(reading(35.0, START)));
+        
+        assertEquals(1, alerts.size());
+        assertEquals("HIGH_TEMPERATURE", alerts.get(0).getAlertType());
+        assertEquals("loc-1", alerts.get(0).getLocationId());
+    }
+    
+    @Test
+    void testRapidChangeUsesTrendOfThePartition() {
+        assertEquals(List.of(), analyzer.analyzeBatch(2, List.of(reading(10.0, START))));
+        List<WeatherAlert> alerts = analyzer.analyzeBatch(2, List.of(reading(16.0, START.plusMinutes(10))));
+        
+        assertEquals(1, alerts.size());
+        assertEquals("RAPID_TEMPERATURE_CHANGE", alerts.get(0).getAlertType());
+        assertEquals(1, trendStore.locationCount(2));
+    }
+    
+    @Test
+    void testBatchIsAnalyzedPerLocationInOrder() {
+        List<WeatherData> batch = List.of(
+            reading("loc-1", 10.0, START),
+            reading("loc-2", 20.0, START),
+            reading("loc-1", 16.0, START.plusMinutes(10)),
+            reading("loc-2", 33.0, START.plusMinutes(10)),
+            reading("loc-1", 16.5, START.plusMinutes(20))
+        );
+        
+        List<WeatherAlert> alerts = analyzer.analyzeBatch(0, batch);
+        
+        // loc-1 changes quickly twice, the second time within the re-notify interval; loc-2 changes quickly and gets hot
+        assertEquals(List.of("RAPID_TEMPERATURE_CHANGE", "HIGH_TEMPERATURE", "RAPID_TEMPERATURE_CHANGE"),
+            alerts.stream().map(WeatherAlert::getAlertType).toList());
+        assertEquals(List.of("loc-1", "loc-2", "loc-2"),
+            alerts.stream().map(WeatherAlert::getLocationId).toList());
+        assertEquals(2, trendStore.locationCount(0));
+    }
+    
+    @Test
+    void testAlertIsResolvedByTheFirstQuietReading() {
+        List<WeatherAlert> alerts = new ArrayList<>();
+        for (WeatherData data : List.of(reading(35.0, START), reading(34.0, START.plusMinutes(10)),
+                reading(31.0, START.plusMinutes(20)), reading(31.0, START.plusMinutes(30)))) {
+            alerts.addAll(analyzer.analyzeBatch(0, List.of(data)));
+        }
+        
+        assertEquals(List.of(AlertStatus.OPEN, AlertStatus.RESOLVED), alerts.stream().map(WeatherAlert::getStatus).toList());
+        assertEquals(alerts.get(0).getAlertId(), alerts.get(1).getAlertId());
+        assertEquals("HIGH_TEMPERATURE", alerts.get(1).getAlertType());
+    }
+    
+    @Test
+    void testLateReadingsAreDroppedAndReprocessingGivesTheSameAlerts() throws IOException {
+        List<WeatherData> batch = List.of(
+            reading("loc-1", 10.0, START),
+            reading("loc-2", 30.0, START.plusMinutes(50)),
+            // More than 30 minutes behind the partition's newest reading
+            reading("loc-1", 30.0, START.plusMinutes(15)),
+            reading("loc-1", 16.0, START.plusMinutes(55)),
+            reading("loc-2", 33.0, START.plusMinutes(60))
+        );
+        
+        List<WeatherAlert> alerts = analyzer.analyzeBatch(0, batch);
+        // loc-1's change of 6 degrees spans 55 minutes, so only loc-2's heat is an alert
+        assertEquals(List.of("HIGH_TEMPERATURE"), alerts.stream().map(WeatherAlert::getAlertType).toList());
+        assertEquals(START.plusMinutes(60), alerts.get(0).getTimestamp());
+        
+        // The same records analyzed again from scratch, one at a time, give the same alerts
+        setUpFresh();
+        List<WeatherAlert> replayed = new ArrayList<>();
+        for (WeatherData data : batch) {
+            replayed.addAll(analyzer.analyzeBatch(0, List.of(data)));
+        }
+        assertEquals(alerts.stream().map(WeatherAlert::getAlertType).toList(),
+            replayed.stream().map(WeatherAlert::getAlertType).toList());
+        assertEquals(alerts.stream().map(WeatherAlert::getTimestamp).toList(),
+            replayed.stream().map(WeatherAlert::getTimestamp).toList());
+    }
+    
+    @Test
+    void testWindUnusualForTheLocationIsAnAnomaly() {
+        List<WeatherData> calm = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            calm.add(wind(2.0 + (i % 3) * 0.5, START.plusMinutes(10L * i)));
+        }
+        assertEquals(List.of(), analyzer.analyzeBatch(0, calm));
+        
+        // Well below the high wind threshold, but stronger than anything seen at the location
+        List<WeatherAlert> alerts = analyzer.analyzeBatch(0, List.of(wind(12.0, START.plusMinutes(400))));
+        
+        assertEquals(List.of("UNUSUAL_WIND"), alerts.stream().map(WeatherAlert::getAlertType).toList());
+        assertEquals(100.0, alerts.get(0).getAlertValue(), 0.001);
+        assertEquals("LOW", alerts.get(0).getSeverity());
+    }
+    
+    @Test
+    void testBatchWithMoreLocationsThanTheCapacityKeepsItsStatesUntilEvaluated() throws IOException {
+        // Room for two locations, both taken by another partition
+        setUpWith(new PartitionedTrendStore(TrendCheckpoints.disabled(), 2, 0, false, () -> 0L));
+        analyzer.analyzeBatch(1, List.of(reading("loc-x", 20.0, START), reading("loc-y", 20.0, START)));
+        List<WeatherAlert> opened = analyzer.analyzeBatch(0, List.of(reading("loc-1", 35.0, START)));
+        
+        // loc-2 is new, so the store goes over capacity before loc-1 is evaluated
+        List<WeatherAlert> alerts = analyzer.analyzeBatch(0, List.of(
+            reading("loc-2", 20.0, START.plusMinutes(10)),
+            reading("loc-1", 31.0, START.plusMinutes(10))
+        ));
+        
+        assertEquals(List.of(AlertStatus.RESOLVED), alerts.stream().map(WeatherAlert::getStatus).toList());
+        assertEquals(opened.get(0).getAlertId(), alerts.get(0).getAlertId());
+        // Evicted once the batch is done: loc-2 was used longest ago
+        assertEquals(1, trendStore.locationCount(0));
+        assertEquals(0, trendStore.stateFor(0, "loc-1", "Location loc-1").getActiveAlerts().size());
+    }
+    
+    @Test
+    void testRevokedPartitionStartsAfresh() {
+        analyzer.analyzeBatch(2, List.of(reading(10.0, START)));
+        trendStore.onPartitionsRevoked(List.of(new TopicPartition(PartitionedTrendStore.TOPIC, 2)));
+        
+        // The new owner has no history for the location, so there is no change to report
+        assertEquals(List.of(), analyzer.analyzeBatch(2, List.of(reading(16.0, START.plusMinutes(10)))));
+    }
+    
+    private static WeatherData reading(double temperature, LocalDateTime timestamp) {
+        return reading("loc-1", temperature, timestamp);
+    }
+    
+    private static WeatherData wind(double windSpeed, LocalDateTime timestamp) {
+        return new WeatherData("loc-1", "Location loc-1", 20.0, 60.0, windSpeed, "N", 0.0, timestamp);
+    }
+    
+    private static WeatherData reading(String locationId, double temperature, LocalDateTime timestamp) {
+        return new WeatherData(locationId, "Location " + locationId, temperature, 60.0, 3.0, "N", 0.0, timestamp);
+    }
+}
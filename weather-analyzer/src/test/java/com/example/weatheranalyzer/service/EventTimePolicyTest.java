@@ -0,0 +1,82 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.PartitionWatermark;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EventTimePolicyTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final long LATENESS = TimeUnit.MINUTES.toMillis(30);
+    private static final long NOW = millis(START.plusHours(2));
+    private static final LongSupplier NO_CLOCK = () -> {
+        throw new AssertionError("The wall clock was read");
+    };
+    
+    @Test
+    void testLateAndFutureReadingsAreDropped() {
+        // The bounds come from the records alone, so replaying them at any time gives the same result
+        EventTimePolicy policy = new EventTimePolicy(LATENESS, "drop", NO_CLOCK);
+        PartitionWatermark watermark = new PartitionWatermark();
+        
+        assertEquals(millis(START.plusMinutes(40)), policy.eventTime(watermark, reading(START.plusMinutes(40)),
+            millis(START.plusMinutes(40))));
+        // Out of order within the allowed lateness
+        assertEquals(millis(START.plusMinutes(10)), policy.eventTime(watermark, reading(START.plusMinutes(10)),
+            millis(START.plusMinutes(41))));
+        assertEquals(EventTimePolicy.DROPPED, policy.eventTime(watermark, reading(START.plusMinutes(9)),
+            millis(START.plusMinutes(42))));
+        // Stamped too far ahead of its record
+        assertEquals(EventTimePolicy.DROPPED, policy.eventTime(watermark, reading(START.plusHours(3)),
+            millis(START.plusMinutes(45))));
+        // A partition that was quiet for longer than the allowed lateness resumes
+        assertEquals(millis(START.plusHours(5)), policy.eventTime(watermark, reading(START.plusHours(5)),
+            millis(START.plusHours(5))));
+        
+        assertEquals(millis(START.plusHours(5)), watermark.getMaxEventTime());
+        assertEquals(2, policy.getStats().getDropped());
+    }
+    
+    @Test
+    void testAdjustMovesReadingsIntoTheAllowedRange() {
+        EventTimePolicy policy = new EventTimePolicy(LATENESS, "adjust", NO_CLOCK);
+        PartitionWatermark watermark = new PartitionWatermark();
+        policy.eventTime(watermark, reading(START.plusMinutes(40)), millis(START.plusMinutes(40)));
+        
+        assertEquals(millis(START.plusMinutes(10)), policy.eventTime(watermark, reading(START),
+            millis(START.plusMinutes(41))));
+        assertEquals(millis(START.plusMinutes(45)), policy.eventTime(watermark, reading(START.plusHours(3)),
+            millis(START.plusMinutes(45))));
+        assertEquals(2, policy.getStats().getAdjusted());
+    }
+    
+    @Test
+    void testReadingWithoutTimestampTakesTheWatermark() {
+        EventTimePolicy policy = new EventTimePolicy(LATENESS, "drop", () -> NOW);
+        PartitionWatermark watermark = new PartitionWatermark();
+        
+        // Only a first reading without any timestamp falls back to the wall clock
+        assertEquals(NOW, policy.eventTime(new PartitionWatermark(), reading(null), ConsumerRecord.NO_TIMESTAMP));
+        assertEquals(millis(START), policy.eventTime(new PartitionWatermark(), reading(null), millis(START)));
+        policy.eventTime(watermark, reading(START), millis(START));
+        assertEquals(millis(START), policy.eventTime(watermark, reading(null), millis(START.plusMinutes(5))));
+        assertThrows(IllegalArgumentException.class, () -> new EventTimePolicy(LATENESS, "ignore", () -> NOW));
+    }
+    
+    private static WeatherData reading(LocalDateTime timestamp) {
+        return new WeatherData("loc-1", "London, GB", 20.0, 60.0, 3.0, "N", 0.0, timestamp);
+    }
+    
+    private static long millis(LocalDateTime timestamp) {
+        return WeatherTrend.toEpochMillis(timestamp);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.LocationState;
+import com.example.weatheranalyzer.model.TrendStoreStats;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PartitionedTrendStoreTest {
+
+    private final PartitionedTrendStore store = new PartitionedTrendStore();
+    
+    @Test
+    void testStateFollowsAssignmentAndRevocation() {
+        store.onPartitionsAssigned(List.of(partition(0), partition(1), new TopicPartition("other-topic", 2)));
+        assertEquals(Set.of(0, 1), store.getPartitions());
+        
+        WeatherTrend trend = store.trendFor(1, "loc-1", "London, GB");
+        assertSame(trend, store.trendFor(1, "loc-1", "London, GB"));
+        assertEquals(1, store.locationCount(1));
+        
+        store.onPartitionsRevoked(List.of(partition(1)));
+        assertEquals(Set.of(0), store.getPartitions());
+        assertEquals(0, store.locationCount(1));
+        
+        // A partition that comes back starts from empty state
+        store.onPartitionsAssigned(List.of(partition(1)));
+        assertNotSame(trend, store.trendFor(1, "loc-1", "London, GB"));
+    }
+    
+    @Test
+    void testLostPartitionsAreDropped() {
+        store.onPartitionsAssigned(List.of(partition(0), partition(1)));
+        store.trendFor(0, "loc-1", "London, GB");
+        
+        store.onPartitionsLost(List.of(partition(0)));
+        assertEquals(Set.of(1), store.getPartitions());
+    }
+    
+    @Test
+    void testRecordsWithoutAssignmentCreateState() {
+        store.trendFor(3, "loc-1", "London, GB");
+        store.trendFor(3, "loc-2", "Paris, FR");
+        
+        assertEquals(Set.of(3), store.getPartitions());
+        assertEquals(2, store.locationCount(3));
+    }
+    
+    @Test
+    void testRevokedPartitionIsRestoredFromItsCheckpoint(@TempDir Path directory) {
+        TrendCheckpoints checkpoints = new TrendCheckpoints(true, directory.toString(), 3600);
+        PartitionedTrendStore first = new PartitionedTrendStore(checkpoints, 0, 0, false, System::currentTimeMillis);
+        Consumer<?, ?> consumer = mock(Consumer.class);
+        
+        first.onPartitionsAssigned(consumer, List.of(partition(0)));
+        LocationState state = first.stateFor(0, "loc-1", "London, GB");
+        state.getTrend().update(1_000_000L, 10.0, 60.0, 3.0, 0.0);
+        state.getTrend().update(1_600_000L, 16.0, 60.0, 3.0, 0.0);
+        // The first batch is checkpointed straight away, later ones only after the interval
+        first.markProcessed(0, 40);
+        first.markProcessed(0, 42);
+        first.onPartitionsRevoked(List.of(partition(0)));
+        
+        // The committed position is behind the checkpoint, so the restored state is not fed the same records twice
+        PartitionedTrendStore second = new PartitionedTrendStore(checkpoints, 0, 0, false, System::currentTimeMillis);
+        when(consumer.position(partition(0))).thenReturn(41L);
+        second.onPartitionsAssigned(consumer, List.of(partition(0)));
+        
+        assertEquals(6.0, second.trendFor(0, "loc-1", "London, GB").getTemperatureChange());
+        verify(consumer).seek(partition(0), 42);
+        
+        // A position already past the checkpoint is kept
+        PartitionedTrendStore third = new PartitionedTrendStore(checkpoints, 0, 0, false, System::currentTimeMillis);
+        Consumer<?, ?> later = mock(Consumer.class);
+        when(later.position(partition(0))).thenReturn(50L);
+        third.onPartitionsAssigned(later, List.of(partition(0)));
+        assertEquals(1, third.locationCount(0));
+        verify(later, never()).seek(partition(0), 42);
+    }
+    
+    @Test
+    void testLeastRecentlyUsedLocationIsEvictedAtCapacity() {
+        PartitionedTrendStore bounded = new PartitionedTrendStore(TrendCheckpoints.disabled(), 3, 0, false, () -> 0L);
+        bounded.stateFor(0, "loc-1", "London, GB");
+        bounded.stateFor(0, "loc-2", "Paris, FR");
+        bounded.stateFor(1, "loc-3", "Oslo, NO");
+        LocationState london = bounded.stateFor(0, "loc-1", "London, GB");
+        
+        // Partition 0 makes room from its own locations, and Paris was used longest ago
+        bounded.stateFor(0, "loc-4", "Rome, IT");
+        // Nothing is evicted while the batch may still hold the states it looked up
+        assertEquals(3, bounded.locationCount(0));
+        bounded.evictOverCapacity(0);
+        assertEquals(2, bounded.locationCount(0));
+        assertEquals(1, bounded.locationCount(1));
+        assertSame(london, bounded.stateFor(0, "loc-1", "London, GB"));
+        
+        TrendStoreStats stats = bounded.getStats();
+        assertEquals(3, stats.getLocations());
+        assertEquals(1, stats.getEvictedLeastRecentlyUsed());
+        assertEquals(3L * WeatherTrend.memoryLongs(WeatherTrend.DEFAULT_CAPACITY) * Long.BYTES, stats.getBufferBytes());
+    }
+    
+    @Test
+    void testIdleLocationsAreEvictedAsThePartitionIsConsumed() {
+        AtomicLong now = new AtomicLong();
+        PartitionedTrendStore bounded = new PartitionedTrendStore(TrendCheckpoints.disabled(), 0, 60_000, false, now::get);
+        bounded.stateFor(0, "loc-1", "London, GB");
+        now.set(30_000);
+        bounded.stateFor(0, "loc-2", "Paris, FR");
+        
+        now.set(70_000);
+        bounded.markProcessed(0, 10);
+        assertEquals(1, bounded.locationCount(0));
+        assertEquals(1, bounded.getStats().getEvictedIdle());
+    }
+    
+    @Test
+    void testOffHeapTrendsBehaveLikeHeapTrends() {
+        PartitionedTrendStore offHeap = new PartitionedTrendStore(TrendCheckpoints.disabled(), 0, 0, true, () -> 0L);
+        WeatherTrend heap = new WeatherTrend("London, GB");
+        WeatherTrend direct = offHeap.trendFor(0, "loc-1", "London, GB");
+        for (int minute = 0; minute < 60; minute += 5) {
+            double temperature = 10.0 + Math.sin(minute) * 4;
+            heap.update(minute * 60_000L, temperature, 60.0 - minute, 3.0, minute % 3);
+            direct.update(minute * 60_000L, temperature, 60.0 - minute, 3.0, minute % 3);
+        }
+        
+        assertEquals(heap.getTemperatureChange(), direct.getTemperatureChange());
+        for (WeatherTrend.Metric metric : WeatherTrend.Metric.values()) {
+            assertEquals(heap.getWindowMin(metric), direct.getWindowMin(metric));
+            assertEquals(heap.getWindowMax(metric), direct.getWindowMax(metric));
+        }
+        assertTrue(offHeap.getStats().getOffHeapReservedBytes() >= direct.getMemoryBytes());
+        
+        // A released slot is reused by the next location
+        offHeap.onPartitionsRevoked(List.of(partition(0)));
+        assertEquals(0, offHeap.getStats().getBufferBytes());
+        long reserved = offHeap.getStats().getOffHeapReservedBytes();
+        offHeap.trendFor(0, "loc-2", "Paris, FR");
+        assertEquals(reserved, offHeap.getStats().getOffHeapReservedBytes());
+    }
+    
+    private static TopicPartition partition(int partition) {
+        return new TopicPartition(PartitionedTrendStore.TOPIC, partition);
+    }
+}
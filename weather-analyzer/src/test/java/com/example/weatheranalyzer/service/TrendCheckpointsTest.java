@@ -0,0 +1,88 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.ActiveAlert;
+import com.example.weatheranalyzer.model.LocationState;
+import com.example.weatheranalyzer.model.LocationStatistics;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrendCheckpointsTest {
+
+    private static final long START = 1_735_732_800_000L;
+    
+    @TempDir
+    private Path directory;
+    
+    @Test
+    void testStateSurvivesACheckpoint() {
+        TrendCheckpoints checkpoints = new TrendCheckpoints(true, directory.toString(), 30);
+        Map<String, LocationState> locations = new HashMap<>();
+        LocationState london = new LocationState("London, GB");
+        for (int minute = 0; minute <= 40; minute += 5) {
+            london.nextReading();
+            london.getTrend().update(START + minute * 60_000L, 10.0 + minute * 0.2, 60.0, 3.0 + minute, 0.0);
+            london.getStatistics().update(0.1, 10.0 + minute * 0.2, 60.0, 3.0 + minute, 0.0);
+        }
+        ActiveAlert alert = new ActiveAlert("alert-1");
+        alert.setAlertType("HIGH_WIND");
+        alert.setSeverity("MEDIUM");
+        alert.setAlertMessage("Wind at Zürich");
+        alert.setAlertValue(43.0);
+        alert.setLastPublishedAt(START);
+        alert.setLastReading(9);
+        london.getActiveAlerts().put("wind", alert);
+        locations.put("loc-1", london);
+        locations.put("loc-2", new LocationState("Paris, FR"));
+        
+        assertTrue(checkpoints.write(4, 1234, locations));
+        TrendCheckpoints.Checkpoint checkpoint = checkpoints.read(4);
+        
+        assertEquals(1234, checkpoint.nextOffset());
+        assertEquals(2, checkpoint.locations().size());
+        LocationState restored = checkpoint.locations().get("loc-1");
+        WeatherTrend trend = restored.getTrend();
+        assertEquals("London, GB", trend.getLocationName());
+        assertEquals(9, restored.getReadings());
+        assertEquals(london.getTrend().size(), trend.size());
+        assertEquals(london.getTrend().getWindowSize(), trend.getWindowSize());
+        assertEquals(london.getTrend().getTemperatureChange(), trend.getTemperatureChange(), 1e-9);
+        assertEquals(london.getTrend().getWindowMax(WeatherTrend.Metric.WIND_SPEED), trend.getWindowMax(WeatherTrend.Metric.WIND_SPEED));
+        assertEquals(alert, restored.getActiveAlerts().get("wind"));
+        LocationStatistics statistics = restored.getStatistics();
+        assertEquals(9, statistics.getCount());
+        assertEquals(london.getStatistics().getMean(WeatherTrend.Metric.TEMPERATURE), statistics.getMean(WeatherTrend.Metric.TEMPERATURE));
+        assertEquals(london.getStatistics().getVariance(WeatherTrend.Metric.WIND_SPEED), statistics.getVariance(WeatherTrend.Metric.WIND_SPEED));
+        assertEquals(london.getStatistics().getWindSpeed().quantile(0.5), statistics.getWindSpeed().quantile(0.5));
+        assertEquals(london.getStatistics().getTemperature().rank(14.0), statistics.getTemperature().rank(14.0));
+        assertEquals(0, checkpoint.locations().get("loc-2").getTrend().size());
+    }
+    
+    @Test
+    void testMissingOrDamagedCheckpointIsIgnored() throws IOException {
+        TrendCheckpoints checkpoints = new TrendCheckpoints(true, directory.toString(), 30);
+        assertNull(checkpoints.read(0));
+        
+        Map<String, LocationState> locations = Map.of("loc-1", new LocationState("London, GB"));
+        checkpoints.write(0, 10, locations);
+        byte[] bytes = Files.readAllBytes(checkpoints.file(0));
+        bytes[bytes.length - 3] ^= 1;
+        Files.write(checkpoints.file(0), bytes);
+        assertNull(checkpoints.read(0));
+        
+        // A checkpoint copied to another partition's name is not used for it
+        checkpoints.write(1, 10, locations);
+        Files.copy(checkpoints.file(1), checkpoints.file(2));
+        assertNull(checkpoints.read(2));
+    }
+}
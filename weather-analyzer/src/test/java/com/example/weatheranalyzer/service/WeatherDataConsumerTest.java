@@ -0,0 +1,118 @@
+package com.example.weatheranalyzer.service;
+
+import com.example.weatheranalyzer.model.AlertStatus;
+import com.example.weatheranalyzer.model.WeatherAlert;
+import com.example.weatheranalyzer.model.WeatherData;
+import com.example.weatheranalyzer.model.WeatherTrend;
+import com.example.weatheranalyzer.rules.AlertRuleEngine;
+import com.example.weatheranalyzer.rules.BatchRuleEvaluator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WeatherDataConsumerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final long NOW = WeatherTrend.toEpochMillis(START.plusMinutes(20));
+    
+    @Mock
+    private EnhancedWeatherAnalyzer weatherAnalyzer;
+    
+    @Mock
+    private WeatherAlertProducer alertProducer;
+    
+    @Spy
+    private PartitionedTrendStore trendStore = new PartitionedTrendStore();
+    
+    @InjectMocks
+    private WeatherDataConsumer consumer;
+    
+    @Test
+    void testBatchIsSplitByPartitionAndAlertsAreSentOnceBeforeCheckpointing() {
+        WeatherData first = reading("loc-1", 20.0, START);
+        WeatherData second = reading("loc-2", 20.0, START);
+        WeatherData third = reading("loc-1", 20.0, START);
+        WeatherAlert alert1 = new WeatherAlert();
+        WeatherAlert alert2 = new WeatherAlert();
+        when(weatherAnalyzer.analyzeBatch(eq(0), eq(List.of(first, third)), any())).thenReturn(List.of(alert1));
+        when(weatherAnalyzer.analyzeBatch(eq(1), eq(List.of(second)), any())).thenReturn(List.of(alert2));
+        
+        consumer.consume(List.of(
+            record(1, 0, second),
+            record(0, 0, first),
+            record(0, 1, null),
+            record(0, 2, third)
+        ));
+        
+        var order = inOrder(weatherAnalyzer, alertProducer, trendStore);
+        order.verify(weatherAnalyzer).analyzeBatch(eq(0), eq(List.of(first, third)), any());
+        order.verify(weatherAnalyzer).analyzeBatch(eq(1), eq(List.of(second)), any());
+        order.verify(alertProducer).sendAlerts(List.of(alert1, alert2));
+        // Offsets count records without a value too
+        order.verify(trendStore).markProcessed(0, 3L);
+        order.verify(trendStore).markProcessed(1, 1L);
+    }
+    
+    @Test
+    void testRedeliveredBatchPublishesTheAlertsOfAFailedSend() throws IOException {
+        AlertRuleEngine ruleEngine = new AlertRuleEngine(new ClassPathResource("alert-rules.json"), new ObjectMapper());
+        EnhancedWeatherAnalyzer analyzer = new EnhancedWeatherAnalyzer(trendStore, ruleEngine,
+            BatchRuleEvaluator.create(true), new AlertLifecycle(60),
+            new EventTimePolicy(TimeUnit.MINUTES.toMillis(30), "drop", () -> NOW), new AnomalyDetector(0.05, 20, 1.0));
+        consumer = new WeatherDataConsumer(analyzer, alertProducer, trendStore);
+        doThrow(new KafkaException("broker unavailable")).doNothing().when(alertProducer).sendAlerts(anyList());
+        List<ConsumerRecord<String, WeatherData>> batch = List.of(
+            record(0, 0, reading("loc-1", 33.0, START)),
+            record(0, 1, reading("loc-1", 35.0, START.plusMinutes(10)))
+        );
+        
+        assertThrows(KafkaException.class, () -> consumer.consume(batch));
+        verify(trendStore, never()).markProcessed(0, 2L);
+        // The container seeks back and delivers the same records again
+        consumer.consume(batch);
+        
+        ArgumentCaptor<List<WeatherAlert>> sent = ArgumentCaptor.captor();
+        verify(alertProducer, times(2)).sendAlerts(sent.capture());
+        List<WeatherAlert> alerts = sent.getAllValues().get(1);
+        assertEquals(List.of("HIGH_TEMPERATURE"), alerts.stream().map(WeatherAlert::getAlertType).toList());
+        assertEquals(AlertStatus.OPEN, alerts.get(0).getStatus());
+        assertEquals(sent.getAllValues().get(0), alerts);
+        // The readings are in the trend once
+        assertEquals(2, trendStore.stateFor(0, "loc-1", "Location loc-1").getReadings());
+        verify(trendStore).markProcessed(0, 2L);
+    }
+    
+    private static ConsumerRecord<String, WeatherData> record(int partition, long offset, WeatherData value) {
+        return new ConsumerRecord<>("weather-data", partition, offset, value == null ? null : value.getLocationId(), value);
+    }
+    
+    private static WeatherData reading(String locationId, double temperature, LocalDateTime timestamp) {
+        return new WeatherData(locationId, "Location " + locationId, temperature, 60.0, 3.0, "N", 0.0, timestamp);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.weatherproducer.client;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe registry of location IDs, keyed by city name and country code.
+ * IDs are derived from the name, so a city keeps the same ID (and Kafka partition) across restarts.
+ * Entries from a registry file take precedence, which allows pinning IDs that are already in use downstream.
+ */
+@Component
+@Slf4j
+public class LocationRegistry {
+
+    // Namespace for name-based IDs, so they cannot collide with IDs derived elsewhere
+    private static final String ID_NAMESPACE = "openweathermap:";
+    
+    // Country code -> (city name -> location ID); two levels so lookups need no key concatenation
+    private final Map<String, Map<String, String>> idsByCountry = new ConcurrentHashMap<>();
+    
+    // Optional file with "City,CC=locationId" lines to preload
+    @Value("${weather.locations.registry-file:}")
+    private String registryFile;
+    
+    @PostConstruct
+    void preload() {
+        if (registryFile != null && !registryFile.isBlank()) {
+            load(Path.of(registryFile));
+        }
+    }
+    
+    /**
+     * Get the location ID for a city, registering a name-based ID the first time the city is seen
+     */
+    public String getLocationId(String name, String country) {
+        Map<String, String> idsByName = idsByCountry.get(country);
+        if (idsByName != null) {
+            String locationId = idsByName.get(name);
+            if (locationId != null) {
+                return locationId;
+            }
+        }
+        return register(name, country, deriveLocationId(name, country), false);
+    }
+    
+    /**
+     * Number of registered locations
+     */
+    public int size() {
+        return idsByCountry.values().stream().mapToInt(Map::size).sum();
+    }
+    
+    /**
+     * Load "City,CC=locationId" entries from a file. Blank lines and lines starting with # are ignored.
+     */
+    public void load(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read location registry file " + file, e);
+        }
+        
+        int loaded = 0;
+        for (String line : lines) {
+            String entry = line.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            
+            int separator = entry.lastIndexOf('=');
+            int comma = entry.lastIndexOf(',', separator);
+            if (separator < 0 || comma < 0) {
+                log.warn("Ignoring malformed location registry entry: {}", entry);
+                continue;
+            }
+            
+            String name = entry.substring(0, comma).trim();
+            String country = entry.substring(comma + 1, separator).trim();
+            String locationId = entry.substring(separator + 1).trim();
+            register(name, country, locationId, true);
+            loaded++;
+        }
+        
+        log.info("Loaded {} location IDs from {}", loaded, file);
+    }
+    
+    /**
+     * Stable ID for a city, derived from its name and country
+     */
+    static String deriveLocationId(String name, String country) {
+        byte[] key = (ID_NAMESPACE + name + "," + country).getBytes(StandardCharsets.UTF_8);
+        return UUID.nameUUIDFromBytes(key).toString();
+    }
+    
+    private String register(String name, String country, String locationId, boolean replace) {
+        Map<String, String> idsByName = idsByCountry.computeIfAbsent(country, c -> new ConcurrentHashMap<>());
+        if (replace) {
+            idsByName.put(name, locationId);
+            return locationId;
+        }
+        // Concurrent first sightings of a city agree on whichever ID was stored first
+        String existing = idsByName.putIfAbsent(name, locationId);
+        return existing != null ? existing : locationId;
+    }
+}
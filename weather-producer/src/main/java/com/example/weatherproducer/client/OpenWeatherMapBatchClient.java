@@ -0,0 +1,143 @@
+package com.example.weatherproducer.client;
+
+import com.example.weatherproducer.client.OpenWeatherMapClient.OpenWeatherMapResponse;
+import com.example.weatherproducer.model.WeatherData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches several cities per HTTP call using the OpenWeatherMap group endpoint
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class OpenWeatherMapBatchClient {
+
+    // The group endpoint accepts at most 20 city IDs per request
+    static final int MAX_GROUP_SIZE = 20;
+    
+    private final WebClient webClient;
+    private final OpenWeatherMapClient weatherClient;
+    
+    @Value("${openweathermap.api.key}")
+    private String apiKey;
+    
+    /**
+     * Fetch weather data for the given cities, grouping them into as few requests as possible.
+     * Cities without a known ID, or missing from a group response, are fetched one by one.
+     * Cities that still fail are left out of the result.
+     */
+    public Flux<WeatherData> getWeatherForCities(List<String> cities, int concurrency) {
+        Map<Long, String> citiesById = new LinkedHashMap<>();
+        List<String> unknownCities = new ArrayList<>();
+        
+        for (String city : cities) {
+            Long cityId = weatherClient.getCityId(city);
+            if (cityId != null) {
+                citiesById.put(cityId, city);
+            } else {
+                unknownCities.add(city);
+            }
+        }
+        
+        Flux<WeatherData> grouped = Flux.fromIterable(citiesById.entrySet())
+            .buffer(MAX_GROUP_SIZE)
+            .flatMap(this::fetchGroup, concurrency);
+        
+        return Flux.merge(grouped, fetchIndividually(unknownCities, concurrency));
+    }
+    
+    private Flux<WeatherData> fetchGroup(List<Map.Entry<Long, String>> group) {
+        String ids = group.stream()
+            .map(entry -> String.valueOf(entry.getKey()))
+            .collect(Collectors.joining(","));
+        
+        log.info("Fetching weather data for {} cities in one request", group.size());
+        
+        return webClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path("/data/2.5/group")
+                .queryParam("id", ids)
+                .queryParam("units", "metric")
+                .queryParam("appid", apiKey)
+                .build())
+            .retrieve()
+            .bodyToMono(OpenWeatherMapGroupResponse.class)
+            .map(response -> splitGroupResponse(group, response))
+            .onErrorResume(e -> {
+                log.warn("Group request for {} cities failed, falling back to single requests: {}",
+                    group.size(), e.getMessage());
+                return Mono.just(new GroupResult(List.of(), cityNames(group)));
+            })
+            .flatMapMany(result -> Flux.fromIterable(result.readings)
+                .concatWith(fetchIndividually(result.missingCities, 1)));
+    }
+    
+    /**
+     * Split a group response into individual readings and work out which cities it did not cover
+     */
+    private GroupResult splitGroupResponse(List<Map.Entry<Long, String>> group, OpenWeatherMapGroupResponse response) {
+        List<WeatherData> readings = new ArrayList<>();
+        Set<Long> returnedIds = new HashSet<>();
+        
+        if (response.getList() != null) {
+            for (OpenWeatherMapResponse cityResponse : response.getList()) {
+                try {
+                    readings.add(weatherClient.convertToWeatherData(cityResponse));
+                    returnedIds.add(cityResponse.getId());
+                } catch (RuntimeException e) {
+                    log.warn("Skipping malformed entry for city ID {} in group response", cityResponse.getId());
+                }
+            }
+        }
+        
+        List<String> missingCities = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : group) {
+            if (!returnedIds.contains(entry.getKey())) {
+                missingCities.add(entry.getValue());
+            }
+        }
+        
+        return new GroupResult(readings, missingCities);
+    }
+    
+    private Flux<WeatherData> fetchIndividually(List<String> cities, int concurrency) {
+        return Flux.fromIterable(cities)
+            .flatMap(city -> weatherClient.getWeatherForCity(city)
+                    .onErrorResume(e -> Mono.empty()),
+                concurrency);
+    }
+    
+    private List<String> cityNames(List<Map.Entry<Long, String>> group) {
+        return group.stream().map(Map.Entry::getValue).toList();
+    }
+    
+    private record GroupResult(List<WeatherData> readings, List<String> missingCities) {
+    }
+    
+    // Maps the OpenWeatherMap group JSON response
+    
+    public static class OpenWeatherMapGroupResponse {
+        private int cnt;
+        private List<OpenWeatherMapResponse> list;
+        
+        public int getCnt() { return cnt; }
+        public void setCnt(int cnt) { this.cnt = cnt; }
+        
+        public List<OpenWeatherMapResponse> getList() { return list; }
+        public void setList(List<OpenWeatherMapResponse> list) { this.list = list; }
+    }
+}
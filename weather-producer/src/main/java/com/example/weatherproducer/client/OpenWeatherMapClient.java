@@ -1,5 +1,6 @@
 package com.example.weatherproducer.client;
 
+import com.example.weatherproducer.model.CacheStats;
 import com.example.weatherproducer.model.WeatherData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,9 +10,11 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
@@ -19,12 +22,14 @@ import java.util.UUID;
 public class OpenWeatherMapClient {
 
     private final WebClient webClient;
+    private final OpenWeatherMapResponseCache responseCache;
+    private final LocationRegistry locationRegistry;
     
     @Value("${openweathermap.api.key}")
     private String apiKey;
     
-    // Map to store location IDs for consistency
-    private final Map<String, String> locationIdMap = new HashMap<>();
+    // Requests currently in flight, so concurrent callers for the same city share one HTTP call
+    private final Map<String, Mono<OpenWeatherMapResponse>> inFlightRequests = new ConcurrentHashMap<>();
     
     // Pre-defined list of cities for demo purposes
     private final String[] cities = {
@@ -32,42 +37,122 @@ public class OpenWeatherMapClient {
         "Paris,fr", "Berlin,de", "Cairo,eg", "Mumbai,in"
     };
     
+    // Synthetic cities added to the list above, served by the local simulator (see the "simulator" profile)
+    @Value("${weather.synthetic-cities:0}")
+    private int syntheticCities;
+    
+    // OpenWeatherMap city IDs, needed to fetch several cities at once from the group endpoint
+    private final Map<String, Long> cityIds = Map.of(
+        "London,uk", 2643743L, "New York,us", 5128581L, "Tokyo,jp", 1850147L, "Sydney,au", 2147714L,
+        "Paris,fr", 2988507L, "Berlin,de", 2950159L, "Cairo,eg", 360630L, "Mumbai,in", 1275339L
+    );
+    
     /**
      * Fetch weather data for a specific city
      */
     public Mono<WeatherData> getWeatherForCity(String city) {
+        return getWeatherForCity(city, RequestPriority.NORMAL);
+    }
+    
+    /**
+     * Fetch weather data for a specific city; the priority decides its place in the rate limiter queue
+     */
+    public Mono<WeatherData> getWeatherForCity(String city, RequestPriority priority) {
+        return getResponseForCity(city, priority).map(this::convertToWeatherData);
+    }
+    
+    /**
+     * Get the raw API response for a city, served from the cache when it is still fresh.
+     * Concurrent callers for a city that is not cached share a single request,
+     * which keeps the priority of the caller that started it.
+     */
+    Mono<OpenWeatherMapResponse> getResponseForCity(String city, RequestPriority priority) {
+        return Mono.defer(() -> {
+            OpenWeatherMapResponse cached = responseCache.get(city);
+            if (cached != null) {
+                log.debug("Using cached weather data for {}", city);
+                return Mono.just(cached);
+            }
+            return inFlightRequests.computeIfAbsent(city, key -> fetchShared(key, priority));
+        });
+    }
+    
+    /**
+     * Cache and hit/miss counters for the response cache
+     */
+    public CacheStats getCacheStats() {
+        return responseCache.getStats();
+    }
+    
+    private Mono<OpenWeatherMapResponse> fetchShared(String city, RequestPriority priority) {
         log.info("Fetching weather data for {}", city);
         
-        return webClient.get()
+        AtomicReference<Mono<OpenWeatherMapResponse>> shared = new AtomicReference<>();
+        shared.set(webClient.get()
             .uri(uriBuilder -> uriBuilder
                 .path("/data/2.5/weather")
                 .queryParam("q", city)
                 .queryParam("units", "metric")
                 .queryParam("appid", apiKey)
                 .build())
+            .attribute(RequestPriority.ATTRIBUTE, priority)
             .retrieve()
             .bodyToMono(OpenWeatherMapResponse.class)
-            .map(this::convertToWeatherData)
-            .doOnError(e -> log.error("Error fetching weather data: {}", e.getMessage()));
+            // Hand over to the cache before any caller sees the result, so the next caller
+            // finds the cached response rather than starting a new request
+            .doOnNext(response -> responseCache.put(city, response))
+            .doOnError(e -> log.error("Error fetching weather data: {}", e.getMessage()))
+            // The one place the request leaves the in-flight map. It removes only this request, never one a
+            // later caller has started since, and runs before callers see the result, so a caller right after
+            // a failure starts a new request. cache() never cancels its source, so every request ends here.
+            .doOnTerminate(() -> inFlightRequests.remove(city, shared.get()))
+            .cache());
+        return shared.get();
+    }
+    
+    /**
+     * Get every city from our pre-defined list, followed by any synthetic cities
+     */
+    public List<String> getAllCities() {
+        if (syntheticCities <= 0) {
+            return List.of(cities);
+        }
+        List<String> allCities = new ArrayList<>(cities.length + syntheticCities);
+        allCities.addAll(List.of(cities));
+        for (int i = 0; i < syntheticCities; i++) {
+            allCities.add(SyntheticCities.query(i));
+        }
+        return allCities;
+    }
+    
+    /**
+     * Get the OpenWeatherMap city ID for a city, or null if it is not known
+     */
+    public Long getCityId(String city) {
+        Long cityId = cityIds.get(city);
+        if (cityId == null) {
+            int syntheticIndex = SyntheticCities.indexOfQuery(city);
+            if (syntheticIndex >= 0 && syntheticIndex < syntheticCities) {
+                return SyntheticCities.id(syntheticIndex);
+            }
+        }
+        return cityId;
     }
     
     /**
      * Get a random city from our pre-defined list
      */
     public String getRandomCity() {
-        int index = (int) (Math.random() * cities.length);
-        return cities[index];
+        int index = (int) (Math.random() * (cities.length + syntheticCities));
+        return index < cities.length ? cities[index] : SyntheticCities.query(index - cities.length);
     }
     
     /**
      * Convert API response to our internal WeatherData model
      */
-    private WeatherData convertToWeatherData(OpenWeatherMapResponse response) {
-        // Generate consistent locationId for the same city
-        String locationId = locationIdMap.computeIfAbsent(
-            response.getName() + "," + response.getSys().getCountry(),
-            k -> UUID.randomUUID().toString()
-        );
+    WeatherData convertToWeatherData(OpenWeatherMapResponse response) {
+        // Stable locationId for the same city, also across restarts
+        String locationId = locationRegistry.getLocationId(response.getName(), response.getSys().getCountry());
         
         return new WeatherData(
             locationId,
@@ -92,12 +177,16 @@ public class OpenWeatherMapClient {
     // Inner classes to map OpenWeatherMap JSON response
     
     public static class OpenWeatherMapResponse {
+        private long id;
         private MainData main;
         private WindData wind;
         private RainData rain;
         private String name;
         private SysData sys;
         
+        public long getId() { return id; }
+        public void setId(long id) { this.id = id; }
+        
         public MainData getMain() { return main; }
         public void setMain(MainData main) { this.main = main; }
         
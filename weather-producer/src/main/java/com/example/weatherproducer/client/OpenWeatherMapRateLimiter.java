@@ -0,0 +1,313 @@
+package com.example.weatherproducer.client;
+
+import com.example.weatherproducer.model.RateLimiterStats;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Non-blocking token buckets in front of the OpenWeatherMap WebClient, one for the per-minute
+ * and one for the per-day budget. Requests that find no token wait in a queue per
+ * {@link RequestPriority} and are released highest priority first as tokens come back.
+ * The last part of the daily budget is kept for HIGH priority requests.
+ */
+@Component
+@Slf4j
+public class OpenWeatherMapRateLimiter implements ExchangeFilterFunction {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final long NANOS_PER_DAY = TimeUnit.DAYS.toNanos(1);
+    
+    private final double requestsPerMinute;
+    private final double requestsPerDay;
+    private final double burst;
+    private final double highPriorityReserve;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final LongSupplier nanoClock;
+    
+    // Wakes queued requests once the next token is due
+    private final Scheduler timer = Schedulers.newSingle("openweathermap-rate-limiter");
+    
+    // Guarded by this
+    private final Map<RequestPriority, Queue<Waiter>> queues = new EnumMap<>(RequestPriority.class);
+    private int queued;
+    private double minuteTokens;
+    private double dayTokens;
+    private long lastRefill;
+    private Disposable wakeUp;
+    private long granted;
+    private long rejected;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    
+    @Autowired
+    public OpenWeatherMapRateLimiter(
+            @Value("${openweathermap.rate-limit.requests-per-minute:60}") double requestsPerMinute,
+            @Value("${openweathermap.rate-limit.requests-per-day:30000}") double requestsPerDay,
+            @Value("${openweathermap.rate-limit.burst:10}") double burst,
+            @Value("${openweathermap.rate-limit.high-priority-reserve:0.1}") double highPriorityReserve,
+            @Value("${openweathermap.rate-limit.max-queued:1000}") int maxQueued,
+            @Value("${openweathermap.rate-limit.max-wait-seconds:30}") long maxWaitSeconds) {
+        this(requestsPerMinute, requestsPerDay, burst, highPriorityReserve, maxQueued,
+            Duration.ofSeconds(maxWaitSeconds), System::nanoTime);
+    }
+    
+    OpenWeatherMapRateLimiter(double requestsPerMinute, double requestsPerDay, double burst, double highPriorityReserve,
+                              int maxQueued, Duration maxWait, LongSupplier nanoClock) {
+        this.requestsPerMinute = requestsPerMinute;
+        this.requestsPerDay = requestsPerDay;
+        this.burst = Math.max(1, burst);
+        this.highPriorityReserve = highPriorityReserve;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.nanoClock = nanoClock;
+        
+        for (RequestPriority priority : RequestPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+        this.minuteTokens = this.burst;
+        this.dayTokens = requestsPerDay;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+    
+    /**
+     * Send the request once a token is available, using the priority in its {@link RequestPriority#ATTRIBUTE}
+     */
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        RequestPriority priority = (RequestPriority) request.attribute(RequestPriority.ATTRIBUTE)
+            .orElse(RequestPriority.NORMAL);
+        return acquire(priority).then(Mono.defer(() -> next.exchange(request)));
+    }
+    
+    /**
+     * Completes when a token has been taken for one request. Fails with {@link RateLimitExceededException}
+     * if the queue is full or no token is granted within the maximum wait.
+     */
+    public Mono<Void> acquire(RequestPriority priority) {
+        return Mono.<Void>create(sink -> {
+            Waiter waiter = new Waiter(priority, sink, nanoClock.getAsLong());
+            if (!enqueue(waiter)) {
+                sink.error(new RateLimitExceededException("Rate limiter queue is full (" + maxQueued + " requests)"));
+                return;
+            }
+            sink.onCancel(() -> cancel(waiter));
+            drain();
+        }).timeout(maxWait, Mono.error(() -> new RateLimitExceededException(
+            "No OpenWeatherMap request token within " + maxWait.toSeconds() + " s")));
+    }
+    
+    public synchronized RateLimiterStats getStats() {
+        refill(nanoClock.getAsLong());
+        return new RateLimiterStats(
+            minuteTokens,
+            dayTokens,
+            queued,
+            granted,
+            rejected,
+            granted == 0 ? 0.0 : totalWaitNanos / (double) granted / 1_000_000,
+            maxWaitNanos / 1_000_000.0
+        );
+    }
+    
+    @Scheduled(fixedRate = 60000)
+    public void logStats() {
+        RateLimiterStats stats = getStats();
+        if (stats.getGranted() > 0 || stats.getRejected() > 0) {
+            log.info("OpenWeatherMap rate limiter: {} granted, {} rejected, {} queued, {} tokens left this minute, "
+                    + "{} today, avg wait {} ms, max wait {} ms",
+                stats.getGranted(), stats.getRejected(), stats.getQueued(),
+                (long) stats.getMinuteTokensRemaining(), (long) stats.getDayTokensRemaining(),
+                String.format("%.2f", stats.getAverageWaitMillis()), String.format("%.2f", stats.getMaxWaitMillis()));
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        timer.dispose();
+    }
+    
+    /**
+     * Hand out tokens to queued requests, highest priority first, and arrange a wake-up for the rest
+     */
+    void drain() {
+        release(grant());
+    }
+    
+    /**
+     * Take queued requests off the queues and charge a token for each
+     */
+    synchronized List<Waiter> grant() {
+        List<Waiter> ready = new ArrayList<>();
+        long now = nanoClock.getAsLong();
+        refill(now);
+        
+        for (RequestPriority priority : RequestPriority.values()) {
+            Queue<Waiter> queue = queues.get(priority);
+            while (!queue.isEmpty() && hasToken(priority)) {
+                Waiter waiter = queue.poll();
+                queued--;
+                minuteTokens -= 1;
+                dayTokens -= 1;
+                granted++;
+                waiter.waitedNanos = now - waiter.enqueuedAt;
+                totalWaitNanos += waiter.waitedNanos;
+                maxWaitNanos = Math.max(maxWaitNanos, waiter.waitedNanos);
+                ready.add(waiter);
+            }
+        }
+        
+        if (queued > 0 && wakeUp == null) {
+            wakeUp = timer.schedule(() -> {
+                synchronized (this) {
+                    wakeUp = null;
+                }
+                drain();
+            }, nanosUntilNextToken(), TimeUnit.NANOSECONDS);
+        }
+        return ready;
+    }
+    
+    /**
+     * Let granted requests go, outside the lock; each request continues on this thread.
+     * A request cancelled since it was granted gives its token back.
+     */
+    void release(List<Waiter> ready) {
+        boolean refunded = false;
+        for (Waiter waiter : ready) {
+            if (waiter.claimed.compareAndSet(false, true)) {
+                waiter.sink.success();
+            } else {
+                refund(waiter);
+                refunded = true;
+            }
+        }
+        if (refunded) {
+            drain();
+        }
+    }
+    
+    private synchronized boolean enqueue(Waiter waiter) {
+        if (queued >= maxQueued) {
+            rejected++;
+            return false;
+        }
+        queues.get(waiter.priority).add(waiter);
+        queued++;
+        return true;
+    }
+    
+    private void cancel(Waiter waiter) {
+        // A grant that has claimed the waiter lets it go; if the grant comes second, it refunds the token
+        if (waiter.claimed.compareAndSet(false, true)) {
+            synchronized (this) {
+                if (queues.get(waiter.priority).remove(waiter)) {
+                    queued--;
+                    rejected++;
+                }
+            }
+        }
+    }
+    
+    private synchronized void refund(Waiter waiter) {
+        minuteTokens = Math.min(burst, minuteTokens + 1);
+        dayTokens = Math.min(requestsPerDay, dayTokens + 1);
+        granted--;
+        rejected++;
+        totalWaitNanos -= waiter.waitedNanos;
+    }
+    
+    private boolean hasToken(RequestPriority priority) {
+        if (requestsPerMinute > 0 && minuteTokens < 1) {
+            return false;
+        }
+        if (requestsPerDay <= 0) {
+            return true;
+        }
+        // The reserved part of the daily budget is left for high-risk locations
+        double floor = priority == RequestPriority.HIGH ? 1 : 1 + requestsPerDay * highPriorityReserve;
+        return dayTokens >= floor;
+    }
+    
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed <= 0) {
+            return;
+        }
+        lastRefill = now;
+        if (requestsPerMinute > 0) {
+            minuteTokens = Math.min(burst, minuteTokens + elapsed * requestsPerMinute / NANOS_PER_MINUTE);
+        }
+        if (requestsPerDay > 0) {
+            dayTokens = Math.min(requestsPerDay, dayTokens + elapsed * requestsPerDay / NANOS_PER_DAY);
+        }
+    }
+    
+    /**
+     * Time until both buckets could serve the request at the head of the highest non-empty queue
+     */
+    private long nanosUntilNextToken() {
+        RequestPriority next = RequestPriority.LOW;
+        for (RequestPriority priority : RequestPriority.values()) {
+            if (!queues.get(priority).isEmpty()) {
+                next = priority;
+                break;
+            }
+        }
+        
+        long wait = 0;
+        if (requestsPerMinute > 0 && minuteTokens < 1) {
+            wait = (long) Math.ceil((1 - minuteTokens) * NANOS_PER_MINUTE / requestsPerMinute);
+        }
+        if (requestsPerDay > 0) {
+            double floor = next == RequestPriority.HIGH ? 1 : 1 + requestsPerDay * highPriorityReserve;
+            if (dayTokens < floor) {
+                wait = Math.max(wait, (long) Math.ceil((floor - dayTokens) * NANOS_PER_DAY / requestsPerDay));
+            }
+        }
+        return Math.max(wait, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    
+    /**
+     * A request waiting for a token. Granting and cancelling both claim it, and only the first one counts.
+     */
+    static final class Waiter {
+        private final RequestPriority priority;
+        private final MonoSink<Void> sink;
+        private final long enqueuedAt;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        
+        // Guarded by the limiter
+        private long waitedNanos;
+        
+        Waiter(RequestPriority priority, MonoSink<Void> sink, long enqueuedAt) {
+            this.priority = priority;
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.weatherproducer.client;
+
+import com.example.weatherproducer.client.OpenWeatherMapClient.OpenWeatherMapResponse;
+import com.example.weatherproducer.model.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of recent OpenWeatherMap responses, keyed by city.
+ * Entries expire after a fixed TTL; when the cache is full the oldest entry is evicted.
+ */
+@Component
+@Slf4j
+public class OpenWeatherMapResponseCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    @Autowired
+    public OpenWeatherMapResponseCache(
+            @Value("${openweathermap.cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${openweathermap.cache.max-entries:1000}") int maxEntries) {
+        this(ttlSeconds, maxEntries, System::nanoTime);
+    }
+    
+    OpenWeatherMapResponseCache(long ttlSeconds, int maxEntries, LongSupplier nanoClock) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+    
+    /**
+     * Get a cached response for the city, or null if there is none or it has expired
+     */
+    public OpenWeatherMapResponse get(String city) {
+        CachedResponse cached = entries.get(city);
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        
+        if (isExpired(cached, nanoClock.getAsLong())) {
+            if (entries.remove(city, cached)) {
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        
+        hits.incrementAndGet();
+        return cached.response;
+    }
+    
+    /**
+     * Store a fresh response for the city, evicting old entries if the cache is full
+     */
+    public void put(String city, OpenWeatherMapResponse response) {
+        // A TTL of zero disables caching
+        if (ttlNanos <= 0 || maxEntries <= 0) {
+            return;
+        }
+        
+        entries.put(city, new CachedResponse(response, nanoClock.getAsLong()));
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+    
+    public CacheStats getStats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+    }
+    
+    /**
+     * Drop expired entries first, then the oldest ones until the cache fits again
+     */
+    private void evict() {
+        long now = nanoClock.getAsLong();
+        Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (isExpired(iterator.next().getValue(), now)) {
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        
+        while (entries.size() > maxEntries) {
+            Map.Entry<String, CachedResponse> oldest = null;
+            for (Map.Entry<String, CachedResponse> entry : entries.entrySet()) {
+                if (oldest == null || entry.getValue().storedAt < oldest.getValue().storedAt) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest.getKey(), oldest.getValue())) {
+                evictions.incrementAndGet();
+                log.debug("Evicted cached weather response for {}", oldest.getKey());
+            }
+        }
+    }
+    
+    private boolean isExpired(CachedResponse cached, long now) {
+        return now - cached.storedAt >= ttlNanos;
+    }
+    
+    private record CachedResponse(OpenWeatherMapResponse response, long storedAt) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.weatherproducer.client;
+
+/**
+ * An OpenWeatherMap request was not sent because the rate limiter queue was full
+ * or no token became available in time
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.weatherproducer.client;
+
+/**
+ * Order in which queued OpenWeatherMap requests get a rate limiter token
+ */
+public enum RequestPriority {
+    // Locations close to alert conditions
+    HIGH,
+    // Regular polling
+    NORMAL,
+    // Warm-up and other requests that can wait
+    LOW;
+    
+    // WebClient request attribute carrying the priority; requests without it count as NORMAL
+    public static final String ATTRIBUTE = RequestPriority.class.getName();
+}
@@ -0,0 +1,51 @@
+package com.example.weatherproducer.client;
+
+/**
+ * Naming scheme for synthetic cities, which only the local OpenWeatherMap simulator knows about.
+ * City n is queried as "Sim City 0000n,zz" and has city ID 9000000 + n.
+ */
+public final class SyntheticCities {
+
+    public static final String COUNTRY = "ZZ";
+    
+    private static final String NAME_PREFIX = "Sim City ";
+    private static final String QUERY_SUFFIX = ",zz";
+    private static final long FIRST_ID = 9_000_000L;
+    
+    private SyntheticCities() {
+    }
+    
+    public static String name(int index) {
+        return NAME_PREFIX + String.format("%05d", index);
+    }
+    
+    public static String query(int index) {
+        return name(index) + QUERY_SUFFIX;
+    }
+    
+    public static long id(int index) {
+        return FIRST_ID + index;
+    }
+    
+    /**
+     * Index of a synthetic city query, or -1 for any other city
+     */
+    public static int indexOfQuery(String query) {
+        if (query == null || !query.startsWith(NAME_PREFIX) || !query.endsWith(QUERY_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(query.substring(NAME_PREFIX.length(), query.length() - QUERY_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Index of a synthetic city ID, or -1 for any other ID
+     */
+    public static int indexOfId(long id) {
+        long index = id - FIRST_ID;
+        return index >= 0 && index < 100_000 ? (int) index : -1;
+    }
+}
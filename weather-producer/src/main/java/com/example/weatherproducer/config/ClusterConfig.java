@@ -0,0 +1,81 @@
+package com.example.weatherproducer.config;
+
+import com.example.weatherproducer.service.PollingShardManager;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cluster membership for sharded polling. Each instance joins one consumer group on the
+ * coordination topic; the partitions it is assigned are the shards it polls.
+ * No records are ever written to the topic.
+ */
+@Configuration
+@ConditionalOnProperty(name = "weather.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+    
+    @Value("${weather.cluster.topic:weather-producer-cluster}")
+    private String topic;
+    
+    @Value("${weather.cluster.group-id:weather-producer-cluster}")
+    private String groupId;
+    
+    // Must not change while instances are running, or cities move between shards
+    @Value("${weather.cluster.shards:64}")
+    private int shards;
+    
+    @Value("${weather.cluster.replication-factor:1}")
+    private short replicationFactor;
+    
+    // How quickly the shards of an instance that stopped without leaving are handed to the others
+    @Value("${weather.cluster.session-timeout-ms:10000}")
+    private int sessionTimeoutMs;
+    
+    @Bean
+    public NewTopic clusterTopic() {
+        return TopicBuilder.name(topic)
+            .partitions(shards)
+            .replicas(replicationFactor)
+            .build();
+    }
+    
+    @Bean
+    public KafkaMessageListenerContainer<byte[], byte[]> clusterMembershipContainer(PollingShardManager shardManager) {
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setGroupId(groupId);
+        containerProperties.setConsumerRebalanceListener(shardManager);
+        containerProperties.setMessageListener((MessageListener<byte[], byte[]>) record -> {
+            // Membership only; nothing is published to the coordination topic
+        });
+        return new KafkaMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(consumerProperties()), containerProperties);
+    }
+    
+    Map<String, Object> consumerProperties() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        // Incremental rebalancing: only the shards that move are revoked, the rest keep polling
+        configProps.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMs);
+        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, Math.max(1000, sessionTimeoutMs / 3));
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return configProps;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.weatherproducer.config;
 
 import com.example.weatherproducer.model.WeatherData;
+import com.example.weatherproducer.serialization.WeatherDataSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +10,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,17 +20,52 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // "json" or "binary"; switch to binary once every consumer reads both
+    @Value("${weather.kafka.wire-format:json}")
+    private String wireFormat;
+
+    // Producer tuning; the defaults match the Kafka client defaults,
+    // the "throughput" profile trades a little latency for larger compressed batches
+    @Value("${weather.kafka.producer.acks:all}")
+    private String acks;
+
+    @Value("${weather.kafka.producer.enable-idempotence:true}")
+    private boolean enableIdempotence;
+
+    @Value("${weather.kafka.producer.batch-size:16384}")
+    private int batchSize;
+
+    @Value("${weather.kafka.producer.linger-ms:0}")
+    private int lingerMs;
+
+    @Value("${weather.kafka.producer.compression-type:none}")
+    private String compressionType;
+
+    @Value("${weather.kafka.producer.buffer-memory:33554432}")
+    private long bufferMemory;
+
     @Bean
     public ProducerFactory<String, WeatherData> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return new DefaultKafkaProducerFactory<>(producerProperties());
     }
 
     @Bean
     public KafkaTemplate<String, WeatherData> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    Map<String, Object> producerProperties() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, WeatherDataSerializer.class);
+        configProps.put(WeatherDataSerializer.WIRE_FORMAT_CONFIG, wireFormat);
+        configProps.put(ProducerConfig.ACKS_CONFIG, acks);
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, enableIdempotence);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        return configProps;
+    }
 }
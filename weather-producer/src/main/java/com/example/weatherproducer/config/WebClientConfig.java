@@ -1,5 +1,7 @@
 package com.example.weatherproducer.config;
 
+import com.example.weatherproducer.client.OpenWeatherMapRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -7,10 +9,17 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class WebClientConfig {
 
+    @Value("${openweathermap.api.base-url:https://api.openweathermap.org}")
+    private String baseUrl;
+    
+    /**
+     * Client for the OpenWeatherMap API; every request passes through the rate limiter
+     */
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(OpenWeatherMapRateLimiter rateLimiter) {
         return WebClient.builder()
-            .baseUrl("https://api.openweathermap.org")
+            .baseUrl(baseUrl)
+            .filter(rateLimiter)
             .build();
     }
 }
@@ -1,14 +1,20 @@
 package com.example.weatherproducer.controller;
 
+import com.example.weatherproducer.model.BulkIngestResult;
 import com.example.weatherproducer.model.WeatherData;
+import com.example.weatherproducer.service.WeatherIngestService;
 import com.example.weatherproducer.service.WeatherKafkaProducer;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 
@@ -18,15 +24,28 @@ import java.time.LocalDateTime;
 public class WeatherController {
 
     private final WeatherKafkaProducer producer;
-
+    private final WeatherIngestService ingestService;
+    
+    /**
+     * Responds once Kafka has acknowledged the reading, without holding a thread while waiting
+     */
     @PostMapping
-    public ResponseEntity<WeatherData> publishWeatherData(@RequestBody WeatherData weatherData) {
+    public Mono<ResponseEntity<WeatherData>> publishWeatherData(@RequestBody WeatherData weatherData) {
         // Set current timestamp if not provided
         if (weatherData.getTimestamp() == null) {
             weatherData.setTimestamp(LocalDateTime.now());
         }
         
-        producer.sendWeatherData(weatherData);
-        return new ResponseEntity<>(weatherData, HttpStatus.CREATED);
+        return producer.publish(weatherData)
+            .then(Mono.just(new ResponseEntity<>(weatherData, HttpStatus.CREATED)))
+            .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()));
+    }
+    
+    /**
+     * Bulk ingest of newline-delimited JSON or a JSON array, decoded record by record as the body arrives
+     */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<BulkIngestResult> publishBulk(@RequestBody Flux<JsonNode> records) {
+        return ingestService.ingest(records);
     }
 }
@@ -0,0 +1,17 @@
+package com.example.weatherproducer.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingest request. A record is accepted once Kafka has acknowledged it;
+ * error is set when the body could not be read to the end.
+ */
+@Value
+public class BulkIngestResult {
+    int accepted;
+    int rejected;
+    List<IngestBatchResult> batches;
+    String error;
+}
@@ -0,0 +1,14 @@
+package com.example.weatherproducer.model;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the weather response cache counters
+ */
+@Value
+public class CacheStats {
+    long hits;
+    long misses;
+    long evictions;
+    int size;
+}
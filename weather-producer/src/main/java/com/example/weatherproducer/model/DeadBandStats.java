@@ -0,0 +1,14 @@
+package com.example.weatherproducer.model;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the dead-band filter: readings let through and readings dropped as unchanged
+ */
+@Value
+public class DeadBandStats {
+    long published;
+    long suppressed;
+    double suppressionRatio;
+    int locations;
+}
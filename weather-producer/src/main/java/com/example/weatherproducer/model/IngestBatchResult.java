@@ -0,0 +1,13 @@
+package com.example.weatherproducer.model;
+
+import lombok.Value;
+
+/**
+ * Outcome of one batch of a bulk ingest request
+ */
+@Value
+public class IngestBatchResult {
+    int batch;
+    int accepted;
+    int rejected;
+}
@@ -0,0 +1,14 @@
+package com.example.weatherproducer.model;
+
+import lombok.Value;
+
+/**
+ * Outcome of one polling cycle over the configured cities
+ */
+@Value
+public class PollingCycleSummary {
+    int cities;
+    int succeeded;
+    int failed;
+    long durationMillis;
+}
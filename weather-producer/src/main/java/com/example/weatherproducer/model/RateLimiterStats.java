@@ -0,0 +1,17 @@
+package com.example.weatherproducer.model;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the OpenWeatherMap rate limiter: remaining budget and time requests spent queued
+ */
+@Value
+public class RateLimiterStats {
+    double minuteTokensRemaining;
+    double dayTokensRemaining;
+    int queued;
+    long granted;
+    long rejected;
+    double averageWaitMillis;
+    double maxWaitMillis;
+}
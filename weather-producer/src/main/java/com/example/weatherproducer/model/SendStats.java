@@ -0,0 +1,15 @@
+package com.example.weatherproducer.model;
+
+import lombok.Value;
+
+/**
+ * Snapshot of Kafka send counters and completion latency for one topic
+ */
+@Value
+public class SendStats {
+    String topic;
+    long sent;
+    long failed;
+    double averageLatencyMillis;
+    double maxLatencyMillis;
+}
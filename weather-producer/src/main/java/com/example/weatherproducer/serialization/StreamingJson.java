@@ -0,0 +1,241 @@
+package com.example.weatherproducer.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Helpers shared by the hand-written JSON codecs. They read and write fields straight from the
+ * Jackson token stream, without databind, and reuse per-thread output buffers.
+ */
+final class StreamingJson {
+
+    static final JsonFactory FACTORY = new JsonFactory();
+    
+    // Output and timestamp buffers are reused per thread; only the final record bytes are allocated
+    private static final ThreadLocal<ByteArrayBuilder> OUTPUT = ThreadLocal.withInitial(() -> new ByteArrayBuilder(256));
+    private static final ThreadLocal<char[]> TIMESTAMP_CHARS = ThreadLocal.withInitial(() -> new char[29]);
+    
+    private StreamingJson() {
+    }
+    
+    @FunctionalInterface
+    interface Writer<T> {
+        void write(JsonGenerator generator, T value) throws IOException;
+    }
+    
+    static <T> byte[] write(T value, Writer<T> writer) throws IOException {
+        ByteArrayBuilder output = OUTPUT.get();
+        output.reset();
+        try (JsonGenerator generator = FACTORY.createGenerator(output)) {
+            writer.write(generator, value);
+        }
+        return output.toByteArray();
+    }
+    
+    static JsonParser startObject(byte[] data) throws IOException {
+        JsonParser parser = FACTORY.createParser(data);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.close();
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+        return parser;
+    }
+    
+    static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a string for " + parser.currentName());
+        }
+        return parser.getText();
+    }
+    
+    static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return 0.0;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "Invalid number for " + parser.currentName(), e);
+            }
+        }
+        throw new JsonParseException(parser, "Expected a number for " + parser.currentName());
+    }
+    
+    /**
+     * Reads an ISO local date-time string, or the [year, month, day, hour, minute, second, nano]
+     * array form written when dates are serialized as timestamps
+     */
+    static LocalDateTime readTimestamp(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            LocalDateTime parsed = parseIso(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            if (parsed != null) {
+                return parsed;
+            }
+            try {
+                // Anything unusual, such as an offset suffix, goes through the regular parser
+                return LocalDateTime.parse(parser.getText().trim(), DateTimeFormatter.ISO_DATE_TIME);
+            } catch (DateTimeParseException e) {
+                throw new JsonParseException(parser, "Invalid timestamp " + parser.getText(), e);
+            }
+        }
+        if (token == JsonToken.START_ARRAY) {
+            int[] parts = new int[7];
+            int count = 0;
+            while (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+                if (count < parts.length) {
+                    parts[count] = parser.getIntValue();
+                }
+                count++;
+            }
+            if (count < 5 || count > 7 || parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Invalid timestamp array");
+            }
+            return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+        }
+        throw new JsonParseException(parser, "Expected a timestamp for " + parser.currentName());
+    }
+    
+    /**
+     * Parses yyyy-MM-ddTHH:mm[:ss[.fffffffff]] directly from the parser's character buffer.
+     * Returns null for anything else so the caller can fall back to the JDK parser.
+     */
+    static LocalDateTime parseIso(char[] chars, int offset, int length) {
+        if (length < 16 || chars[offset + 4] != '-' || chars[offset + 7] != '-'
+                || (chars[offset + 10] != 'T' && chars[offset + 10] != 't') || chars[offset + 13] != ':') {
+            return null;
+        }
+        int year = digits(chars, offset, 4);
+        int month = digits(chars, offset + 5, 2);
+        int day = digits(chars, offset + 8, 2);
+        int hour = digits(chars, offset + 11, 2);
+        int minute = digits(chars, offset + 14, 2);
+        if ((year | month | day | hour | minute) < 0) {
+            return null;
+        }
+        
+        int second = 0;
+        int nano = 0;
+        int position = offset + 16;
+        int end = offset + length;
+        if (position < end) {
+            if (position + 3 > end || chars[position] != ':') {
+                return null;
+            }
+            second = digits(chars, position + 1, 2);
+            if (second < 0) {
+                return null;
+            }
+            position += 3;
+            if (position < end) {
+                if (chars[position] != '.') {
+                    return null;
+                }
+                position++;
+                int fractionDigits = end - position;
+                if (fractionDigits < 1 || fractionDigits > 9) {
+                    return null;
+                }
+                nano = digits(chars, position, fractionDigits);
+                if (nano < 0) {
+                    return null;
+                }
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (RuntimeException e) {
+            // Out of range field, e.g. month 13
+            return null;
+        }
+    }
+    
+    /**
+     * Writes the timestamp as yyyy-MM-ddTHH:mm:ss with milli, micro or nano precision as needed
+     */
+    static void writeTimestamp(JsonGenerator generator, LocalDateTime timestamp) throws IOException {
+        if (timestamp == null) {
+            generator.writeNull();
+            return;
+        }
+        int year = timestamp.getYear();
+        if (year < 0 || year > 9999) {
+            generator.writeString(timestamp.toString());
+            return;
+        }
+        
+        char[] chars = TIMESTAMP_CHARS.get();
+        putDigits(chars, 0, year, 4);
+        chars[4] = '-';
+        putDigits(chars, 5, timestamp.getMonthValue(), 2);
+        chars[7] = '-';
+        putDigits(chars, 8, timestamp.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        putDigits(chars, 11, timestamp.getHour(), 2);
+        chars[13] = ':';
+        putDigits(chars, 14, timestamp.getMinute(), 2);
+        chars[16] = ':';
+        putDigits(chars, 17, timestamp.getSecond(), 2);
+        int length = 19;
+        
+        int nano = timestamp.getNano();
+        if (nano != 0) {
+            chars[length++] = '.';
+            if (nano % 1_000_000 == 0) {
+                putDigits(chars, length, nano / 1_000_000, 3);
+                length += 3;
+            } else if (nano % 1000 == 0) {
+                putDigits(chars, length, nano / 1000, 6);
+                length += 6;
+            } else {
+                putDigits(chars, length, nano, 9);
+                length += 9;
+            }
+        }
+        generator.writeString(chars, 0, length);
+    }
+    
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+    
+    private static void putDigits(char[] chars, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.weatherproducer.serialization;
+
+import com.example.weatherproducer.model.WeatherData;
+
+/**
+ * Binary encoding of {@link WeatherData}, see {@link BinaryEncoding} for the layout
+ */
+public final class WeatherDataCodec {
+
+    private WeatherDataCodec() {
+    }
+    
+    public static byte[] encode(WeatherData data) {
+        BinaryEncoding.Writer writer = new BinaryEncoding.Writer(128, BinaryEncoding.TYPE_WEATHER_DATA);
+        writer.writeString(data.getLocationId());
+        writer.writeString(data.getLocationName());
+        writer.writeDouble(data.getTemperature());
+        writer.writeDouble(data.getHumidity());
+        writer.writeDouble(data.getWindSpeed());
+        writer.writeString(data.getWindDirection());
+        writer.writeDouble(data.getPrecipitation());
+        writer.writeTimestamp(data.getTimestamp());
+        return writer.toByteArray();
+    }
+    
+    public static WeatherData decode(byte[] bytes) {
+        BinaryEncoding.Reader reader = new BinaryEncoding.Reader(bytes, BinaryEncoding.TYPE_WEATHER_DATA);
+        WeatherData data = new WeatherData();
+        data.setLocationId(reader.readString());
+        data.setLocationName(reader.readString());
+        data.setTemperature(reader.readDouble());
+        data.setHumidity(reader.readDouble());
+        data.setWindSpeed(reader.readDouble());
+        data.setWindDirection(reader.readString());
+        data.setPrecipitation(reader.readDouble());
+        data.setTimestamp(reader.readTimestamp());
+        return data;
+    }
+}
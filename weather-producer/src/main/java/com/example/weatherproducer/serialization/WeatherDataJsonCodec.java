@@ -0,0 +1,58 @@
+package com.example.weatherproducer.serialization;
+
+import com.example.weatherproducer.model.WeatherData;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * JSON encoding of {@link WeatherData} on the Jackson streaming API, field for field compatible
+ * with the databind output it replaces
+ */
+public final class WeatherDataJsonCodec {
+
+    private WeatherDataJsonCodec() {
+    }
+    
+    public static byte[] encode(WeatherData data) throws IOException {
+        return StreamingJson.write(data, WeatherDataJsonCodec::write);
+    }
+    
+    public static WeatherData decode(byte[] bytes) throws IOException {
+        try (JsonParser parser = StreamingJson.startObject(bytes)) {
+            WeatherData data = new WeatherData();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                switch (field) {
+                    case "locationId" -> data.setLocationId(StreamingJson.readString(parser));
+                    case "locationName" -> data.setLocationName(StreamingJson.readString(parser));
+                    case "temperature" -> data.setTemperature(StreamingJson.readDouble(parser));
+                    case "humidity" -> data.setHumidity(StreamingJson.readDouble(parser));
+                    case "windSpeed" -> data.setWindSpeed(StreamingJson.readDouble(parser));
+                    case "windDirection" -> data.setWindDirection(StreamingJson.readString(parser));
+                    case "precipitation" -> data.setPrecipitation(StreamingJson.readDouble(parser));
+                    case "timestamp" -> data.setTimestamp(StreamingJson.readTimestamp(parser));
+                    // Unknown fields are ignored, as with the previous deserializer
+                    default -> parser.skipChildren();
+                }
+            }
+            return data;
+        }
+    }
+    
+    private static void write(JsonGenerator generator, WeatherData data) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("locationId", data.getLocationId());
+        generator.writeStringField("locationName", data.getLocationName());
+        generator.writeNumberField("temperature", data.getTemperature());
+        generator.writeNumberField("humidity", data.getHumidity());
+        generator.writeNumberField("windSpeed", data.getWindSpeed());
+        generator.writeStringField("windDirection", data.getWindDirection());
+        generator.writeNumberField("precipitation", data.getPrecipitation());
+        generator.writeFieldName("timestamp");
+        StreamingJson.writeTimestamp(generator, data.getTimestamp());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.weatherproducer.serialization;
+
+import com.example.weatherproducer.model.WeatherData;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes {@link WeatherData} as JSON or in the compact binary format, chosen by {@link #WIRE_FORMAT_CONFIG}
+ */
+public class WeatherDataSerializer implements Serializer<WeatherData> {
+
+    public static final String WIRE_FORMAT_CONFIG = "weather.wire-format";
+    
+    private WireFormat wireFormat;
+    
+    public WeatherDataSerializer() {
+        this(WireFormat.JSON);
+    }
+    
+    public WeatherDataSerializer(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(WIRE_FORMAT_CONFIG);
+        if (format != null) {
+            wireFormat = WireFormat.from(format.toString());
+        }
+    }
+    
+    @Override
+    public byte[] serialize(String topic, WeatherData data) {
+        if (data == null) {
+            return null;
+        }
+        if (wireFormat == WireFormat.BINARY) {
+            return WeatherDataCodec.encode(data);
+        }
+        try {
+            return WeatherDataJsonCodec.encode(data);
+        } catch (IOException e) {
+            throw new SerializationException("Error serializing weather data for " + data.getLocationId(), e);
+        }
+    }
+}
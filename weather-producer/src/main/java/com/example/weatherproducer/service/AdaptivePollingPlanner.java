@@ -0,0 +1,316 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.client.RequestPriority;
+import com.example.weatherproducer.model.WeatherData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when each city is polled in "adaptive" mode.
+ * Cities whose readings change quickly or sit near alert thresholds are polled as often as every
+ * {@code min-interval-seconds}, calm ones as rarely as every {@code max-interval-seconds}.
+ * A global budget caps the request rate; when the wanted intervals add up to more than the budget,
+ * every interval is stretched by the same factor and the most overdue cities go first.
+ * Nearness is judged against {@code weather.polling.adaptive.*} thresholds, which mirror the Weather
+ * Analyzer's default rules; keep them in step when those rules change.
+ */
+@Component
+@Slf4j
+public class AdaptivePollingPlanner {
+
+    // How far below a threshold a reading starts to count as close to it
+    private static final double TEMP_MARGIN = 4.0;
+    private static final double WIND_MARGIN = 5.0;
+    private static final double RAIN_MARGIN = 3.0;
+    
+    // Rates of change, per minute, that count as fully volatile: 5 °C, 5 m/s or 5 mm within 30 minutes
+    private static final double VOLATILE_TEMP_RATE = 5.0 / 30;
+    private static final double VOLATILE_WIND_RATE = 5.0 / 30;
+    private static final double VOLATILE_RAIN_RATE = 5.0 / 30;
+    
+    // Volatility rises with the newest reading at once and keeps this share of its previous value otherwise
+    private static final double VOLATILITY_DECAY = 0.5;
+    
+    // Urgency from which a city's requests jump the rate limiter queue
+    private static final double HIGH_PRIORITY_URGENCY = 0.5;
+    
+    // Seconds of budget that may be spent at once after an idle period
+    private static final double BURST_SECONDS = 10;
+    
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private final double requestsPerMinute;
+    private final AlertThresholds thresholds;
+    private final LongSupplier nanoClock;
+    
+    // Cities waiting for their next poll, earliest first
+    private final PriorityQueue<ScheduledPoll> queue = new PriorityQueue<>();
+    private final Map<String, LocationState> states = new HashMap<>();
+    
+    // Polls per minute the current intervals would need, before stretching to the budget
+    private double demandPerMinute;
+    
+    private double tokens;
+    private long lastRefill;
+    
+    // Numbers queue entries: orders cities due at the same time first come, first served,
+    // and identifies the one live entry of each city
+    private long sequence;
+    
+    @Autowired
+    public AdaptivePollingPlanner(@Value("${weather.polling.adaptive.min-interval-seconds:60}") long minIntervalSeconds,
+                                  @Value("${weather.polling.adaptive.max-interval-seconds:1800}") long maxIntervalSeconds,
+                                  @Value("${weather.polling.adaptive.requests-per-minute:60}") double requestsPerMinute,
+                                  @Value("${weather.polling.adaptive.high-temperature:32.0}") double highTemperature,
+                                  @Value("${weather.polling.adaptive.low-temperature:0.0}") double lowTemperature,
+                                  @Value("${weather.polling.adaptive.high-wind-speed:15.0}") double highWindSpeed,
+                                  @Value("${weather.polling.adaptive.heavy-precipitation:5.0}") double heavyPrecipitation) {
+        this(minIntervalSeconds, maxIntervalSeconds, requestsPerMinute,
+            new AlertThresholds(highTemperature, lowTemperature, highWindSpeed, heavyPrecipitation), System::nanoTime);
+    }
+    
+    AdaptivePollingPlanner(long minIntervalSeconds, long maxIntervalSeconds, double requestsPerMinute,
+                           AlertThresholds thresholds, LongSupplier nanoClock) {
+        this.minIntervalNanos = TimeUnit.SECONDS.toNanos(minIntervalSeconds);
+        this.maxIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(minIntervalSeconds, maxIntervalSeconds));
+        this.requestsPerMinute = requestsPerMinute;
+        this.thresholds = thresholds;
+        this.nanoClock = nanoClock;
+        this.lastRefill = nanoClock.getAsLong();
+        this.tokens = 1;
+    }
+    
+    /**
+     * Plan exactly these cities: new ones are due immediately, cities not in the list are dropped
+     */
+    public synchronized void retain(Collection<String> cities) {
+        Set<String> keep = new HashSet<>(cities);
+        Iterator<Map.Entry<String, LocationState>> iterator = states.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, LocationState> entry = iterator.next();
+            if (!keep.contains(entry.getKey())) {
+                demandPerMinute -= entry.getValue().pollsPerMinute();
+                iterator.remove();
+            }
+        }
+        register(cities);
+    }
+    
+    /**
+     * Add cities that are not planned yet; they are due immediately
+     */
+    public synchronized void register(Collection<String> cities) {
+        long now = nanoClock.getAsLong();
+        for (String city : cities) {
+            if (!states.containsKey(city)) {
+                LocationState state = new LocationState(maxIntervalNanos);
+                states.put(city, state);
+                demandPerMinute += state.pollsPerMinute();
+                state.sequence = sequence++;
+                queue.add(new ScheduledPoll(city, now, state.sequence));
+            }
+        }
+    }
+    
+    /**
+     * Remove and return the cities due now, as many as the budget allows.
+     * Each one must be handed back through {@link #recordReading} or {@link #recordFailure}.
+     */
+    public synchronized List<String> takeDue() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        
+        List<String> due = new ArrayList<>();
+        while (tokens >= 1 && !queue.isEmpty() && queue.peek().dueAt - now <= 0) {
+            ScheduledPoll poll = queue.poll();
+            // Skip entries of dropped cities and entries superseded by a later schedule of the same city
+            LocationState state = states.get(poll.city);
+            if (state != null && poll.sequence == state.sequence) {
+                due.add(poll.city);
+                tokens -= 1;
+            }
+        }
+        return due;
+    }
+    
+    /**
+     * Plan the next poll of a city from its newest reading
+     */
+    public synchronized void recordReading(String city, WeatherData reading) {
+        LocationState state = states.get(city);
+        if (state == null) {
+            return;
+        }
+        
+        long now = nanoClock.getAsLong();
+        if (state.lastReading != null && now > state.lastReadingAt) {
+            double minutes = (now - state.lastReadingAt) / (double) TimeUnit.MINUTES.toNanos(1);
+            double volatility = volatility(state.lastReading, reading, minutes);
+            state.volatility = Math.max(volatility, VOLATILITY_DECAY * state.volatility);
+        }
+        state.lastReading = reading;
+        state.lastReadingAt = now;
+        
+        double urgency = Math.min(1.0, Math.max(state.volatility, nearness(reading)));
+        state.urgency = urgency;
+        long interval = intervalFor(urgency);
+        if (interval != state.intervalNanos) {
+            log.debug("Polling {} every {} s (urgency {})", city, TimeUnit.NANOSECONDS.toSeconds(interval),
+                String.format("%.2f", urgency));
+        }
+        schedule(city, state, interval, now);
+    }
+    
+    /**
+     * Plan the next poll of a city whose request failed, keeping its current interval
+     */
+    public synchronized void recordFailure(String city) {
+        LocationState state = states.get(city);
+        if (state != null) {
+            schedule(city, state, state.intervalNanos, nanoClock.getAsLong());
+        }
+    }
+    
+    /**
+     * Rate limiter priority for the next request of a city: HIGH while its last reading was urgent
+     */
+    public synchronized RequestPriority priorityOf(String city) {
+        LocationState state = states.get(city);
+        return state != null && state.urgency >= HIGH_PRIORITY_URGENCY ? RequestPriority.HIGH : RequestPriority.NORMAL;
+    }
+    
+    /**
+     * Current polling interval of a city in seconds, or -1 if it is not planned
+     */
+    public synchronized long getIntervalSeconds(String city) {
+        LocationState state = states.get(city);
+        return state == null ? -1 : TimeUnit.NANOSECONDS.toSeconds(stretched(state.intervalNanos));
+    }
+    
+    /**
+     * Number of planned cities
+     */
+    public synchronized int size() {
+        return states.size();
+    }
+    
+    /**
+     * Polls per minute needed to keep every city on its interval; at most the budget is spent
+     */
+    public synchronized double getDemandPerMinute() {
+        return demandPerMinute;
+    }
+    
+    public double getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+    
+    private void schedule(String city, LocationState state, long intervalNanos, long now) {
+        demandPerMinute -= state.pollsPerMinute();
+        state.intervalNanos = intervalNanos;
+        demandPerMinute += state.pollsPerMinute();
+        state.sequence = sequence++;
+        queue.add(new ScheduledPoll(city, now + stretched(intervalNanos), state.sequence));
+    }
+    
+    /**
+     * Lengthen an interval so that all cities together stay within the budget
+     */
+    private long stretched(long intervalNanos) {
+        double factor = demandPerMinute > requestsPerMinute ? demandPerMinute / requestsPerMinute : 1.0;
+        return (long) (intervalNanos * factor);
+    }
+    
+    /**
+     * Geometric interpolation between the longest interval (calm) and the shortest (urgent)
+     */
+    private long intervalFor(double urgency) {
+        return (long) (maxIntervalNanos * Math.pow((double) minIntervalNanos / maxIntervalNanos, urgency));
+    }
+    
+    private void refill(long now) {
+        double perNano = requestsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        double burst = Math.max(1, requestsPerMinute / 60 * BURST_SECONDS);
+        tokens = Math.min(burst, tokens + (now - lastRefill) * perNano);
+        lastRefill = now;
+    }
+    
+    /**
+     * How quickly conditions are changing, from 0 (steady) to 1 (alert-worthy rates of change)
+     */
+    static double volatility(WeatherData previous, WeatherData current, double minutes) {
+        double temperature = Math.abs(current.getTemperature() - previous.getTemperature()) / minutes / VOLATILE_TEMP_RATE;
+        double wind = Math.abs(current.getWindSpeed() - previous.getWindSpeed()) / minutes / VOLATILE_WIND_RATE;
+        double rain = Math.abs(current.getPrecipitation() - previous.getPrecipitation()) / minutes / VOLATILE_RAIN_RATE;
+        return Math.min(1.0, Math.max(temperature, Math.max(wind, rain)));
+    }
+    
+    /**
+     * How close a reading is to triggering an alert, from 0 (far) to 1 (already past a threshold)
+     */
+    double nearness(WeatherData reading) {
+        double temperature = reading.getTemperature();
+        double temperatureDistance = Math.max(0, Math.min(thresholds.highTemperature() - temperature,
+            temperature - thresholds.lowTemperature()));
+        double wind = Math.max(0, thresholds.highWindSpeed() - reading.getWindSpeed());
+        double rain = Math.max(0, thresholds.heavyPrecipitation() - reading.getPrecipitation());
+        
+        return Math.max(closeness(temperatureDistance, TEMP_MARGIN),
+            Math.max(closeness(wind, WIND_MARGIN), closeness(rain, RAIN_MARGIN)));
+    }
+    
+    private static double closeness(double distance, double margin) {
+        return Math.max(0, 1 - distance / margin);
+    }
+    
+    /**
+     * Readings at or past these count as alert-worthy: °C above and below, wind in m/s, precipitation in mm
+     */
+    record AlertThresholds(double highTemperature, double lowTemperature, double highWindSpeed,
+                           double heavyPrecipitation) {
+    }
+    
+    private record ScheduledPoll(String city, long dueAt, long sequence) implements Comparable<ScheduledPoll> {
+        @Override
+        public int compareTo(ScheduledPoll other) {
+            int byDue = Long.compare(dueAt, other.dueAt);
+            return byDue != 0 ? byDue : Long.compare(sequence, other.sequence);
+        }
+    }
+    
+    /**
+     * What the planner knows about one city
+     */
+    private static class LocationState {
+        private long intervalNanos;
+        private WeatherData lastReading;
+        private long lastReadingAt;
+        private double volatility;
+        private double urgency;
+        
+        // Sequence number of the city's live queue entry; older entries are skipped
+        private long sequence;
+        
+        LocationState(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+        }
+        
+        double pollsPerMinute() {
+            return TimeUnit.MINUTES.toNanos(1) / (double) intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.model.DeadBandStats;
+import com.example.weatherproducer.model.WeatherData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Drops polled readings that are effectively the same as the last one published for their location.
+ * A reading goes out when any of temperature, humidity, wind speed or precipitation has moved beyond
+ * its tolerance since the last published reading, or when the heartbeat interval has passed.
+ * Comparing against the last published values, not the last seen ones, lets slow drift through.
+ */
+@Component
+@Slf4j
+public class DeadBandFilter {
+
+    private final boolean enabled;
+    private final double temperatureTolerance;
+    private final double humidityTolerance;
+    private final double windSpeedTolerance;
+    private final double precipitationTolerance;
+    private final long heartbeatNanos;
+    private final LongSupplier nanoClock;
+    
+    private final Map<String, PublishedReading> lastPublished = new ConcurrentHashMap<>();
+    
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    
+    @Autowired
+    public DeadBandFilter(@Value("${weather.dead-band.enabled:false}") boolean enabled,
+                          @Value("${weather.dead-band.temperature:0.2}") double temperatureTolerance,
+                          @Value("${weather.dead-band.humidity:1.0}") double humidityTolerance,
+                          @Value("${weather.dead-band.wind-speed:0.3}") double windSpeedTolerance,
+                          @Value("${weather.dead-band.precipitation:0.1}") double precipitationTolerance,
+                          @Value("${weather.dead-band.heartbeat-seconds:1800}") long heartbeatSeconds) {
+        this(enabled, temperatureTolerance, humidityTolerance, windSpeedTolerance, precipitationTolerance,
+            heartbeatSeconds, System::nanoTime);
+    }
+    
+    DeadBandFilter(boolean enabled, double temperatureTolerance, double humidityTolerance, double windSpeedTolerance,
+                   double precipitationTolerance, long heartbeatSeconds, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.temperatureTolerance = temperatureTolerance;
+        this.humidityTolerance = humidityTolerance;
+        this.windSpeedTolerance = windSpeedTolerance;
+        this.precipitationTolerance = precipitationTolerance;
+        this.heartbeatNanos = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+        this.nanoClock = nanoClock;
+    }
+    
+    /**
+     * Whether the reading should be published; if so it becomes the new reference for its location
+     */
+    public boolean shouldPublish(WeatherData reading) {
+        if (!enabled) {
+            return true;
+        }
+        
+        long now = nanoClock.getAsLong();
+        boolean[] publish = new boolean[1];
+        lastPublished.compute(reading.getLocationId(), (locationId, previous) -> {
+            if (previous == null || now - previous.publishedAt >= heartbeatNanos || hasChanged(previous.reading, reading)) {
+                publish[0] = true;
+                return new PublishedReading(reading, now);
+            }
+            return previous;
+        });
+        
+        (publish[0] ? published : suppressed).incrementAndGet();
+        return publish[0];
+    }
+    
+    public DeadBandStats getStats() {
+        long publishedCount = published.get();
+        long suppressedCount = suppressed.get();
+        long total = publishedCount + suppressedCount;
+        return new DeadBandStats(publishedCount, suppressedCount,
+            total == 0 ? 0.0 : suppressedCount / (double) total, lastPublished.size());
+    }
+    
+    @Scheduled(fixedRate = 60000)
+    public void logStats() {
+        if (!enabled) {
+            return;
+        }
+        DeadBandStats stats = getStats();
+        log.info("Dead-band filter: {} published, {} suppressed ({}%) over {} locations",
+            stats.getPublished(), stats.getSuppressed(),
+            String.format("%.1f", stats.getSuppressionRatio() * 100), stats.getLocations());
+    }
+    
+    private boolean hasChanged(WeatherData previous, WeatherData current) {
+        return Math.abs(current.getTemperature() - previous.getTemperature()) > temperatureTolerance
+            || Math.abs(current.getHumidity() - previous.getHumidity()) > humidityTolerance
+            || Math.abs(current.getWindSpeed() - previous.getWindSpeed()) > windSpeedTolerance
+            || Math.abs(current.getPrecipitation() - previous.getPrecipitation()) > precipitationTolerance;
+    }
+    
+    private record PublishedReading(WeatherData reading, long publishedAt) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.weatherproducer.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which cities this instance polls when several producers run as a cluster.
+ * Every city hashes to one of a fixed number of shards, and each shard is a partition of the
+ * cluster coordination topic. Kafka's group membership hands the partitions out over the live
+ * instances and moves them when an instance joins or leaves, so each city has exactly one poller.
+ * Without clustering every city is owned by this instance.
+ */
+@Component
+@Slf4j
+public class PollingShardManager implements ConsumerRebalanceListener {
+
+    private final boolean enabled;
+    private final int shards;
+    
+    // Replaced as a whole on every rebalance
+    private volatile Set<Integer> ownedShards = Set.of();
+    
+    // Incremented whenever ownership changes
+    private final AtomicInteger generation = new AtomicInteger();
+    
+    public PollingShardManager(@Value("${weather.cluster.enabled:false}") boolean enabled,
+                               @Value("${weather.cluster.shards:64}") int shards) {
+        this.enabled = enabled;
+        this.shards = shards;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Whether this instance should poll the city
+     */
+    public boolean owns(String city) {
+        return !enabled || ownedShards.contains(shardOf(city));
+    }
+    
+    /**
+     * The cities this instance should poll, in their original order
+     */
+    public List<String> ownedCities(List<String> cities) {
+        return enabled ? cities.stream().filter(this::owns).toList() : cities;
+    }
+    
+    /**
+     * A random city owned by this instance, or null if it owns none of them
+     */
+    public String randomOwnedCity(List<String> cities) {
+        List<String> owned = ownedCities(cities);
+        return owned.isEmpty() ? null : owned.get(ThreadLocalRandom.current().nextInt(owned.size()));
+    }
+    
+    /**
+     * Changes whenever this instance gains or loses shards
+     */
+    public int getGeneration() {
+        return generation.get();
+    }
+    
+    /**
+     * Shard of a city; the same murmur2 hash Kafka uses for record keys, so it is stable across instances
+     */
+    int shardOf(String city) {
+        return Utils.toPositive(Utils.murmur2(city.getBytes(StandardCharsets.UTF_8))) % shards;
+    }
+    
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        Set<Integer> owned = new TreeSet<>(ownedShards);
+        partitions.forEach(partition -> owned.add(partition.partition()));
+        update(owned);
+    }
+    
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        Set<Integer> owned = new TreeSet<>(ownedShards);
+        partitions.forEach(partition -> owned.remove(partition.partition()));
+        update(owned);
+    }
+    
+    private void update(Set<Integer> owned) {
+        ownedShards = Set.copyOf(owned);
+        generation.incrementAndGet();
+        log.info("Polling {} of {} shards: {}", owned.size(), shards, owned);
+    }
+}
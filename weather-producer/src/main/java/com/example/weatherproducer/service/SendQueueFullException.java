@@ -0,0 +1,11 @@
+package com.example.weatherproducer.service;
+
+/**
+ * A reading was not sent to Kafka because the queue of sends waiting for an in-flight slot was full
+ */
+public class SendQueueFullException extends RuntimeException {
+
+    public SendQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -1,29 +1,79 @@
 package com.example.weatherproducer.service;
 
+import com.example.weatherproducer.client.OpenWeatherMapBatchClient;
 import com.example.weatherproducer.client.OpenWeatherMapClient;
+import com.example.weatherproducer.client.RequestPriority;
+import com.example.weatherproducer.model.PollingCycleSummary;
 import com.example.weatherproducer.model.WeatherData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
+@ConditionalOnProperty(name = "weather.polling.enabled", havingValue = "true", matchIfMissing = true)
 @EnableScheduling
 @Slf4j
 @RequiredArgsConstructor
 public class WeatherDataScheduler {
 
+    static final String POLLING_MODE_ALL = "all";
+    static final String POLLING_MODE_BATCH = "batch";
+    static final String POLLING_MODE_ADAPTIVE = "adaptive";
+    
     private final OpenWeatherMapClient weatherClient;
+    private final OpenWeatherMapBatchClient batchClient;
     private final WeatherKafkaProducer kafkaProducer;
+    private final AdaptivePollingPlanner pollingPlanner;
+    private final PollingShardManager shardManager;
+    private final DeadBandFilter deadBandFilter;
+    
+    // "random" fetches one random city per cycle, "all" fetches every configured city,
+    // "batch" fetches every configured city through the group endpoint,
+    // "adaptive" polls each city on its own interval within a request budget
+    @Value("${weather.polling.mode:random}")
+    private String pollingMode;
+    
+    // Maximum number of concurrent API requests in "all" and "batch" modes
+    @Value("${weather.polling.concurrency:4}")
+    private int pollingConcurrency;
+    
+    // Shard ownership the adaptive planner was last synchronised with
+    private final AtomicInteger plannedGeneration = new AtomicInteger(-1);
+    
+    private final AtomicBoolean cycleInProgress = new AtomicBoolean();
+    private final AtomicReference<PollingCycleSummary> lastCycle = new AtomicReference<>();
     
     /**
      * Fetch weather data every 5 minutes
-     * We use a randomized approach to cycle through different cities
+     * We use a randomized approach to cycle through different cities,
+     * unless the "all" or "batch" polling mode is enabled
      */
     @Scheduled(fixedRate = 300000) // 5 minutes
     public void fetchWeatherData() {
-        String city = weatherClient.getRandomCity();
+        if (isAdaptivePolling()) {
+            return;
+        }
+        if (isFullCyclePolling()) {
+            fetchAllCitiesCycle();
+            return;
+        }
+        
+        String city = randomCity();
+        if (city == null) {
+            return;
+        }
         
         weatherClient.getWeatherForCity(city)
             .subscribe(
@@ -39,11 +89,21 @@ public class WeatherDataScheduler {
      */
     @Scheduled(initialDelay = 10000, fixedDelay = Long.MAX_VALUE)
     public void fetchInitialWeatherData() {
+        // In "all" and "batch" modes the first scheduled cycle already covers every city,
+        // in "adaptive" mode every city is due as soon as it is registered
+        if (isFullCyclePolling() || isAdaptivePolling()) {
+            return;
+        }
+        
         // Fetch data for all predefined cities on startup
         for (int i = 0; i < 3; i++) { // Limit to 3 cities for the initial load
-            String city = weatherClient.getRandomCity();
+            String city = randomCity();
+            if (city == null) {
+                return;
+            }
             
-            weatherClient.getWeatherForCity(city)
+            // Warm-up requests yield to regular polling when the rate limit is tight
+            weatherClient.getWeatherForCity(city, RequestPriority.LOW)
                 .subscribe(
                     this::processWeatherData,
                     error -> log.error("Error fetching initial weather data: {}", error.getMessage())
@@ -51,8 +111,123 @@ public class WeatherDataScheduler {
         }
     }
     
+    /**
+     * In "adaptive" mode, fetch the cities whose next poll is due.
+     * Each reading is published and feeds back into the city's next interval.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void pollDueCities() {
+        if (!isAdaptivePolling()) {
+            return;
+        }
+        // Plan exactly the cities this instance owns, again whenever cluster ownership changes
+        int generation = shardManager.getGeneration();
+        if (plannedGeneration.getAndSet(generation) != generation) {
+            pollingPlanner.retain(shardManager.ownedCities(weatherClient.getAllCities()));
+        }
+        
+        for (String city : pollingPlanner.takeDue()) {
+            weatherClient.getWeatherForCity(city, pollingPlanner.priorityOf(city))
+                .subscribe(
+                    weatherData -> {
+                        pollingPlanner.recordReading(city, weatherData);
+                        processWeatherData(weatherData);
+                    },
+                    error -> {
+                        pollingPlanner.recordFailure(city);
+                        log.error("Error fetching weather data for {}: {}", city, error.getMessage());
+                    }
+                );
+        }
+    }
+    
+    @Scheduled(fixedRate = 60000)
+    public void logPollingPlan() {
+        if (isAdaptivePolling() && pollingPlanner.size() > 0) {
+            log.info("Adaptive polling: {} cities want {} polls/min, budget {} requests/min",
+                pollingPlanner.size(), String.format("%.1f", pollingPlanner.getDemandPerMinute()),
+                pollingPlanner.getRequestsPerMinute());
+        }
+    }
+    
+    /**
+     * Fetch every configured city, keeping at most {@code pollingConcurrency} requests in flight.
+     * In "batch" mode cities are grouped into as few requests as the group endpoint allows.
+     * Each reading is published as soon as its response arrives.
+     */
+    public Mono<PollingCycleSummary> fetchAllCities() {
+        return Mono.defer(() -> {
+            List<String> cities = shardManager.ownedCities(weatherClient.getAllCities());
+            long start = System.nanoTime();
+            
+            Flux<WeatherData> readings = POLLING_MODE_BATCH.equalsIgnoreCase(pollingMode)
+                ? batchClient.getWeatherForCities(cities, pollingConcurrency)
+                : Flux.fromIterable(cities)
+                    .flatMap(city -> weatherClient.getWeatherForCity(city)
+                            .onErrorResume(error -> Mono.empty()),
+                        pollingConcurrency);
+            
+            return readings
+                .doOnNext(this::processWeatherData)
+                .count()
+                .map(succeeded -> new PollingCycleSummary(
+                    cities.size(),
+                    succeeded.intValue(),
+                    cities.size() - succeeded.intValue(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                ));
+        });
+    }
+    
+    /**
+     * Most recently completed full polling cycle, or null if none has finished yet
+     */
+    public PollingCycleSummary getLastCycle() {
+        return lastCycle.get();
+    }
+    
+    /**
+     * A random city to fetch, limited to this instance's shards when clustered; null if it owns none
+     */
+    private String randomCity() {
+        return shardManager.isEnabled()
+            ? shardManager.randomOwnedCity(weatherClient.getAllCities())
+            : weatherClient.getRandomCity();
+    }
+    
+    private boolean isAdaptivePolling() {
+        return POLLING_MODE_ADAPTIVE.equalsIgnoreCase(pollingMode);
+    }
+    
+    private boolean isFullCyclePolling() {
+        return POLLING_MODE_ALL.equalsIgnoreCase(pollingMode) || POLLING_MODE_BATCH.equalsIgnoreCase(pollingMode);
+    }
+    
+    private void fetchAllCitiesCycle() {
+        // Skip this tick if the previous cycle is still running
+        if (!cycleInProgress.compareAndSet(false, true)) {
+            log.warn("Previous polling cycle still in progress, skipping this one");
+            return;
+        }
+        
+        fetchAllCities()
+            .doFinally(signal -> cycleInProgress.set(false))
+            .subscribe(
+                summary -> {
+                    lastCycle.set(summary);
+                    log.info("Polling cycle finished: {}/{} cities succeeded, {} failed, took {} ms",
+                        summary.getSucceeded(), summary.getCities(), summary.getFailed(), summary.getDurationMillis());
+                },
+                error -> log.error("Polling cycle failed: {}", error.getMessage())
+            );
+    }
+    
     private void processWeatherData(WeatherData weatherData) {
         log.info("Received weather data from API: {}", weatherData);
+        if (!deadBandFilter.shouldPublish(weatherData)) {
+            log.debug("Reading for {} within dead band, not published", weatherData.getLocationId());
+            return;
+        }
         kafkaProducer.sendWeatherData(weatherData);
     }
 }
@@ -0,0 +1,107 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.model.BulkIngestResult;
+import com.example.weatherproducer.model.IngestBatchResult;
+import com.example.weatherproducer.model.WeatherData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@Slf4j
+public class WeatherIngestService {
+
+    private final WeatherKafkaProducer producer;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    
+    public WeatherIngestService(WeatherKafkaProducer producer, ObjectMapper objectMapper,
+                                @Value("${weather.ingest.batch-size:1000}") int batchSize) {
+        this.producer = producer;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Publish a stream of decoded JSON records batch by batch. At most one batch waits for
+     * acknowledgement while the next is read, so a large body is never held in memory.
+     */
+    public Mono<BulkIngestResult> ingest(Flux<JsonNode> records) {
+        return Mono.defer(() -> {
+            AtomicInteger read = new AtomicInteger();
+            AtomicReference<String> error = new AtomicReference<>();
+            
+            return records
+                .map(node -> {
+                    read.incrementAndGet();
+                    return toReading(node);
+                })
+                .onErrorResume(e -> {
+                    // Malformed JSON; the rest of the body cannot be trusted, and is not a record to count
+                    error.set("Malformed JSON after " + read.get() + " records: " + e.getMessage());
+                    return Mono.empty();
+                })
+                .buffer(batchSize)
+                .index()
+                // Prefetch of one keeps a single batch buffered while the previous one is in flight
+                .concatMap(batch -> publishBatch(batch.getT1().intValue(), batch.getT2()), 1)
+                .collectList()
+                .map(batches -> summarize(batches, error.get()));
+        });
+    }
+    
+    private Mono<IngestBatchResult> publishBatch(int index, List<Reading> batch) {
+        return Flux.fromIterable(batch)
+            .filter(reading -> reading != Reading.INVALID)
+            .flatMap(reading -> producer.publish(reading.weatherData())
+                .thenReturn(1)
+                // A failed send rejects just that record
+                .onErrorResume(e -> Mono.empty()))
+            .count()
+            .map(acknowledged -> new IngestBatchResult(index, acknowledged.intValue(),
+                batch.size() - acknowledged.intValue()));
+    }
+    
+    private BulkIngestResult summarize(List<IngestBatchResult> batches, String error) {
+        int accepted = batches.stream().mapToInt(IngestBatchResult::getAccepted).sum();
+        int rejected = batches.stream().mapToInt(IngestBatchResult::getRejected).sum();
+        log.info("Bulk ingest finished: {} accepted, {} rejected in {} batches", accepted, rejected, batches.size());
+        return new BulkIngestResult(accepted, rejected, batches, error);
+    }
+    
+    private Reading toReading(JsonNode node) {
+        WeatherData weatherData;
+        try {
+            weatherData = objectMapper.treeToValue(node, WeatherData.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            // Well-formed record with wrong field types
+            return Reading.INVALID;
+        }
+        
+        if (weatherData == null || weatherData.getLocationId() == null || weatherData.getLocationId().isBlank()) {
+            return Reading.INVALID;
+        }
+        // Set current timestamp if not provided
+        if (weatherData.getTimestamp() == null) {
+            weatherData.setTimestamp(LocalDateTime.now());
+        }
+        return new Reading(weatherData);
+    }
+    
+    /**
+     * A decoded record; INVALID stands in for records that are rejected before publishing
+     */
+    private record Reading(WeatherData weatherData) {
+        static final Reading INVALID = new Reading(null);
+    }
+}
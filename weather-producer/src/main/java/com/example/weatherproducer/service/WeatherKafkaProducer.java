@@ -1,21 +1,210 @@
 package com.example.weatherproducer.service;
 
+import com.example.weatherproducer.model.SendStats;
 import com.example.weatherproducer.model.WeatherData;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class WeatherKafkaProducer {
 
-    private static final String TOPIC = "weather-data";
+    static final String TOPIC = "weather-data";
+    
+    // Upper bound on concurrent publishes per publishAll stream; flatMap gets slower as its
+    // concurrency grows, and the in-flight limit already bounds what reaches the broker
+    private static final int MAX_PUBLISH_CONCURRENCY = 1024;
+    
     private final KafkaTemplate<String, WeatherData> kafkaTemplate;
-
+    private final int maxInFlight;
+    private final int maxQueued;
+    
+    // Records waiting for an in-flight slot, at most maxQueued
+    private final Queue<PendingSend> pendingSends = new ConcurrentLinkedQueue<>();
+    
+    // KafkaTemplate.send can block when the producer buffer is full, so keep it off Kafka and Netty threads
+    private final Scheduler sendScheduler = Schedulers.newSingle("weather-kafka-send");
+    
+    // Coalesces drain requests so at most one drain task is scheduled at a time
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, TopicStats> statsByTopic = new ConcurrentHashMap<>();
+    
+    public WeatherKafkaProducer(KafkaTemplate<String, WeatherData> kafkaTemplate,
+                                @Value("${weather.kafka.producer.max-in-flight:1000}") int maxInFlight,
+                                @Value("${weather.kafka.producer.max-queued:10000}") int maxQueued) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+    }
+    
+    /**
+     * Fire-and-forget send; failures are logged and counted in the send stats
+     */
     public void sendWeatherData(WeatherData weatherData) {
-        log.info("Sending weather data to Kafka: {}", weatherData);
-        kafkaTemplate.send(TOPIC, weatherData.getLocationId(), weatherData);
+        log.debug("Sending weather data to Kafka: {}", weatherData);
+        enqueue(weatherData);
+    }
+    
+    /**
+     * Send one reading. Completes once the broker has acknowledged it, so callers that wait
+     * on the result are slowed down when more than the in-flight limit is outstanding.
+     * Fails with {@link SendQueueFullException} when the queue of waiting sends is full.
+     */
+    public Mono<SendResult<String, WeatherData>> publish(WeatherData weatherData) {
+        return Mono.defer(() -> Mono.fromFuture(enqueue(weatherData), true));
+    }
+    
+    /**
+     * Send a stream of readings, requesting more from upstream only as earlier sends are acknowledged
+     */
+    public Flux<SendResult<String, WeatherData>> publishAll(Publisher<WeatherData> readings) {
+        return Flux.from(readings).flatMap(this::publish, Math.min(maxInFlight, MAX_PUBLISH_CONCURRENCY));
+    }
+    
+    /**
+     * Sends handed to Kafka and not yet acknowledged
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * Sends waiting for an in-flight slot
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+    
+    public List<SendStats> getSendStats() {
+        return statsByTopic.entrySet().stream()
+            .map(entry -> entry.getValue().snapshot(entry.getKey()))
+            .toList();
+    }
+    
+    @Scheduled(fixedRate = 60000)
+    public void logSendStats() {
+        for (SendStats stats : getSendStats()) {
+            log.info("Kafka send stats for {}: {} sent, {} failed, avg {} ms, max {} ms, {} in flight, {} queued",
+                stats.getTopic(), stats.getSent(), stats.getFailed(),
+                String.format("%.2f", stats.getAverageLatencyMillis()),
+                String.format("%.2f", stats.getMaxLatencyMillis()),
+                getInFlight(), getQueued());
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        sendScheduler.dispose();
+    }
+    
+    private CompletableFuture<SendResult<String, WeatherData>> enqueue(WeatherData weatherData) {
+        // Reserve a place in the queue first, so concurrent callers cannot overfill it
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            log.warn("Kafka send queue is full, dropping weather data for {}", weatherData.getLocationId());
+            return CompletableFuture.failedFuture(new SendQueueFullException(
+                "Kafka send queue is full (" + maxQueued + " records)"));
+        }
+        PendingSend pending = new PendingSend(weatherData, new CompletableFuture<>());
+        pendingSends.offer(pending);
+        requestDrain();
+        return pending.result;
+    }
+    
+    private void requestDrain() {
+        if (drainRequests.getAndIncrement() == 0) {
+            sendScheduler.schedule(this::drain);
+        }
+    }
+    
+    private void drain() {
+        int missed = 1;
+        do {
+            PendingSend pending;
+            while (inFlight.get() < maxInFlight && (pending = pendingSends.poll()) != null) {
+                queued.decrementAndGet();
+                send(pending);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+    
+    private void send(PendingSend pending) {
+        inFlight.incrementAndGet();
+        TopicStats stats = statsByTopic.computeIfAbsent(TOPIC, topic -> new TopicStats());
+        long start = System.nanoTime();
+        
+        CompletableFuture<SendResult<String, WeatherData>> future;
+        try {
+            future = kafkaTemplate.send(TOPIC, pending.weatherData.getLocationId(), pending.weatherData);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        
+        future.whenComplete((result, e) -> {
+            if (e == null) {
+                stats.recordSuccess(System.nanoTime() - start);
+                pending.result.complete(result);
+            } else {
+                stats.recordFailure();
+                log.error("Error sending weather data for {} to Kafka: {}",
+                    pending.weatherData.getLocationId(), e.getMessage());
+                pending.result.completeExceptionally(e);
+            }
+            // Free the slot and let the next queued record go out
+            inFlight.decrementAndGet();
+            requestDrain();
+        });
+    }
+    
+    private record PendingSend(WeatherData weatherData, CompletableFuture<SendResult<String, WeatherData>> result) {
+    }
+    
+    /**
+     * Live counters for one topic
+     */
+    private static class TopicStats {
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        
+        void recordSuccess(long latencyNanos) {
+            sent.incrementAndGet();
+            totalLatencyNanos.addAndGet(latencyNanos);
+            maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        }
+        
+        void recordFailure() {
+            failed.incrementAndGet();
+        }
+        
+        SendStats snapshot(String topic) {
+            long sentCount = sent.get();
+            double averageMillis = sentCount == 0 ? 0.0 : totalLatencyNanos.get() / (double) sentCount / 1_000_000;
+            return new SendStats(topic, sentCount, failed.get(), averageMillis, maxLatencyNanos.get() / 1_000_000.0);
+        }
     }
 }
@@ -0,0 +1,124 @@
+package com.example.weatherproducer.simulator;
+
+import com.example.weatherproducer.client.OpenWeatherMapClient;
+import com.example.weatherproducer.client.SyntheticCities;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for the OpenWeatherMap current weather and group endpoints.
+ * Point openweathermap.api.base-url at this application to poll it instead of the real API.
+ */
+@RestController
+@RequestMapping("/data/2.5")
+@Profile("simulator")
+@Slf4j
+public class SimulatedOpenWeatherMapController {
+
+    private final WeatherSimulator simulator;
+    private final OpenWeatherMapClient weatherClient;
+    
+    // Simulated response time: a fixed part plus a uniformly random part
+    @Value("${weather.simulator.latency-ms:50}")
+    private long latencyMillis;
+    
+    @Value("${weather.simulator.latency-jitter-ms:50}")
+    private long latencyJitterMillis;
+    
+    // Share of requests answered with errorStatus instead of weather
+    @Value("${weather.simulator.error-rate:0.0}")
+    private double errorRate;
+    
+    @Value("${weather.simulator.error-status:500}")
+    private int errorStatus;
+    
+    public SimulatedOpenWeatherMapController(WeatherSimulator simulator, OpenWeatherMapClient weatherClient) {
+        this.simulator = simulator;
+        this.weatherClient = weatherClient;
+    }
+    
+    @GetMapping("/weather")
+    public Mono<ResponseEntity<Map<String, Object>>> currentWeather(@RequestParam(name = "q", required = false) String query,
+                                                                    @RequestParam(name = "id", required = false) Long cityId) {
+        String city = query != null ? query : cityId != null ? queryForId(cityId) : null;
+        if (city == null) {
+            return respond(HttpStatus.NOT_FOUND.value(), Map.of("cod", "404", "message", "city not found"));
+        }
+        if (isSimulatedError()) {
+            return respond(errorStatus, Map.of("cod", errorStatus, "message", "simulated error"));
+        }
+        return respond(HttpStatus.OK.value(), toResponse(simulator.next(city)));
+    }
+    
+    @GetMapping("/group")
+    public Mono<ResponseEntity<Map<String, Object>>> group(@RequestParam("id") List<Long> cityIds) {
+        if (isSimulatedError()) {
+            return respond(errorStatus, Map.of("cod", errorStatus, "message", "simulated error"));
+        }
+        List<Map<String, Object>> list = new ArrayList<>(cityIds.size());
+        for (Long cityId : cityIds) {
+            // Unknown IDs are left out, as the real API does
+            String city = queryForId(cityId);
+            if (city != null) {
+                list.add(toResponse(simulator.next(city)));
+            }
+        }
+        return respond(HttpStatus.OK.value(), Map.of("cnt", list.size(), "list", list));
+    }
+    
+    private String queryForId(long cityId) {
+        int syntheticIndex = SyntheticCities.indexOfId(cityId);
+        if (syntheticIndex >= 0) {
+            return SyntheticCities.query(syntheticIndex);
+        }
+        for (String city : weatherClient.getAllCities()) {
+            Long id = weatherClient.getCityId(city);
+            if (id != null && id == cityId) {
+                return city;
+            }
+        }
+        return null;
+    }
+    
+    private boolean isSimulatedError() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+    
+    private Mono<ResponseEntity<Map<String, Object>>> respond(int status, Map<String, Object> body) {
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0);
+        Mono<ResponseEntity<Map<String, Object>>> response = Mono.just(ResponseEntity.status(status).body(body));
+        return delay > 0 ? response.delayElement(Duration.ofMillis(delay)) : response;
+    }
+    
+    /**
+     * Same shape as the fields of OpenWeatherMapClient.OpenWeatherMapResponse
+     */
+    private Map<String, Object> toResponse(SimulatedReading reading) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", reading.getCityId());
+        response.put("name", reading.getName());
+        response.put("sys", Map.of("country", reading.getCountry()));
+        response.put("main", Map.of("temp", reading.getTemperature(), "humidity", reading.getHumidity()));
+        response.put("wind", Map.of("speed", reading.getWindSpeed(), "deg", reading.getWindDegrees()));
+        if (reading.getRainOneHour() > 0) {
+            response.put("rain", Map.of("1h", reading.getRainOneHour()));
+        }
+        response.put("cod", 200);
+        return response;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.weatherproducer.simulator;
+
+import lombok.Value;
+
+/**
+ * One simulated observation, with the fields of an OpenWeatherMap current weather response
+ */
+@Value
+public class SimulatedReading {
+    long cityId;
+    String name;
+    String country;
+    double temperature;
+    double humidity;
+    double windSpeed;
+    double windDegrees;
+    double rainOneHour;
+}
@@ -0,0 +1,175 @@
+package com.example.weatherproducer.simulator;
+
+import com.example.weatherproducer.client.LocationRegistry;
+import com.example.weatherproducer.client.SyntheticCities;
+import com.example.weatherproducer.model.BulkIngestResult;
+import com.example.weatherproducer.model.WeatherData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Drives a producer's ingest endpoints with simulated readings at a target rate.
+ * Readings come from the {@link WeatherSimulator}, so a run is reproducible from its seed.
+ * The profile turns off polling and the web server, so the generator adds no load of its own.
+ */
+@Component
+@Profile("loadgen")
+@Slf4j
+public class SyntheticLoadGenerator implements ApplicationRunner {
+
+    // Ticks per second used to pace the generator
+    private static final int TICKS_PER_SECOND = 10;
+    
+    private final WeatherSimulator simulator;
+    private final LocationRegistry locationRegistry;
+    private final WebClient webClient;
+    private final ConfigurableApplicationContext context;
+    
+    @Value("${weather.loadgen.rate:1000}")
+    private int recordsPerSecond;
+    
+    @Value("${weather.loadgen.duration-seconds:60}")
+    private int durationSeconds;
+    
+    @Value("${weather.loadgen.locations:1000}")
+    private int locations;
+    
+    // Records per request; 1 posts to /api/weather, anything larger posts NDJSON to /api/weather/bulk
+    @Value("${weather.loadgen.batch-size:100}")
+    private int batchSize;
+    
+    // Maximum requests awaiting a response
+    @Value("${weather.loadgen.concurrency:64}")
+    private int concurrency;
+    
+    // Stop the application once the run is done
+    @Value("${weather.loadgen.exit-when-done:true}")
+    private boolean exitWhenDone;
+    
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong skippedTicks = new AtomicLong();
+    
+    public SyntheticLoadGenerator(WeatherSimulator simulator, LocationRegistry locationRegistry,
+                                  WebClient.Builder webClientBuilder, ConfigurableApplicationContext context,
+                                  @Value("${weather.loadgen.target-url:http://localhost:8080}") String targetUrl) {
+        this.simulator = simulator;
+        this.locationRegistry = locationRegistry;
+        this.webClient = webClientBuilder.baseUrl(targetUrl).build();
+        this.context = context;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Generating {} records/sec for {} s over {} locations, {} records per request",
+            recordsPerSecond, durationSeconds, locations, batchSize);
+        long start = System.nanoTime();
+        
+        // Requests complete empty, so progress is logged on its own timer
+        Disposable progress = Flux.interval(Duration.ofSeconds(10))
+            .subscribe(ignored -> logProgress(start));
+        try {
+            Flux.interval(Duration.ofMillis(1000 / TICKS_PER_SECOND))
+                .take((long) durationSeconds * TICKS_PER_SECOND)
+                // A tick that cannot be served because the target is saturated is skipped and counted
+                .onBackpressureDrop(tick -> skippedTicks.incrementAndGet())
+                .concatMapIterable(this::readingsForTick)
+                .buffer(batchSize)
+                .flatMap(this::send, concurrency)
+                .blockLast();
+        } finally {
+            progress.dispose();
+        }
+        
+        logProgress(start);
+        log.info("Load generation finished: {} generated, {} accepted, {} rejected, {} failed requests, {} skipped ticks",
+            generated.get(), accepted.get(), rejected.get(), failedRequests.get(), skippedTicks.get());
+        if (exitWhenDone) {
+            SpringApplication.exit(context);
+        }
+    }
+    
+    private List<WeatherData> readingsForTick(long tick) {
+        // Spread the rate over the ticks of a second, including any remainder
+        int count = (int) ((tick + 1) * recordsPerSecond / TICKS_PER_SECOND - tick * recordsPerSecond / TICKS_PER_SECOND);
+        return IntStream.range(0, count)
+            .mapToObj(i -> toWeatherData(simulator.next(SyntheticCities.query((int) (generated.getAndIncrement() % locations)))))
+            .toList();
+    }
+    
+    private Mono<Void> send(List<WeatherData> batch) {
+        Mono<Void> request;
+        if (batchSize == 1) {
+            request = webClient.post()
+                .uri("/api/weather")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(batch.get(0))
+                .retrieve()
+                .toBodilessEntity()
+                .doOnNext(response -> accepted.incrementAndGet())
+                .then();
+        } else {
+            request = webClient.post()
+                .uri("/api/weather/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(Flux.fromIterable(batch), WeatherData.class)
+                .retrieve()
+                .bodyToMono(BulkIngestResult.class)
+                .doOnNext(result -> {
+                    accepted.addAndGet(result.getAccepted());
+                    rejected.addAndGet(result.getRejected());
+                })
+                .then();
+        }
+        return request.onErrorResume(e -> {
+            failedRequests.incrementAndGet();
+            rejected.addAndGet(batch.size());
+            log.debug("Load generator request failed: {}", e.getMessage());
+            return Mono.empty();
+        });
+    }
+    
+    private void logProgress(long start) {
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("Load generator: {} records accepted in {} s ({} records/sec), {} rejected, {} failed requests",
+            accepted.get(), String.format("%.1f", seconds), String.format("%.0f", accepted.get() / seconds),
+            rejected.get(), failedRequests.get());
+    }
+    
+    private WeatherData toWeatherData(SimulatedReading reading) {
+        return new WeatherData(
+            locationRegistry.getLocationId(reading.getName(), reading.getCountry()),
+            reading.getName() + ", " + reading.getCountry(),
+            reading.getTemperature(),
+            reading.getHumidity(),
+            reading.getWindSpeed(),
+            windDirection(reading.getWindDegrees()),
+            reading.getRainOneHour(),
+            LocalDateTime.now()
+        );
+    }
+    
+    private String windDirection(double degrees) {
+        String[] directions = {"N", "NE", "E", "SE", "S", "SW", "W", "NW"};
+        return directions[(int) Math.round(degrees % 360 / 45) % 8];
+    }
+}
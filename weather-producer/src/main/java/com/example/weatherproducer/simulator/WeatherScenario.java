@@ -0,0 +1,21 @@
+package com.example.weatherproducer.simulator;
+
+/**
+ * How a simulated city's weather develops from one reading to the next
+ */
+public enum WeatherScenario {
+    // Small random changes around the city's base conditions
+    NORMAL,
+    // Temperature climbs well above the base while humidity falls
+    HEAT_WAVE,
+    // Strong wind and heavy rain
+    STORM,
+    // Temperature falls quickly, to trigger rapid change alerts downstream
+    RAPID_DROP,
+    // Each affected city gets one of the scenarios above
+    MIXED;
+    
+    public static WeatherScenario from(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
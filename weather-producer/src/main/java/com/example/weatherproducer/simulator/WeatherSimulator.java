@@ -0,0 +1,156 @@
+package com.example.weatherproducer.simulator;
+
+import com.example.weatherproducer.client.SyntheticCities;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates weather for any city. Each city has its own random stream derived from the seed and
+ * the city name, and advances one step per reading, so the same seed and request sequence
+ * always produce the same readings.
+ */
+@Component
+@Profile({"simulator", "loadgen"})
+@Slf4j
+public class WeatherSimulator {
+
+    private static final WeatherScenario[] MIXED_SCENARIOS = {
+        WeatherScenario.HEAT_WAVE, WeatherScenario.STORM, WeatherScenario.RAPID_DROP
+    };
+    
+    private final long seed;
+    private final WeatherScenario scenario;
+    private final double scenarioShare;
+    
+    private final Map<String, CityWeather> citiesByQuery = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public WeatherSimulator(@Value("${weather.simulator.seed:42}") long seed,
+                            @Value("${weather.simulator.scenario:normal}") String scenario,
+                            @Value("${weather.simulator.scenario-share:0.1}") double scenarioShare) {
+        this(seed, WeatherScenario.from(scenario), scenarioShare);
+    }
+    
+    WeatherSimulator(long seed, WeatherScenario scenario, double scenarioShare) {
+        this.seed = seed;
+        this.scenario = scenario;
+        this.scenarioShare = scenarioShare;
+        log.info("Weather simulator using seed {}, scenario {} for {}% of cities",
+            seed, scenario, Math.round(scenarioShare * 100));
+    }
+    
+    /**
+     * Next reading for a city queried by name, e.g. "London,uk"
+     */
+    public SimulatedReading next(String query) {
+        return citiesByQuery.computeIfAbsent(query, this::createCity).next();
+    }
+    
+    /**
+     * Scenario assigned to a city
+     */
+    WeatherScenario scenarioOf(String query) {
+        return citiesByQuery.computeIfAbsent(query, this::createCity).scenario;
+    }
+    
+    private CityWeather createCity(String query) {
+        SplittableRandom random = new SplittableRandom(seed ^ ((long) query.hashCode() << 32 | query.length()));
+        
+        WeatherScenario cityScenario = WeatherScenario.NORMAL;
+        if (scenario != WeatherScenario.NORMAL && random.nextDouble() < scenarioShare) {
+            cityScenario = scenario == WeatherScenario.MIXED
+                ? MIXED_SCENARIOS[random.nextInt(MIXED_SCENARIOS.length)]
+                : scenario;
+        }
+        
+        String[] parts = query.split(",", 2);
+        String country = parts.length > 1 ? parts[1].trim().toUpperCase() : SyntheticCities.COUNTRY;
+        int syntheticIndex = SyntheticCities.indexOfQuery(query);
+        long cityId = syntheticIndex >= 0 ? SyntheticCities.id(syntheticIndex) : Math.abs((long) query.hashCode());
+        
+        return new CityWeather(cityId, parts[0].trim(), country, cityScenario, random);
+    }
+    
+    /**
+     * Evolving state of one city
+     */
+    private static final class CityWeather {
+        private final long cityId;
+        private final String name;
+        private final String country;
+        private final WeatherScenario scenario;
+        private final SplittableRandom random;
+        
+        private final double baseTemperature;
+        private double temperature;
+        private double humidity;
+        private double windSpeed;
+        private double windDegrees;
+        private double rain;
+        
+        CityWeather(long cityId, String name, String country, WeatherScenario scenario, SplittableRandom random) {
+            this.cityId = cityId;
+            this.name = name;
+            this.country = country;
+            this.scenario = scenario;
+            this.random = random;
+            this.baseTemperature = 5 + random.nextDouble() * 25;
+            this.temperature = baseTemperature;
+            this.humidity = 40 + random.nextDouble() * 40;
+            this.windSpeed = random.nextDouble() * 8;
+            this.windDegrees = random.nextDouble() * 360;
+        }
+        
+        synchronized SimulatedReading next() {
+            switch (scenario) {
+                case HEAT_WAVE -> {
+                    temperature = Math.min(temperature + 0.8 + noise(0.3), baseTemperature + 20);
+                    humidity = clamp(humidity - 2 + noise(1), 10, 100);
+                    windSpeed = clamp(windSpeed + noise(0.5), 0, 6);
+                    rain = 0;
+                }
+                case STORM -> {
+                    temperature += (baseTemperature - 4 - temperature) * 0.1 + noise(0.5);
+                    humidity = clamp(humidity + 3 + noise(2), 0, 100);
+                    windSpeed = clamp(windSpeed + (26 - windSpeed) * 0.3 + noise(2), 0, 45);
+                    rain = clamp(rain + (25 - rain) * 0.3 + noise(4), 0, 80);
+                }
+                case RAPID_DROP -> {
+                    temperature = Math.max(temperature - 1.5 + noise(0.3), baseTemperature - 30);
+                    humidity = clamp(humidity + noise(2), 0, 100);
+                    windSpeed = clamp(windSpeed + noise(1), 0, 20);
+                    rain = 0;
+                }
+                default -> {
+                    // Random walk pulled back towards the base conditions
+                    temperature += (baseTemperature - temperature) * 0.05 + noise(0.4);
+                    humidity = clamp(humidity + noise(2), 10, 100);
+                    windSpeed = clamp(windSpeed + noise(0.8), 0, 15);
+                    rain = random.nextDouble() < 0.1 ? random.nextDouble() * 3 : 0;
+                }
+            }
+            windDegrees = (windDegrees + noise(15) + 360) % 360;
+            return new SimulatedReading(cityId, name, country, round(temperature), round(humidity),
+                round(windSpeed), Math.round(windDegrees), round(rain));
+        }
+        
+        private double noise(double scale) {
+            return (random.nextDouble() * 2 - 1) * scale;
+        }
+        
+        private static double clamp(double value, double min, double max) {
+            return Math.max(min, Math.min(max, value));
+        }
+        
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
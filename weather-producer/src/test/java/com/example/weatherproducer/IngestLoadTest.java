@@ -0,0 +1,115 @@
+package com.example.weatherproducer;
+
+import com.example.weatherproducer.service.WeatherKafkaProducer;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the ingest endpoints over a fixed number of connections and reports throughput and latency.
+ * Kafka is replaced by a mock that acknowledges each send after a fixed delay.
+ * Run with {@code mvn test -Dtest=IngestLoadTest -Dloadtest=true [-Dloadtest.connections=256]}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "weather.polling.mode=all")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class IngestLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 256);
+    private static final Duration ACK_DELAY = Duration.ofMillis(Long.getLong("loadtest.ack-delay-ms", 20));
+    
+    @LocalServerPort
+    private int port;
+    
+    @MockitoBean
+    private WeatherKafkaProducer producer;
+    
+    private ConnectionProvider connections;
+    private HttpClient client;
+    
+    @BeforeEach
+    void setUp() {
+        when(producer.publish(any())).thenAnswer(invocation -> Mono.delay(ACK_DELAY).then(Mono.empty()));
+        
+        connections = ConnectionProvider.builder("ingest-load")
+                .maxConnections(CONNECTIONS)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        client = HttpClient.create(connections)
+                .baseUrl("http://localhost:" + port);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connections.dispose();
+    }
+    
+    @Test
+    void singleAndBulkIngest() {
+        // Warm up both endpoints before measuring
+        run("warm-up single", 5_000, "/api/weather", "application/json", 1);
+        run("warm-up bulk", 500, "/api/weather/bulk", "application/x-ndjson", 100);
+        
+        run("single", 20_000, "/api/weather", "application/json", 1);
+        run("bulk x100", 2_000, "/api/weather/bulk", "application/x-ndjson", 100);
+    }
+    
+    private void run(String name, int requests, String path, String contentType, int recordsPerRequest) {
+        String body = IntStream.range(0, recordsPerRequest)
+                .mapToObj(i -> "{\"locationId\":\"location-" + i + "\",\"locationName\":\"City\","
+                        + "\"temperature\":21.5,\"humidity\":60.0,\"windSpeed\":3.0,\"windDirection\":\"N\","
+                        + "\"precipitation\":0.0,\"timestamp\":\"2025-01-01T12:00:00\"}")
+                .collect(Collectors.joining("\n"));
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        
+        long start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long sent = System.nanoTime();
+                    return client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, contentType))
+                            .post()
+                            .uri(path)
+                            .send(ByteBufFlux.fromString(Mono.just(body)))
+                            .responseSingle((response, content) -> {
+                                if (response.status().code() >= 300) {
+                                    failures.incrementAndGet();
+                                }
+                                return content.then(Mono.just(i));
+                            })
+                            .doOnNext(index -> latencies[index] = System.nanoTime() - sent);
+                }, CONNECTIONS)
+                .blockLast();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        
+        Arrays.sort(latencies);
+        System.out.printf("%-15s %,d requests over %d connections in %.2f s: %,.0f req/s (%,.0f records/s),"
+                        + " p50 %.1f ms, p99 %.1f ms, server threads %d%n",
+                name, requests, CONNECTIONS, seconds, requests / seconds, requests * recordsPerRequest / seconds,
+                latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.99)] / 1e6,
+                Math.max(threadsBefore, ManagementFactory.getThreadMXBean().getThreadCount()));
+        assertEquals(0, failures.get());
+    }
+}
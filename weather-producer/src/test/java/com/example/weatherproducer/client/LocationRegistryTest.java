@@ -0,0 +1,61 @@
+package com.example.weatherproducer.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class LocationRegistryTest {
+
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testIdsAreStableAcrossInstances() {
+        // A new registry stands in for a restarted producer
+        String first = new LocationRegistry().getLocationId("London", "GB");
+        String second = new LocationRegistry().getLocationId("London", "GB");
+        
+        assertEquals(first, second);
+        assertNotEquals(first, new LocationRegistry().getLocationId("London", "CA"));
+    }
+    
+    @Test
+    void testPreloadedIdsTakePrecedence() throws IOException {
+        Path file = tempDir.resolve("locations.properties");
+        Files.writeString(file, """
+                # Pinned IDs
+                London,GB=legacy-london-id
+                
+                New York,US=legacy-new-york-id
+                """);
+        
+        LocationRegistry registry = new LocationRegistry();
+        registry.load(file);
+        
+        assertEquals("legacy-london-id", registry.getLocationId("London", "GB"));
+        assertEquals("legacy-new-york-id", registry.getLocationId("New York", "US"));
+        assertEquals(LocationRegistry.deriveLocationId("Paris", "FR"), registry.getLocationId("Paris", "FR"));
+        assertEquals(3, registry.size());
+    }
+    
+    @Test
+    void testConcurrentRegistrationsAgreeOnOneId() {
+        LocationRegistry registry = new LocationRegistry();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        
+        IntStream.range(0, 1000).parallel()
+                .forEach(i -> ids.add(registry.getLocationId("City" + (i % 10), "XX")));
+        
+        assertEquals(10, ids.size());
+        assertEquals(10, registry.size());
+    }
+}
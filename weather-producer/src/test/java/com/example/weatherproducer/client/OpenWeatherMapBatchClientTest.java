@@ -0,0 +1,107 @@
+package com.example.weatherproducer.client;
+
+import com.example.weatherproducer.model.WeatherData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Runs the batch client against a local stub of the OpenWeatherMap API
+ */
+public class OpenWeatherMapBatchClientTest {
+
+    private OpenWeatherMapStub stub;
+    private OpenWeatherMapBatchClient batchClient;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new OpenWeatherMapStub();
+        WebClient webClient = stub.webClient();
+        
+        // Caching is disabled so every call reaches the stub
+        OpenWeatherMapClient weatherClient = new OpenWeatherMapClient(
+                webClient, new OpenWeatherMapResponseCache(0, 0), new LocationRegistry());
+        ReflectionTestUtils.setField(weatherClient, "apiKey", "test-key");
+        
+        batchClient = new OpenWeatherMapBatchClient(webClient, weatherClient);
+        ReflectionTestUtils.setField(batchClient, "apiKey", "test-key");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.stop();
+    }
+    
+    @Test
+    void testGroupResponseIsSplitIntoReadings() {
+        List<WeatherData> readings = batchClient
+                .getWeatherForCities(List.of("London,uk", "Paris,fr"), 2)
+                .collectList()
+                .block();
+        
+        // Both cities come back from a single group request
+        assertNotNull(readings);
+        assertEquals(2, readings.size());
+        assertEquals(1, stub.groupRequests.get());
+        assertEquals(0, stub.singleRequests.get());
+        assertEquals(Set.of("London, GB", "Paris, FR"), locationNames(readings));
+    }
+    
+    @Test
+    void testMissingCitiesFallBackToSingleRequests() {
+        // The stub never returns Tokyo from the group endpoint
+        List<WeatherData> readings = batchClient
+                .getWeatherForCities(List.of("London,uk", "Tokyo,jp"), 2)
+                .collectList()
+                .block();
+        
+        assertNotNull(readings);
+        assertEquals(2, readings.size());
+        assertEquals(1, stub.groupRequests.get());
+        assertEquals(1, stub.singleRequests.get());
+        assertEquals(Set.of("London, GB", "Tokyo, JP"), locationNames(readings));
+    }
+    
+    @Test
+    void testFailedGroupRequestFallsBackForEveryCity() {
+        stub.groupStatus = 500;
+        
+        List<WeatherData> readings = batchClient
+                .getWeatherForCities(List.of("London,uk", "Paris,fr"), 2)
+                .collectList()
+                .block();
+        
+        assertNotNull(readings);
+        assertEquals(2, readings.size());
+        assertEquals(2, stub.singleRequests.get());
+    }
+    
+    @Test
+    void testAllKnownCitiesFitInOneRequest() {
+        // The 8 predefined cities are well below the group limit
+        List<String> cities = List.of("London,uk", "New York,us", "Tokyo,jp", "Sydney,au",
+                "Paris,fr", "Berlin,de", "Cairo,eg", "Mumbai,in");
+        
+        List<WeatherData> readings = batchClient.getWeatherForCities(cities, 2).collectList().block();
+        
+        assertNotNull(readings);
+        assertEquals(cities.size(), readings.size());
+        assertEquals(1, stub.groupRequests.get());
+        // Tokyo is missing from the group response and fetched on its own
+        assertEquals(1, stub.singleRequests.get());
+    }
+    
+    private Set<String> locationNames(List<WeatherData> readings) {
+        return readings.stream().map(WeatherData::getLocationName).collect(Collectors.toSet());
+    }
+}
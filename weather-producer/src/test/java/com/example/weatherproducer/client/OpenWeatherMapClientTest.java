@@ -0,0 +1,110 @@
+package com.example.weatherproducer.client;
+
+import com.example.weatherproducer.model.CacheStats;
+import com.example.weatherproducer.model.WeatherData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks request coalescing and response caching against a local stub of the OpenWeatherMap API
+ */
+public class OpenWeatherMapClientTest {
+
+    private OpenWeatherMapStub stub;
+    private OpenWeatherMapClient weatherClient;
+    
+    // Fake clock for the response cache
+    private final AtomicLong nanoTime = new AtomicLong();
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new OpenWeatherMapStub();
+        
+        OpenWeatherMapResponseCache cache = new OpenWeatherMapResponseCache(60, 2, nanoTime::get);
+        weatherClient = new OpenWeatherMapClient(stub.webClient(), cache, new LocationRegistry());
+        ReflectionTestUtils.setField(weatherClient, "apiKey", "test-key");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.stop();
+    }
+    
+    @Test
+    void testConcurrentCallersShareOneRequest() {
+        stub.singleDelayMillis = 200;
+        
+        List<WeatherData> readings = Flux.range(0, 10)
+                .flatMap(i -> weatherClient.getWeatherForCity("London,uk"))
+                .collectList()
+                .block();
+        
+        // All ten callers get a reading, but only one request reaches the API
+        assertNotNull(readings);
+        assertEquals(10, readings.size());
+        assertEquals(1, stub.singleRequests.get());
+    }
+    
+    @Test
+    void testFreshResponsesAreServedFromCache() {
+        weatherClient.getWeatherForCity("London,uk").block();
+        weatherClient.getWeatherForCity("London,uk").block();
+        
+        assertEquals(1, stub.singleRequests.get());
+        
+        CacheStats stats = weatherClient.getCacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+    
+    @Test
+    void testExpiredResponsesAreFetchedAgain() {
+        weatherClient.getWeatherForCity("London,uk").block();
+        
+        // Move past the 60 second TTL
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        weatherClient.getWeatherForCity("London,uk").block();
+        
+        assertEquals(2, stub.singleRequests.get());
+        assertEquals(1, weatherClient.getCacheStats().getEvictions());
+    }
+    
+    @Test
+    void testCacheEvictsOldestEntryWhenFull() {
+        weatherClient.getWeatherForCity("London,uk").block();
+        nanoTime.addAndGet(1);
+        weatherClient.getWeatherForCity("Paris,fr").block();
+        nanoTime.addAndGet(1);
+        weatherClient.getWeatherForCity("Tokyo,jp").block();
+        
+        // The cache holds two entries, so London has been evicted
+        CacheStats stats = weatherClient.getCacheStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(1, stats.getEvictions());
+        
+        weatherClient.getWeatherForCity("London,uk").block();
+        assertEquals(4, stub.singleRequests.get());
+    }
+    
+    @Test
+    void testFailedRequestIsNotCached() {
+        weatherClient.getWeatherForCity("Atlantis,xx").onErrorResume(e -> Mono.empty()).block();
+        weatherClient.getWeatherForCity("Atlantis,xx").onErrorResume(e -> Mono.empty()).block();
+        
+        // Both calls reach the API because errors are neither cached nor kept in flight
+        assertEquals(2, stub.singleRequests.get());
+        assertEquals(0, weatherClient.getCacheStats().getSize());
+    }
+}
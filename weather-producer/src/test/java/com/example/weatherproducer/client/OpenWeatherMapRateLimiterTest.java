@@ -0,0 +1,176 @@
+package com.example.weatherproducer.client;
+
+import com.example.weatherproducer.model.RateLimiterStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OpenWeatherMapRateLimiterTest {
+
+    // Fake clock for the token buckets
+    private final AtomicLong nanoTime = new AtomicLong();
+    
+    private OpenWeatherMapRateLimiter limiter;
+    
+    @BeforeEach
+    void setUp() {
+        // 60 per minute with a burst of 2, 1000 per day with 10% kept for HIGH priority
+        limiter = new OpenWeatherMapRateLimiter(60, 1000, 2, 0.1, 3, Duration.ofMinutes(10), nanoTime::get);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        limiter.shutdown();
+    }
+    
+    @Test
+    void testRequestsBeyondBurstWaitForRefill() {
+        List<String> granted = new CopyOnWriteArrayList<>();
+        subscribe(RequestPriority.NORMAL, "first", granted);
+        subscribe(RequestPriority.NORMAL, "second", granted);
+        subscribe(RequestPriority.NORMAL, "third", granted);
+        
+        assertEquals(List.of("first", "second"), granted);
+        assertEquals(1, limiter.getStats().getQueued());
+        
+        // One token per second at 60 per minute
+        advanceSeconds(1);
+        limiter.drain();
+        assertEquals(List.of("first", "second", "third"), granted);
+        
+        RateLimiterStats stats = limiter.getStats();
+        assertEquals(3, stats.getGranted());
+        assertEquals(0, stats.getQueued());
+        assertEquals(1000.0, stats.getMaxWaitMillis(), 0.001);
+    }
+    
+    @Test
+    void testHigherPriorityGoesFirstWhenTokensReturn() {
+        List<String> granted = new CopyOnWriteArrayList<>();
+        subscribe(RequestPriority.NORMAL, "burst-1", granted);
+        subscribe(RequestPriority.NORMAL, "burst-2", granted);
+        
+        subscribe(RequestPriority.LOW, "low", granted);
+        subscribe(RequestPriority.NORMAL, "normal", granted);
+        subscribe(RequestPriority.HIGH, "high", granted);
+        
+        advanceSeconds(1);
+        limiter.drain();
+        advanceSeconds(1);
+        limiter.drain();
+        advanceSeconds(1);
+        limiter.drain();
+        
+        assertEquals(List.of("burst-1", "burst-2", "high", "normal", "low"), granted);
+    }
+    
+    @Test
+    void testFullQueueRejects() {
+        List<String> granted = new CopyOnWriteArrayList<>();
+        subscribe(RequestPriority.NORMAL, "burst-1", granted);
+        subscribe(RequestPriority.NORMAL, "burst-2", granted);
+        subscribe(RequestPriority.NORMAL, "queued-1", granted);
+        subscribe(RequestPriority.NORMAL, "queued-2", granted);
+        subscribe(RequestPriority.NORMAL, "queued-3", granted);
+        
+        Throwable error = limiter.acquire(RequestPriority.HIGH)
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just)
+                .block();
+        
+        assertInstanceOf(RateLimitExceededException.class, error);
+        assertEquals(1, limiter.getStats().getRejected());
+    }
+    
+    @Test
+    void testDailyReserveIsLeftForHighPriority() {
+        limiter = new OpenWeatherMapRateLimiter(0, 10, 1, 0.5, 10, Duration.ofMinutes(10), nanoTime::get);
+        List<String> granted = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            subscribe(RequestPriority.NORMAL, "normal-" + i, granted);
+        }
+        subscribe(RequestPriority.HIGH, "high", granted);
+        
+        // Half of the ten daily requests are reserved, so only five NORMAL ones go out
+        assertEquals(List.of("normal-0", "normal-1", "normal-2", "normal-3", "normal-4", "high"), granted);
+        assertEquals(2, limiter.getStats().getQueued());
+    }
+    
+    @Test
+    void testRequestCancelledAsItIsGrantedGivesItsTokenBack() {
+        List<String> granted = new CopyOnWriteArrayList<>();
+        subscribe(RequestPriority.NORMAL, "first", granted);
+        subscribe(RequestPriority.NORMAL, "second", granted);
+        Disposable waiting = limiter.acquire(RequestPriority.NORMAL).subscribe(null, error -> { }, () -> granted.add("third"));
+    
+        // The token is charged, then the request times out before it is let go
+        advanceSeconds(1);
+        List<OpenWeatherMapRateLimiter.Waiter> ready = limiter.grant();
+        assertEquals(1, ready.size());
+        waiting.dispose();
+        limiter.release(ready);
+    
+        assertEquals(List.of("first", "second"), granted);
+        RateLimiterStats stats = limiter.getStats();
+        assertEquals(2, stats.getGranted());
+        assertEquals(1, stats.getRejected());
+        assertEquals(998, stats.getDayTokensRemaining(), 0.1);
+    
+        // The refunded token goes to the next request
+        subscribe(RequestPriority.NORMAL, "fourth", granted);
+        assertEquals(List.of("first", "second", "fourth"), granted);
+    }
+    
+    @Test
+    void testFilterHoldsBackRequestsWithoutToken() {
+        AtomicInteger exchanges = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    exchanges.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+                })
+                .filter(limiter)
+                .build();
+        
+        List<Disposable> requests = List.of(
+                webClient.get().uri("http://localhost/data/2.5/weather").retrieve().toBodilessEntity().subscribe(),
+                webClient.get().uri("http://localhost/data/2.5/weather").retrieve().toBodilessEntity().subscribe(),
+                webClient.get().uri("http://localhost/data/2.5/weather")
+                        .attribute(RequestPriority.ATTRIBUTE, RequestPriority.HIGH)
+                        .retrieve().toBodilessEntity().subscribe());
+        
+        // The burst of two goes straight through, the third request waits for a token
+        assertNotNull(requests);
+        assertEquals(2, exchanges.get());
+        
+        advanceSeconds(1);
+        limiter.drain();
+        assertEquals(3, exchanges.get());
+        assertTrue(limiter.getStats().getMinuteTokensRemaining() < 1);
+    }
+    
+    private void subscribe(RequestPriority priority, String name, List<String> granted) {
+        limiter.acquire(priority).subscribe(null, error -> { }, () -> granted.add(name));
+    }
+    
+    private void advanceSeconds(long seconds) {
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.weatherproducer.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Minimal local stand-in for the OpenWeatherMap weather and group endpoints, used by client tests
+ */
+class OpenWeatherMapStub {
+
+    // Known cities: query name -> (city ID, response name, country)
+    private static final Map<String, Object[]> CITIES = Map.of(
+        "London,uk", new Object[]{2643743L, "London", "GB"},
+        "Paris,fr", new Object[]{2988507L, "Paris", "FR"},
+        "Tokyo,jp", new Object[]{1850147L, "Tokyo", "JP"},
+        "New York,us", new Object[]{5128581L, "New York", "US"},
+        "Sydney,au", new Object[]{2147714L, "Sydney", "AU"},
+        "Berlin,de", new Object[]{2950159L, "Berlin", "DE"},
+        "Cairo,eg", new Object[]{360630L, "Cairo", "EG"},
+        "Mumbai,in", new Object[]{1275339L, "Mumbai", "IN"}
+    );
+    
+    // Tokyo is never part of a group response, to exercise the per-city fallback
+    static final long ID_MISSING_FROM_GROUP = 1850147L;
+    
+    private final HttpServer server;
+    
+    final AtomicInteger groupRequests = new AtomicInteger();
+    final AtomicInteger singleRequests = new AtomicInteger();
+    
+    // Status code returned for group requests
+    volatile int groupStatus = 200;
+    
+    // Artificial delay before answering single-city requests
+    volatile long singleDelayMillis = 0;
+    
+    OpenWeatherMapStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/data/2.5/group", this::handleGroup);
+        server.createContext("/data/2.5/weather", this::handleSingle);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+    }
+    
+    WebClient webClient() {
+        return WebClient.builder()
+            .baseUrl("http://localhost:" + server.getAddress().getPort())
+            .build();
+    }
+    
+    void stop() {
+        server.stop(0);
+    }
+    
+    private void handleGroup(HttpExchange exchange) throws IOException {
+        groupRequests.incrementAndGet();
+        if (groupStatus != 200) {
+            respond(exchange, groupStatus, "{\"cod\":" + groupStatus + "}");
+            return;
+        }
+        
+        String[] ids = queryParam(exchange, "id").split(",");
+        String list = List.of(ids).stream()
+            .map(Long::parseLong)
+            .filter(id -> id != ID_MISSING_FROM_GROUP)
+            .map(this::cityJsonById)
+            .collect(Collectors.joining(","));
+        respond(exchange, 200, "{\"cnt\":" + ids.length + ",\"list\":[" + list + "]}");
+    }
+    
+    private void handleSingle(HttpExchange exchange) throws IOException {
+        singleRequests.incrementAndGet();
+        if (singleDelayMillis > 0) {
+            try {
+                Thread.sleep(singleDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        Object[] city = CITIES.get(queryParam(exchange, "q"));
+        if (city == null) {
+            respond(exchange, 404, "{\"cod\":\"404\",\"message\":\"city not found\"}");
+            return;
+        }
+        respond(exchange, 200, cityJson(city));
+    }
+    
+    private String cityJsonById(long id) {
+        return CITIES.values().stream()
+            .filter(city -> (long) city[0] == id)
+            .findFirst()
+            .map(this::cityJson)
+            .orElseThrow();
+    }
+    
+    private String cityJson(Object[] city) {
+        return "{\"id\":" + city[0] + ",\"name\":\"" + city[1] + "\",\"sys\":{\"country\":\"" + city[2] + "\"},"
+            + "\"main\":{\"temp\":12.5,\"humidity\":70},\"wind\":{\"speed\":4.0,\"deg\":90},"
+            + "\"rain\":{\"1h\":0.5}}";
+    }
+    
+    private String queryParam(HttpExchange exchange, String name) {
+        for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] parts = pair.split("=", 2);
+            if (parts[0].equals(name)) {
+                return URLDecoder.decode(parts[1], StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+    
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
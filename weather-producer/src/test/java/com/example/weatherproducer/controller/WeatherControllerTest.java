@@ -0,0 +1,111 @@
+package com.example.weatherproducer.controller;
+
+import com.example.weatherproducer.model.BulkIngestResult;
+import com.example.weatherproducer.model.WeatherData;
+import com.example.weatherproducer.service.WeatherIngestService;
+import com.example.weatherproducer.service.WeatherKafkaProducer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(WeatherController.class)
+@Import(WeatherIngestService.class)
+public class WeatherControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    
+    @MockitoBean
+    private WeatherKafkaProducer producer;
+    
+    @BeforeEach
+    void setUp() {
+        when(producer.publish(any())).thenReturn(Mono.empty());
+    }
+    
+    @Test
+    void testSingleReadingIsPublished() {
+        webTestClient.post().uri("/api/weather")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"locationId\":\"location-1\",\"temperature\":20.0}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(WeatherData.class)
+                .value(data -> assertNotNull(data.getTimestamp()));
+        
+        verify(producer).publish(any());
+    }
+    
+    @Test
+    void testSingleReadingFailsWhenKafkaIsUnavailable() {
+        when(producer.publish(any())).thenReturn(Mono.error(new RuntimeException("broker unavailable")));
+        
+        webTestClient.post().uri("/api/weather")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"locationId\":\"location-1\",\"temperature\":20.0}")
+                .exchange()
+                .expectStatus().isEqualTo(503);
+    }
+    
+    @Test
+    void testBulkNdjson() {
+        String body = recordJson(0) + "\n" + recordJson(1) + "\n" + recordJson(2) + "\n";
+        
+        BulkIngestResult result = postBulk(MediaType.APPLICATION_NDJSON, body);
+        
+        assertEquals(3, result.getAccepted());
+        verify(producer, times(3)).publish(any());
+    }
+    
+    @Test
+    void testBulkJsonArray() {
+        String body = "[" + recordJson(0) + "," + recordJson(1) + "]";
+        
+        BulkIngestResult result = postBulk(MediaType.APPLICATION_JSON, body);
+        
+        assertEquals(2, result.getAccepted());
+        verify(producer, times(2)).publish(any());
+    }
+    
+    @Test
+    void testBulkReportsMalformedJson() {
+        String body = recordJson(0) + "\n{\"locationId\": oops\n";
+        
+        BulkIngestResult result = postBulk(MediaType.APPLICATION_NDJSON, body);
+        
+        // Records decoded before the error depend on how the body was chunked; the error is always reported,
+        // and the malformed rest is not counted as a record
+        assertEquals(0, result.getRejected());
+        assertNotNull(result.getError());
+    }
+    
+    private BulkIngestResult postBulk(MediaType contentType, String body) {
+        BulkIngestResult result = webTestClient.post().uri("/api/weather/bulk")
+                .contentType(contentType)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BulkIngestResult.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(result);
+        return result;
+    }
+    
+    private String recordJson(int i) {
+        return "{\"locationId\":\"location-" + i + "\",\"temperature\":21.5,\"timestamp\":\"2025-01-01T12:00:00\"}";
+    }
+}
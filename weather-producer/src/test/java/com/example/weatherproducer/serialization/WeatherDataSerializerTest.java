@@ -0,0 +1,41 @@
+package com.example.weatherproducer.serialization;
+
+import com.example.weatherproducer.model.WeatherData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WeatherDataSerializerTest {
+
+    private final WeatherData data = new WeatherData("location-1", "London, GB", 12.5, 80.0, 4.0, "SW", 0.5,
+            LocalDateTime.of(2025, 3, 14, 9, 26, 53));
+    
+    @Test
+    void testJsonByDefault() {
+        WeatherDataSerializer serializer = new WeatherDataSerializer();
+        serializer.configure(Map.of(), false);
+        
+        byte[] bytes = serializer.serialize("weather-data", data);
+        
+        // Timestamps stay ISO strings, as consumers expect
+        assertFalse(BinaryEncoding.isBinary(bytes));
+        assertTrue(new String(bytes, StandardCharsets.UTF_8).contains("\"timestamp\":\"2025-03-14T09:26:53\""));
+    }
+    
+    @Test
+    void testBinaryWhenConfigured() {
+        WeatherDataSerializer serializer = new WeatherDataSerializer();
+        serializer.configure(Map.of(WeatherDataSerializer.WIRE_FORMAT_CONFIG, "binary"), false);
+        
+        byte[] bytes = serializer.serialize("weather-data", data);
+        
+        assertTrue(BinaryEncoding.isBinary(bytes));
+        assertEquals(data, WeatherDataCodec.decode(bytes));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.client.RequestPriority;
+import com.example.weatherproducer.model.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptivePollingPlannerTest {
+
+    private static final AdaptivePollingPlanner.AlertThresholds THRESHOLDS =
+        new AdaptivePollingPlanner.AlertThresholds(32.0, 0.0, 15.0, 5.0);
+    
+    // Fake clock for the planner
+    private final AtomicLong nanoTime = new AtomicLong();
+    
+    private AdaptivePollingPlanner planner;
+    
+    @BeforeEach
+    void setUp() {
+        // 60 s to 30 min intervals, at most 60 requests per minute
+        planner = new AdaptivePollingPlanner(60, 1800, 60, THRESHOLDS, nanoTime::get);
+    }
+    
+    @Test
+    void testNewCitiesAreDueWithinTheBudget() {
+        planner.register(List.of("London,uk", "Paris,fr", "Tokyo,jp"));
+        
+        // One request is available at start, then one per second
+        assertEquals(List.of("London,uk"), planner.takeDue());
+        assertEquals(List.of(), planner.takeDue());
+        
+        advanceSeconds(2);
+        assertEquals(List.of("Paris,fr", "Tokyo,jp"), planner.takeDue());
+    }
+    
+    @Test
+    void testCalmCityIsPolledRarely() {
+        pollOnce("London,uk", reading(15.0, 3.0, 0.0));
+        advanceSeconds(1800);
+        pollOnce("London,uk", reading(15.2, 3.0, 0.0));
+        
+        assertTrue(planner.getIntervalSeconds("London,uk") >= 1500, planner.getIntervalSeconds("London,uk") + " s");
+        assertEquals(RequestPriority.NORMAL, planner.priorityOf("London,uk"));
+    }
+    
+    @Test
+    void testCityNearThresholdIsPolledOften() {
+        pollOnce("Rome,it", reading(31.5, 3.0, 0.0));
+        
+        assertTrue(planner.getIntervalSeconds("Rome,it") <= 120, planner.getIntervalSeconds("Rome,it") + " s");
+        assertEquals(RequestPriority.HIGH, planner.priorityOf("Rome,it"));
+    }
+    
+    @Test
+    void testNearnessFollowsTheConfiguredThresholds() {
+        planner = new AdaptivePollingPlanner(60, 1800, 60, new AdaptivePollingPlanner.AlertThresholds(40.0, 0.0, 15.0, 5.0),
+            nanoTime::get);
+        pollOnce("Rome,it", reading(31.5, 3.0, 0.0));
+        
+        assertTrue(planner.getIntervalSeconds("Rome,it") >= 1500, planner.getIntervalSeconds("Rome,it") + " s");
+        assertEquals(RequestPriority.NORMAL, planner.priorityOf("Rome,it"));
+    }
+    
+    @Test
+    void testFastChangingCityIsPolledOften() {
+        pollOnce("Berlin,de", reading(15.0, 3.0, 0.0));
+        advanceSeconds(600);
+        pollOnce("Berlin,de", reading(9.0, 3.0, 0.0));
+        advanceSeconds(600);
+        pollOnce("Berlin,de", reading(3.0, 3.0, 0.0));
+        
+        // 6 °C per 10 minutes is well past the analyzer's rapid change rate
+        assertTrue(planner.getIntervalSeconds("Berlin,de") <= 120, planner.getIntervalSeconds("Berlin,de") + " s");
+    }
+    
+    @Test
+    void testIntervalsStretchToFitTheBudget() {
+        planner = new AdaptivePollingPlanner(60, 1800, 10, THRESHOLDS, nanoTime::get);
+        List<String> cities = IntStream.range(0, 100).mapToObj(i -> "City " + i + ",zz").toList();
+        planner.register(cities);
+        
+        // Every city sits past a threshold and wants a poll per minute
+        for (String city : cities) {
+            planner.recordReading(city, reading(35.0, 3.0, 0.0));
+        }
+        
+        assertEquals(100.0, planner.getDemandPerMinute(), 0.01);
+        assertEquals(600, planner.getIntervalSeconds("City 0,zz"));
+        
+        // Over ten minutes no more than the budget is handed out
+        int polled = 0;
+        for (int second = 0; second < 600; second++) {
+            advanceSeconds(1);
+            polled += planner.takeDue().size();
+        }
+        assertTrue(polled <= 10 * 10 + 2, polled + " polls");
+    }
+    
+    @Test
+    void testFailedCityIsPlannedAgain() {
+        planner.register(List.of("Nowhere,xx"));
+        assertEquals(List.of("Nowhere,xx"), planner.takeDue());
+        
+        planner.recordFailure("Nowhere,xx");
+        assertEquals(List.of(), planner.takeDue());
+        
+        advanceSeconds(1800);
+        assertEquals(List.of("Nowhere,xx"), planner.takeDue());
+    }
+    
+    private void pollOnce(String city, WeatherData reading) {
+        planner.register(List.of(city));
+        advanceSeconds(1);
+        while (!planner.takeDue().contains(city)) {
+            advanceSeconds(1);
+        }
+        planner.recordReading(city, reading);
+    }
+    
+    private void advanceSeconds(long seconds) {
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+    
+    private WeatherData reading(double temperature, double windSpeed, double precipitation) {
+        return new WeatherData("location", "Location", temperature, 50.0, windSpeed, "N", precipitation, LocalDateTime.now());
+    }
+}
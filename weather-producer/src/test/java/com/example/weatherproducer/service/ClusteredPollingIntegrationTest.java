@@ -0,0 +1,92 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.config.ClusterConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two cluster members against an embedded broker: the cities are split between them,
+ * and the remaining member takes over every city when the other one leaves
+ */
+public class ClusteredPollingIntegrationTest {
+
+    private static final String TOPIC = "weather-producer-cluster";
+    private static final int SHARDS = 8;
+    
+    private static EmbeddedKafkaKraftBroker broker;
+    
+    private final List<String> cities = IntStream.range(0, 100).mapToObj(i -> "City " + i + ",zz").toList();
+    
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, SHARDS, TOPIC);
+        broker.brokerProperty("group.initial.rebalance.delay.ms", "0");
+        broker.afterPropertiesSet();
+    }
+    
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+    
+    @Test
+    void testOwnershipMovesWhenAnInstanceLeaves() {
+        PollingShardManager first = new PollingShardManager(true, SHARDS);
+        PollingShardManager second = new PollingShardManager(true, SHARDS);
+        KafkaMessageListenerContainer<byte[], byte[]> firstMember = member(first);
+        KafkaMessageListenerContainer<byte[], byte[]> secondMember = member(second);
+        try {
+            firstMember.start();
+            secondMember.start();
+            
+            // Both instances poll a share of the cities, and no city is polled twice
+            awaitCondition(() -> !first.ownedCities(cities).isEmpty() && !second.ownedCities(cities).isEmpty()
+                    && first.ownedCities(cities).size() + second.ownedCities(cities).size() == cities.size());
+            for (String city : cities) {
+                assertTrue(first.owns(city) ^ second.owns(city), city);
+            }
+            
+            // The remaining instance takes over every city
+            secondMember.stop();
+            awaitCondition(() -> first.ownedCities(cities).size() == cities.size());
+            assertEquals(cities, first.ownedCities(cities));
+        } finally {
+            firstMember.stop();
+            secondMember.stop();
+        }
+    }
+    
+    private KafkaMessageListenerContainer<byte[], byte[]> member(PollingShardManager shardManager) {
+        ClusterConfig config = new ClusterConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", broker.getBrokersAsString());
+        ReflectionTestUtils.setField(config, "topic", TOPIC);
+        ReflectionTestUtils.setField(config, "groupId", "cluster-test");
+        ReflectionTestUtils.setField(config, "shards", SHARDS);
+        ReflectionTestUtils.setField(config, "sessionTimeoutMs", 10000);
+        return config.clusterMembershipContainer(shardManager);
+    }
+    
+    private void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 60000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for rebalance");
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.model.DeadBandStats;
+import com.example.weatherproducer.model.WeatherData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeadBandFilterTest {
+
+    // Fake clock for the heartbeat
+    private final AtomicLong nanoTime = new AtomicLong();
+    
+    private DeadBandFilter filter;
+    
+    @BeforeEach
+    void setUp() {
+        // 0.2 °C, 1 % humidity, 0.3 m/s wind, 0.1 mm rain, heartbeat every 30 minutes
+        filter = new DeadBandFilter(true, 0.2, 1.0, 0.3, 0.1, 1800, nanoTime::get);
+    }
+    
+    @Test
+    void testReadingsWithinToleranceAreSuppressed() {
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+        assertFalse(filter.shouldPublish(reading("london", 15.1, 60.5, 3.2, 0.05)));
+        
+        // Any single value leaving its band is enough
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.5, 0.0)));
+    }
+    
+    @Test
+    void testSlowDriftIsComparedWithLastPublishedReading() {
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+        assertFalse(filter.shouldPublish(reading("london", 15.15, 60.0, 3.0, 0.0)));
+        
+        // 0.15 from the previous reading, but 0.3 from the last published one
+        assertTrue(filter.shouldPublish(reading("london", 15.3, 60.0, 3.0, 0.0)));
+    }
+    
+    @Test
+    void testHeartbeatPublishesUnchangedReading() {
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(29));
+        assertFalse(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+        
+        nanoTime.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+    }
+    
+    @Test
+    void testLocationsAreTrackedSeparately() {
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+        assertTrue(filter.shouldPublish(reading("paris", 15.0, 60.0, 3.0, 0.0)));
+        assertFalse(filter.shouldPublish(reading("paris", 15.0, 60.0, 3.0, 0.0)));
+        assertFalse(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+        
+        DeadBandStats stats = filter.getStats();
+        assertEquals(2, stats.getPublished());
+        assertEquals(2, stats.getSuppressed());
+        assertEquals(0.5, stats.getSuppressionRatio(), 0.0001);
+        assertEquals(2, stats.getLocations());
+    }
+    
+    @Test
+    void testDisabledFilterPublishesEverything() {
+        filter = new DeadBandFilter(false, 0.2, 1.0, 0.3, 0.1, 1800, nanoTime::get);
+        
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+        assertTrue(filter.shouldPublish(reading("london", 15.0, 60.0, 3.0, 0.0)));
+    }
+    
+    private WeatherData reading(String locationId, double temperature, double humidity, double windSpeed,
+                                double precipitation) {
+        return new WeatherData(locationId, locationId, temperature, humidity, windSpeed, "N", precipitation,
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.config.KafkaConfig;
+import com.example.weatherproducer.model.WeatherData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the default producer settings with the "throughput" profile against an embedded broker.
+ * Run with {@code mvn test -Dtest=KafkaProducerThroughputBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class KafkaProducerThroughputBenchmark {
+
+    private static final int RECORDS = 200_000;
+    
+    private static EmbeddedKafkaKraftBroker broker;
+    
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, WeatherKafkaProducer.TOPIC);
+        broker.afterPropertiesSet();
+    }
+    
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+    
+    @Test
+    void compareDefaultAndThroughputSettings() {
+        // Warm up the broker and JIT before measuring
+        run("warm-up", defaults(), 50_000, 1000);
+        run("warm-up", throughput(), 50_000, 10000);
+        
+        // Alternate the two settings so broker warm-up does not favour either
+        for (int round = 0; round < 2; round++) {
+            run("default", defaults(), RECORDS, 1000);
+            run("throughput", throughput(), RECORDS, 10000);
+        }
+    }
+    
+    private void run(String name, KafkaConfig config, int records, int maxInFlight) {
+        Map<String, Object> properties = ReflectionTestUtils.invokeMethod(config, "producerProperties");
+        DefaultKafkaProducerFactory<String, WeatherData> factory = new DefaultKafkaProducerFactory<>(properties);
+        WeatherKafkaProducer producer = new WeatherKafkaProducer(new KafkaTemplate<>(factory), maxInFlight, records);
+        try {
+            long start = System.nanoTime();
+            Long sent = producer.publishAll(Flux.range(0, records).map(this::weatherData)).count().block();
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            
+            assertEquals(records, sent);
+            System.out.printf("%-10s %,d records in %.2f s: %,.0f records/sec, avg ack latency %.2f ms%n",
+                    name, records, seconds, records / seconds,
+                    producer.getSendStats().get(0).getAverageLatencyMillis());
+        } finally {
+            producer.shutdown();
+            factory.destroy();
+        }
+    }
+    
+    private KafkaConfig defaults() {
+        KafkaConfig config = new KafkaConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", broker.getBrokersAsString());
+        ReflectionTestUtils.setField(config, "wireFormat", "json");
+        ReflectionTestUtils.setField(config, "acks", "all");
+        ReflectionTestUtils.setField(config, "enableIdempotence", true);
+        ReflectionTestUtils.setField(config, "batchSize", 16384);
+        ReflectionTestUtils.setField(config, "lingerMs", 0);
+        ReflectionTestUtils.setField(config, "compressionType", "none");
+        ReflectionTestUtils.setField(config, "bufferMemory", 33554432L);
+        return config;
+    }
+    
+    // Mirrors application-throughput.properties
+    private KafkaConfig throughput() {
+        KafkaConfig config = defaults();
+        ReflectionTestUtils.setField(config, "batchSize", 131072);
+        ReflectionTestUtils.setField(config, "lingerMs", 20);
+        ReflectionTestUtils.setField(config, "compressionType", "lz4");
+        ReflectionTestUtils.setField(config, "bufferMemory", 67108864L);
+        return config;
+    }
+    
+    private WeatherData weatherData(int i) {
+        return new WeatherData("location-" + (i % 500), "City " + (i % 500), 20.0 + i % 10, 55.0, 4.2,
+                "NE", 0.3, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.weatherproducer.service;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PollingShardManagerTest {
+
+    private static final String TOPIC = "weather-producer-cluster";
+    
+    private final List<String> cities = IntStream.range(0, 200).mapToObj(i -> "City " + i + ",zz").toList();
+    
+    @Test
+    void testWithoutClusteringEveryCityIsOwned() {
+        PollingShardManager manager = new PollingShardManager(false, 8);
+        
+        assertEquals(cities, manager.ownedCities(cities));
+    }
+    
+    @Test
+    void testNothingIsOwnedBeforeTheFirstAssignment() {
+        PollingShardManager manager = new PollingShardManager(true, 8);
+        
+        assertTrue(manager.ownedCities(cities).isEmpty());
+    }
+    
+    @Test
+    void testSplitShardsCoverEveryCityExactlyOnce() {
+        PollingShardManager first = new PollingShardManager(true, 8);
+        PollingShardManager second = new PollingShardManager(true, 8);
+        first.onPartitionsAssigned(partitions(0, 1, 2, 3));
+        second.onPartitionsAssigned(partitions(4, 5, 6, 7));
+        
+        for (String city : cities) {
+            assertTrue(first.owns(city) ^ second.owns(city), city);
+        }
+        assertTrue(first.ownedCities(cities).size() > 50, "first owns " + first.ownedCities(cities).size());
+        assertTrue(second.ownedCities(cities).size() > 50, "second owns " + second.ownedCities(cities).size());
+    }
+    
+    @Test
+    void testRevokedShardsAreNoLongerPolled() {
+        PollingShardManager manager = new PollingShardManager(true, 2);
+        manager.onPartitionsAssigned(partitions(0, 1));
+        int generation = manager.getGeneration();
+        
+        manager.onPartitionsRevoked(partitions(1));
+        
+        assertNotEquals(generation, manager.getGeneration());
+        for (String city : manager.ownedCities(cities)) {
+            assertEquals(0, manager.shardOf(city));
+        }
+        assertTrue(manager.ownedCities(cities).size() < cities.size());
+    }
+    
+    private List<TopicPartition> partitions(int... partitions) {
+        return IntStream.of(partitions).mapToObj(partition -> new TopicPartition(TOPIC, partition)).toList();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.client.OpenWeatherMapBatchClient;
+import com.example.weatherproducer.client.OpenWeatherMapClient;
+import com.example.weatherproducer.client.RequestPriority;
+import com.example.weatherproducer.model.PollingCycleSummary;
+import com.example.weatherproducer.model.WeatherData;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WeatherDataSchedulerTest {
+
+    @Mock
+    private OpenWeatherMapClient weatherClient;
+    
+    @Mock
+    private OpenWeatherMapBatchClient batchClient;
+    
+    @Mock
+    private WeatherKafkaProducer kafkaProducer;
+    
+    @Mock
+    private AdaptivePollingPlanner pollingPlanner;
+    
+    // Clustering off unless a test replaces it
+    @Spy
+    private PollingShardManager shardManager = new PollingShardManager(false, 8);
+    
+    // Filtering off unless a test replaces it
+    @Spy
+    private DeadBandFilter deadBandFilter = new DeadBandFilter(false, 0, 0, 0, 0, 0, System::nanoTime);
+    
+    @InjectMocks
+    private WeatherDataScheduler scheduler;
+    
+    @BeforeEach
+    void setUp() {
+        // @Value fields are not injected by Mockito
+        ReflectionTestUtils.setField(scheduler, "pollingMode", WeatherDataScheduler.POLLING_MODE_ALL);
+        ReflectionTestUtils.setField(scheduler, "pollingConcurrency", 2);
+    }
+    
+    @Test
+    void testFetchAllCitiesPublishesEveryReading() {
+        when(weatherClient.getAllCities()).thenReturn(List.of("London,uk", "Paris,fr", "Tokyo,jp"));
+        when(weatherClient.getWeatherForCity(any())).thenAnswer(invocation ->
+                Mono.just(weatherData(invocation.getArgument(0))));
+        
+        PollingCycleSummary summary = scheduler.fetchAllCities().block();
+        
+        // Every city should be fetched and published in a single cycle
+        assertNotNull(summary);
+        assertEquals(3, summary.getCities());
+        assertEquals(3, summary.getSucceeded());
+        assertEquals(0, summary.getFailed());
+        verify(kafkaProducer, times(3)).sendWeatherData(any(WeatherData.class));
+    }
+    
+    @Test
+    void testFetchAllCitiesCountsFailures() {
+        when(weatherClient.getAllCities()).thenReturn(List.of("London,uk", "Nowhere,xx"));
+        when(weatherClient.getWeatherForCity("London,uk")).thenReturn(Mono.just(weatherData("London,uk")));
+        when(weatherClient.getWeatherForCity("Nowhere,xx")).thenReturn(Mono.error(new RuntimeException("404")));
+        
+        PollingCycleSummary summary = scheduler.fetchAllCities().block();
+        
+        // A failing city must not stop the rest of the cycle
+        assertNotNull(summary);
+        assertEquals(1, summary.getSucceeded());
+        assertEquals(1, summary.getFailed());
+        verify(kafkaProducer, times(1)).sendWeatherData(any(WeatherData.class));
+    }
+    
+    @Test
+    void testBatchModeUsesGroupClient() {
+        ReflectionTestUtils.setField(scheduler, "pollingMode", WeatherDataScheduler.POLLING_MODE_BATCH);
+        List<String> cities = List.of("London,uk", "Paris,fr", "Tokyo,jp");
+        when(weatherClient.getAllCities()).thenReturn(cities);
+        when(batchClient.getWeatherForCities(eq(cities), eq(2)))
+                .thenReturn(Flux.just(weatherData("London,uk"), weatherData("Paris,fr")));
+        
+        PollingCycleSummary summary = scheduler.fetchAllCities().block();
+        
+        // Cities the batch client could not return count as failures
+        assertNotNull(summary);
+        assertEquals(2, summary.getSucceeded());
+        assertEquals(1, summary.getFailed());
+        verify(weatherClient, never()).getWeatherForCity(anyString());
+        verify(kafkaProducer, times(2)).sendWeatherData(any(WeatherData.class));
+    }
+    
+    @Test
+    void testAdaptiveModeFetchesDueCitiesAndRecordsResults() {
+        ReflectionTestUtils.setField(scheduler, "pollingMode", WeatherDataScheduler.POLLING_MODE_ADAPTIVE);
+        List<String> cities = List.of("London,uk", "Nowhere,xx");
+        when(weatherClient.getAllCities()).thenReturn(cities);
+        when(pollingPlanner.takeDue()).thenReturn(cities);
+        when(pollingPlanner.priorityOf("London,uk")).thenReturn(RequestPriority.HIGH);
+        when(pollingPlanner.priorityOf("Nowhere,xx")).thenReturn(RequestPriority.NORMAL);
+        WeatherData london = weatherData("London,uk");
+        when(weatherClient.getWeatherForCity("London,uk", RequestPriority.HIGH)).thenReturn(Mono.just(london));
+        when(weatherClient.getWeatherForCity("Nowhere,xx", RequestPriority.NORMAL))
+                .thenReturn(Mono.error(new RuntimeException("404")));
+        
+        scheduler.pollDueCities();
+        
+        // Each due city is handed back to the planner, with its reading or as a failure
+        verify(pollingPlanner).retain(cities);
+        verify(pollingPlanner).recordReading("London,uk", london);
+        verify(pollingPlanner).recordFailure("Nowhere,xx");
+        verify(kafkaProducer, times(1)).sendWeatherData(london);
+    }
+    
+    @Test
+    void testAdaptiveModeSkipsFixedRateCycle() {
+        ReflectionTestUtils.setField(scheduler, "pollingMode", WeatherDataScheduler.POLLING_MODE_ADAPTIVE);
+        
+        scheduler.fetchWeatherData();
+        
+        verify(weatherClient, never()).getWeatherForCity(anyString());
+        verify(weatherClient, never()).getWeatherForCity(anyString(), any(RequestPriority.class));
+        verify(batchClient, never()).getWeatherForCities(any(), anyInt());
+    }
+    
+    @Test
+    void testClusteredInstanceFetchesOnlyItsShards() {
+        PollingShardManager clustered = new PollingShardManager(true, 2);
+        ReflectionTestUtils.setField(scheduler, "shardManager", clustered);
+        List<String> cities = List.of("London,uk", "Paris,fr", "Tokyo,jp", "New York,us", "Sydney,au", "Berlin,de");
+        clustered.onPartitionsAssigned(List.of(new TopicPartition("weather-producer-cluster", 0)));
+        List<String> owned = clustered.ownedCities(cities);
+        assertTrue(owned.size() > 0 && owned.size() < cities.size());
+        when(weatherClient.getAllCities()).thenReturn(cities);
+        when(weatherClient.getWeatherForCity(any())).thenAnswer(invocation ->
+                Mono.just(weatherData(invocation.getArgument(0))));
+        
+        PollingCycleSummary summary = scheduler.fetchAllCities().block();
+        
+        // Cities in the other shard belong to another instance
+        assertNotNull(summary);
+        assertEquals(owned.size(), summary.getCities());
+        for (String city : cities) {
+            verify(weatherClient, times(owned.contains(city) ? 1 : 0)).getWeatherForCity(city);
+        }
+    }
+    
+    @Test
+    void testUnchangedReadingsAreNotPublished() {
+        ReflectionTestUtils.setField(scheduler, "deadBandFilter",
+                new DeadBandFilter(true, 0.2, 1.0, 0.3, 0.1, 1800, System::nanoTime));
+        when(weatherClient.getAllCities()).thenReturn(List.of("London,uk"));
+        when(weatherClient.getWeatherForCity(any())).thenAnswer(invocation ->
+                Mono.just(weatherData(invocation.getArgument(0))));
+        
+        scheduler.fetchAllCities().block();
+        scheduler.fetchAllCities().block();
+        
+        // The second cycle returns the same reading, so only the first one is published
+        verify(kafkaProducer, times(1)).sendWeatherData(any(WeatherData.class));
+    }
+    
+    private WeatherData weatherData(String city) {
+        return new WeatherData(city, city, 20.0, 50.0, 3.0, "N", 0.0, LocalDateTime.now());
+    }
+}
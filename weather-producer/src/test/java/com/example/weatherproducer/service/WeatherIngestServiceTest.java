@@ -0,0 +1,150 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.model.BulkIngestResult;
+import com.example.weatherproducer.model.IngestBatchResult;
+import com.example.weatherproducer.model.WeatherData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.codec.DecodingException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WeatherIngestServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    @Mock
+    private WeatherKafkaProducer producer;
+    
+    private WeatherIngestService ingestService;
+    
+    @BeforeEach
+    void setUp() {
+        lenient().when(producer.publish(any())).thenReturn(Mono.empty());
+        ingestService = new WeatherIngestService(producer, objectMapper, 2);
+    }
+    
+    @Test
+    void testRecordsArePublishedInBatches() {
+        Flux<JsonNode> records = Flux.fromStream(IntStream.range(0, 5).mapToObj(this::recordJson)).map(this::node);
+        
+        BulkIngestResult result = ingestService.ingest(records).block();
+        
+        assertNotNull(result);
+        assertEquals(5, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        assertNull(result.getError());
+        
+        // Batches of two, with the last record in a batch of its own
+        List<IngestBatchResult> batches = result.getBatches();
+        assertEquals(3, batches.size());
+        assertEquals(2, batches.get(0).getAccepted());
+        assertEquals(1, batches.get(2).getAccepted());
+        verify(producer, times(5)).publish(any());
+    }
+    
+    @Test
+    void testInvalidRecordsAreRejected() {
+        Flux<JsonNode> records = Flux.just(
+                recordJson(0),
+                "{\"locationId\":\"\",\"temperature\":20.0}",
+                "{\"locationId\":\"location-2\",\"temperature\":\"warm\"}",
+                recordJson(3)).map(this::node);
+        
+        BulkIngestResult result = ingestService.ingest(records).block();
+        
+        // The blank location ID and the unparseable temperature are rejected, the rest goes through
+        assertNotNull(result);
+        assertEquals(2, result.getAccepted());
+        assertEquals(2, result.getRejected());
+        assertNull(result.getError());
+    }
+    
+    @Test
+    void testFailedSendsAreCountedAsRejected() {
+        when(producer.publish(argThat(data -> data != null && "location-1".equals(data.getLocationId()))))
+                .thenReturn(Mono.error(new RuntimeException("broker unavailable")));
+        
+        BulkIngestResult result = ingestService.ingest(Flux.just(recordJson(0), recordJson(1)).map(this::node)).block();
+        
+        assertNotNull(result);
+        assertEquals(1, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(1, result.getBatches().get(0).getRejected());
+    }
+    
+    @Test
+    void testMalformedJsonStopsIngest() {
+        Flux<JsonNode> records = Flux.just(recordJson(0), recordJson(1), recordJson(2))
+                .map(this::node)
+                .concatWith(Flux.error(new DecodingException("JSON decoding error: Unrecognized token 'oops'")));
+        
+        BulkIngestResult result = ingestService.ingest(records).block();
+        
+        // Records before the malformed one are still published, and the malformed rest is not a record
+        assertNotNull(result);
+        assertEquals(3, result.getAccepted());
+        assertEquals(0, result.getRejected());
+        assertNotNull(result.getError());
+    }
+    
+    @Test
+    void testTruncatedBodyCountsOnlyTheRecordsItHeld() {
+        Flux<JsonNode> records = Flux.just(recordJson(0), "{\"temperature\": 20.0}", recordJson(2), recordJson(3))
+                .map(this::node)
+                .concatWith(Flux.error(new DecodingException("JSON decoding error: Unexpected end-of-input")));
+        
+        BulkIngestResult result = ingestService.ingest(records).block();
+        
+        assertNotNull(result);
+        assertEquals(3, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(2, result.getBatches().size());
+        assertEquals(1, result.getBatches().get(0).getRejected());
+        assertEquals(0, result.getBatches().get(1).getRejected());
+        assertNotNull(result.getError());
+    }
+    
+    @Test
+    void testMissingTimestampIsFilledIn() {
+        ingestService.ingest(Flux.just(node("{\"locationId\":\"location-1\",\"temperature\":20.0}"))).block();
+        
+        ArgumentCaptor<WeatherData> captor = ArgumentCaptor.forClass(WeatherData.class);
+        verify(producer).publish(captor.capture());
+        assertNotNull(captor.getValue().getTimestamp());
+    }
+    
+    private String recordJson(int i) {
+        return "{\"locationId\":\"location-" + i + "\",\"locationName\":\"City " + i + "\",\"temperature\":21.5,"
+                + "\"humidity\":60.0,\"windSpeed\":3.0,\"windDirection\":\"N\",\"precipitation\":0.0,"
+                + "\"timestamp\":\"2025-01-01T12:00:00\"}";
+    }
+    
+    private JsonNode node(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
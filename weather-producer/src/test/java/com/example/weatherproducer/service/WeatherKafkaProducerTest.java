@@ -0,0 +1,147 @@
+package com.example.weatherproducer.service;
+
+import com.example.weatherproducer.model.SendStats;
+import com.example.weatherproducer.model.WeatherData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WeatherKafkaProducerTest {
+
+    private KafkaTemplate<String, WeatherData> kafkaTemplate;
+    private WeatherKafkaProducer producer;
+    
+    // Futures handed out by the mocked template, completed by the tests
+    private final List<CompletableFuture<SendResult<String, WeatherData>>> sends = new CopyOnWriteArrayList<>();
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any(WeatherData.class))).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, WeatherData>> future = new CompletableFuture<>();
+            sends.add(future);
+            return future;
+        });
+        
+        // Allow only two unacknowledged sends
+        producer = new WeatherKafkaProducer(kafkaTemplate, 2, 100);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        producer.shutdown();
+    }
+    
+    @Test
+    void testSendsBeyondInFlightLimitWaitForAcknowledgement() {
+        producer.sendWeatherData(weatherData("location-1"));
+        producer.sendWeatherData(weatherData("location-2"));
+        producer.sendWeatherData(weatherData("location-3"));
+        
+        // Only two sends reach Kafka while nothing has been acknowledged
+        awaitCondition(() -> sends.size() == 2);
+        verify(kafkaTemplate, times(2)).send(eq(WeatherKafkaProducer.TOPIC), anyString(), any(WeatherData.class));
+        assertEquals(2, producer.getInFlight());
+        assertEquals(1, producer.getQueued());
+        
+        // Acknowledging one send frees a slot for the waiting one
+        sends.get(0).complete(null);
+        verify(kafkaTemplate, timeout(1000).times(3)).send(eq(WeatherKafkaProducer.TOPIC), anyString(), any(WeatherData.class));
+        assertEquals(0, producer.getQueued());
+    }
+    
+    @Test
+    void testPublishAllCompletesAfterEveryAcknowledgement() {
+        List<SendResult<String, WeatherData>> results = new CopyOnWriteArrayList<>();
+        Flux.range(0, 5)
+                .map(i -> weatherData("location-" + i))
+                .as(producer::publishAll)
+                .subscribe(results::add);
+        
+        // Acknowledge sends as they arrive until all five have gone out
+        for (int acknowledged = 0; acknowledged < 5; acknowledged++) {
+            int sent = acknowledged + 1;
+            awaitCondition(() -> sends.size() >= sent);
+            sends.get(acknowledged).complete(sendResult());
+        }
+        
+        verify(kafkaTemplate, timeout(1000).times(5)).send(anyString(), anyString(), any(WeatherData.class));
+        awaitCondition(() -> results.size() == 5);
+        assertEquals(5, results.size());
+    }
+    
+    @Test
+    void testPublishFailsWhenTheQueueIsFull() {
+        producer.shutdown();
+        // One unacknowledged send and one waiting send
+        producer = new WeatherKafkaProducer(kafkaTemplate, 1, 1);
+        producer.sendWeatherData(weatherData("location-1"));
+        awaitCondition(() -> sends.size() == 1);
+        producer.sendWeatherData(weatherData("location-2"));
+        
+        assertThrows(SendQueueFullException.class,
+            () -> producer.publish(weatherData("location-3")).block(Duration.ofSeconds(1)));
+        assertEquals(1, producer.getQueued());
+        
+        // Once the slot frees up the queued send goes out and there is room again
+        sends.get(0).complete(sendResult());
+        awaitCondition(() -> sends.size() == 2);
+        producer.sendWeatherData(weatherData("location-4"));
+        assertEquals(1, producer.getQueued());
+    }
+    
+    @Test
+    void testFailedSendsAreCountedPerTopic() {
+        producer.sendWeatherData(weatherData("location-1"));
+        producer.sendWeatherData(weatherData("location-2"));
+        awaitCondition(() -> sends.size() == 2);
+        
+        sends.get(0).complete(sendResult());
+        sends.get(1).completeExceptionally(new RuntimeException("broker unavailable"));
+        
+        awaitCondition(() -> producer.getInFlight() == 0);
+        SendStats stats = producer.getSendStats().get(0);
+        assertEquals(WeatherKafkaProducer.TOPIC, stats.getTopic());
+        assertEquals(1, stats.getSent());
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, producer.getInFlight());
+    }
+    
+    private void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private SendResult<String, WeatherData> sendResult() {
+        return mock(SendResult.class);
+    }
+    
+    private WeatherData weatherData(String locationId) {
+        return new WeatherData(locationId, "Test Location", 20.0, 50.0, 3.0, "N", 0.0, LocalDateTime.now());
+    }
+}
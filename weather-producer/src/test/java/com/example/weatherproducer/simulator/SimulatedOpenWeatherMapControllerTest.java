@@ -0,0 +1,76 @@
+package com.example.weatherproducer.simulator;
+
+import com.example.weatherproducer.client.LocationRegistry;
+import com.example.weatherproducer.client.OpenWeatherMapBatchClient.OpenWeatherMapGroupResponse;
+import com.example.weatherproducer.client.OpenWeatherMapClient;
+import com.example.weatherproducer.client.OpenWeatherMapClient.OpenWeatherMapResponse;
+import com.example.weatherproducer.client.OpenWeatherMapResponseCache;
+import com.example.weatherproducer.client.SyntheticCities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that simulated responses decode into the client's OpenWeatherMap response types
+ */
+public class SimulatedOpenWeatherMapControllerTest {
+
+    private WebTestClient client;
+    
+    @BeforeEach
+    void setUp() {
+        OpenWeatherMapClient weatherClient = new OpenWeatherMapClient(
+                WebClient.create(), new OpenWeatherMapResponseCache(0, 0), new LocationRegistry());
+        ReflectionTestUtils.setField(weatherClient, "syntheticCities", 10);
+        
+        SimulatedOpenWeatherMapController controller =
+                new SimulatedOpenWeatherMapController(new WeatherSimulator(42, WeatherScenario.NORMAL, 0), weatherClient);
+        client = WebTestClient.bindToController(controller).build();
+    }
+    
+    @Test
+    void testCurrentWeatherByName() {
+        OpenWeatherMapResponse response = client.get()
+                .uri("/data/2.5/weather?q={q}&appid=simulator", SyntheticCities.query(3))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OpenWeatherMapResponse.class)
+                .returnResult()
+                .getResponseBody();
+        
+        assertNotNull(response);
+        assertEquals(SyntheticCities.id(3), response.getId());
+        assertEquals(SyntheticCities.name(3), response.getName());
+        assertEquals(SyntheticCities.COUNTRY, response.getSys().getCountry());
+        assertNotNull(response.getMain());
+    }
+    
+    @Test
+    void testGroupLeavesOutUnknownIds() {
+        OpenWeatherMapGroupResponse response = client.get()
+                .uri("/data/2.5/group?id={ids}&units=metric", SyntheticCities.id(1) + ",1," + SyntheticCities.id(2))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(OpenWeatherMapGroupResponse.class)
+                .returnResult()
+                .getResponseBody();
+        
+        assertNotNull(response);
+        assertEquals(2, response.getCnt());
+        assertEquals(SyntheticCities.id(1), response.getList().get(0).getId());
+        assertEquals(SyntheticCities.id(2), response.getList().get(1).getId());
+    }
+    
+    @Test
+    void testUnknownCityIdIsNotFound() {
+        client.get()
+                .uri("/data/2.5/weather?id=1")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
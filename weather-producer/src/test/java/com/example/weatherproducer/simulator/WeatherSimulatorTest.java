@@ -0,0 +1,59 @@
+package com.example.weatherproducer.simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WeatherSimulatorTest {
+
+    @Test
+    void testSameSeedProducesSameReadings() {
+        assertEquals(readings(new WeatherSimulator(7, WeatherScenario.MIXED, 0.5), "London,uk", 20),
+            readings(new WeatherSimulator(7, WeatherScenario.MIXED, 0.5), "London,uk", 20));
+        assertNotEquals(readings(new WeatherSimulator(7, WeatherScenario.NORMAL, 0), "London,uk", 20),
+            readings(new WeatherSimulator(8, WeatherScenario.NORMAL, 0), "London,uk", 20));
+    }
+    
+    @Test
+    void testStormBuildsUpWindAndRain() {
+        List<SimulatedReading> readings = readings(new WeatherSimulator(1, WeatherScenario.STORM, 1.0), "Oslo,no", 20);
+        
+        SimulatedReading last = readings.get(readings.size() - 1);
+        assertTrue(last.getWindSpeed() > 20, "wind speed " + last.getWindSpeed());
+        assertTrue(last.getRainOneHour() > 10, "rain " + last.getRainOneHour());
+    }
+    
+    @Test
+    void testHeatWaveRaisesTemperature() {
+        List<SimulatedReading> readings = readings(new WeatherSimulator(1, WeatherScenario.HEAT_WAVE, 1.0), "Rome,it", 20);
+        
+        assertTrue(readings.get(19).getTemperature() - readings.get(0).getTemperature() > 10);
+    }
+    
+    @Test
+    void testRapidDropLowersTemperature() {
+        List<SimulatedReading> readings = readings(new WeatherSimulator(1, WeatherScenario.RAPID_DROP, 1.0), "Berlin,de", 10);
+        
+        assertTrue(readings.get(0).getTemperature() - readings.get(9).getTemperature() >= 10);
+    }
+    
+    @Test
+    void testScenarioShareLeavesOtherCitiesNormal() {
+        WeatherSimulator simulator = new WeatherSimulator(3, WeatherScenario.STORM, 0.2);
+        
+        long storms = IntStream.range(0, 1000)
+            .mapToObj(i -> simulator.scenarioOf("City " + i + ",zz"))
+            .filter(scenario -> scenario == WeatherScenario.STORM)
+            .count();
+        assertTrue(storms > 120 && storms < 280, storms + " storms");
+    }
+    
+    private List<SimulatedReading> readings(WeatherSimulator simulator, String city, int count) {
+        return IntStream.range(0, count).mapToObj(i -> simulator.next(city)).toList();
+    }
+}